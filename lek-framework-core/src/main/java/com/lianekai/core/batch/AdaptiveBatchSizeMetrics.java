@@ -0,0 +1,77 @@
+package com.lianekai.core.batch;
+
+import com.lianekai.util.batch.AdaptiveBatchSize;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把{@link AdaptiveBatchSize}的当前批次大小、耗时和调整次数发布为Micrometer指标
+ * 自适应批次大小由业务自己创建，没有统一的登记处，需要按实例声明：
+ * <pre>
+ * &#64;Bean
+ * public MeterBinder userImportSizingMetrics() {
+ *     return new AdaptiveBatchSizeMetrics("user-import", userImportSizing);
+ * }
+ * </pre>
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 22:20
+ */
+public class AdaptiveBatchSizeMetrics implements MeterBinder {
+
+    private static final String PREFIX = "lek.batch.adaptive";
+
+    private final String name;
+
+    private final AdaptiveBatchSize sizing;
+
+    /**
+     * @param name 指标的batch标签
+     * @param sizing 自适应批次大小
+     */
+    public AdaptiveBatchSizeMetrics(String name, AdaptiveBatchSize sizing) {
+        this.name = name;
+        this.sizing = sizing;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("batch", name);
+        Gauge.builder(PREFIX + ".size", sizing, AdaptiveBatchSize::getBatchSize)
+                .tags(tags)
+                .description("当前批次大小")
+                .register(registry);
+        Gauge.builder(PREFIX + ".target.latency", sizing, s -> s.getTargetLatency(TimeUnit.MILLISECONDS))
+                .tags(tags)
+                .baseUnit("milliseconds")
+                .description("单批目标耗时")
+                .register(registry);
+        Gauge.builder(PREFIX + ".latency", sizing, s -> s.getAverageLatency(TimeUnit.MILLISECONDS))
+                .tags(tags)
+                .baseUnit("milliseconds")
+                .description("单批耗时的指数移动平均")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".batches", sizing, AdaptiveBatchSize::getBatchCount)
+                .tags(tags)
+                .description("已执行的批次数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".rows", sizing, AdaptiveBatchSize::getRowCount)
+                .tags(tags)
+                .description("已执行的条数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".adjustments", sizing, AdaptiveBatchSize::getIncreaseCount)
+                .tags(tags).tag("direction", "increase")
+                .description("批次大小增加次数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".adjustments", sizing, AdaptiveBatchSize::getDecreaseCount)
+                .tags(tags).tag("direction", "decrease")
+                .description("批次大小减小次数")
+                .register(registry);
+    }
+}
@@ -0,0 +1,69 @@
+package com.lianekai.core.cache;
+
+import com.lianekai.util.cache.Cache;
+import com.lianekai.util.cache.CacheRegistry;
+import com.lianekai.util.cache.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把{@link CacheRegistry}中的缓存统计发布为Micrometer指标
+ * 指标在抓取时才读取统计快照，之后登记的缓存也会自动绑定
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 17:00
+ */
+@Component
+public class CacheMetricsBinder implements MeterBinder {
+
+    private static final String PREFIX = "lek.cache";
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CacheRegistry.addListener((name, cache) -> bind(registry, name, cache));
+    }
+
+    private void bind(MeterRegistry registry, String name, Cache<?, ?> cache) {
+        Tags tags = Tags.of("cache", name);
+        Gauge.builder(PREFIX + ".size", cache, Cache::size)
+                .tags(tags)
+                .description("缓存条目数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".gets", cache, c -> c.stats().getHitCount())
+                .tags(tags).tag("result", "hit")
+                .description("缓存命中次数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".gets", cache, c -> c.stats().getMissCount())
+                .tags(tags).tag("result", "miss")
+                .description("缓存未命中次数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".second.level.hits", cache, c -> c.stats().getSecondLevelHitCount())
+                .tags(tags)
+                .description("一级未命中、二级缓存命中的次数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".loads", cache, c -> c.stats().getLoadSuccessCount())
+                .tags(tags).tag("result", "success")
+                .description("加载成功次数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".loads", cache, c -> c.stats().getLoadFailureCount())
+                .tags(tags).tag("result", "failure")
+                .description("加载失败次数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".load.duration", cache, c -> c.stats().getTotalLoadTime())
+                .tags(tags)
+                .baseUnit("nanoseconds")
+                .description("加载总耗时")
+                .register(registry);
+        for (RemovalCause cause : RemovalCause.values()) {
+            FunctionCounter.builder(PREFIX + ".evictions", cache, c -> c.stats().getEvictionCount(cause))
+                    .tags(tags).tag("cause", cause.name().toLowerCase())
+                    .description("按原因分类的移除次数")
+                    .register(registry);
+        }
+    }
+}
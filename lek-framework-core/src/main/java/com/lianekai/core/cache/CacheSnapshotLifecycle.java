@@ -0,0 +1,92 @@
+package com.lianekai.core.cache;
+
+import com.lianekai.util.cache.CacheSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 缓存快照生命周期
+ * 把需要预热的缓存声明为{@link CacheSnapshot}类型的bean，容器启动时在后台恢复，容器关闭时保存
+ * lek.cache.snapshot.save-interval-seconds大于0时按该间隔定时保存，进程异常退出时最多丢失一个间隔内的变化
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 21:50
+ */
+@Slf4j
+@Component
+public class CacheSnapshotLifecycle implements SmartLifecycle {
+
+    private final ObjectProvider<CacheSnapshot<?, ?>> snapshotProvider;
+
+    private final long saveIntervalSeconds;
+
+    private List<CacheSnapshot<?, ?>> snapshots;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    public CacheSnapshotLifecycle(ObjectProvider<CacheSnapshot<?, ?>> snapshotProvider,
+                                  @Value("${lek.cache.snapshot.save-interval-seconds:0}") long saveIntervalSeconds) {
+        this.snapshotProvider = snapshotProvider;
+        this.saveIntervalSeconds = saveIntervalSeconds;
+    }
+
+    @Override
+    public void start() {
+        snapshots = snapshotProvider.orderedStream().collect(Collectors.toList());
+        for (CacheSnapshot<?, ?> snapshot : snapshots) {
+            snapshot.restoreAsync(ForkJoinPool.commonPool()).whenComplete((count, error) -> {
+                if (error != null) {
+                    log.error("Cache Snapshot Restore Error, file: {}", snapshot.getFile(), error);
+                } else {
+                    log.info("Cache Snapshot restored {} entries from {}", count, snapshot.getFile());
+                }
+            });
+        }
+        if (saveIntervalSeconds > 0 && !snapshots.isEmpty()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "lek-cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (CacheSnapshot<?, ?> snapshot : snapshots) {
+                snapshot.scheduleSave(scheduler, saveIntervalSeconds, TimeUnit.SECONDS);
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        for (CacheSnapshot<?, ?> snapshot : snapshots) {
+            try {
+                int count = snapshot.save();
+                log.info("Cache Snapshot saved {} entries to {}", count, snapshot.getFile());
+            } catch (Exception e) {
+                log.error("Cache Snapshot Save Error, file: {}", snapshot.getFile(), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
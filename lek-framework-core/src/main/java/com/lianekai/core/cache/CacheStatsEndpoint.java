@@ -0,0 +1,62 @@
+package com.lianekai.core.cache;
+
+import com.lianekai.util.cache.Cache;
+import com.lianekai.util.cache.CacheRegistry;
+import com.lianekai.util.cache.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 框架缓存统计端点
+ * 访问 /actuator/lekcaches 查看所有登记的缓存，/actuator/lekcaches/{name} 查看单个缓存
+ * 需要在management.endpoints.web.exposure.include中开启lekcaches
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 16:50
+ */
+@Component
+@Endpoint(id = "lekcaches")
+public class CacheStatsEndpoint {
+
+    @ReadOperation
+    public Map<String, CacheDescriptor> caches() {
+        Map<String, CacheDescriptor> result = new LinkedHashMap<>();
+        CacheRegistry.getCaches().forEach((name, cache) -> result.put(name, new CacheDescriptor(cache)));
+        return result;
+    }
+
+    @ReadOperation
+    public CacheDescriptor cache(@Selector String name) {
+        Cache<?, ?> cache = CacheRegistry.get(name);
+        return cache == null ? null : new CacheDescriptor(cache);
+    }
+
+    /**
+     * 单个缓存的大小与统计信息
+     */
+    public static class CacheDescriptor {
+
+        private final long size;
+
+        private final CacheStats stats;
+
+        CacheDescriptor(Cache<?, ?> cache) {
+            this.size = cache.size();
+            this.stats = cache.stats();
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public CacheStats getStats() {
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.lianekai.util.batch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应批次大小，根据每批执行的耗时在最小值与最大值之间调整，使单批耗时接近目标值
+ * 采用AIMD(加性增、乘性减)：耗时不超过目标且该批是满的，批次大小增加固定步长；
+ * 耗时超过目标或执行失败，批次大小乘以衰减系数，下游变慢时迅速退避，恢复后再逐步增大
+ * <pre>
+ * AdaptiveBatchSize sizing = new AdaptiveBatchSize(50, 5000, 200, TimeUnit.MILLISECONDS);
+ * BatchExecutor.execute(list, sizing, userMapper::insertBatch);
+ * log.info("{}", sizing);   //当前批次大小、平均耗时等指标
+ * </pre>
+ * 同一个实例可以在多次执行之间复用，保留已经学习到的批次大小；线程安全
+ * 并行执行时多批同时在途，下游变慢会让这些批次一起超时；每次减小后代数{@link #epoch()}加一，
+ * 减小之前切出的批次再报告的结果不再调整批次大小，一次变慢只会减小一次
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 15:00
+ */
+public class AdaptiveBatchSize {
+
+    /**平均耗时的平滑系数*/
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long targetNanos;
+
+    private int additiveIncrease;
+
+    private double decreaseFactor = 0.5;
+
+    private volatile int size;
+
+    private volatile long epoch;
+
+    private long lastLatencyNanos;
+
+    private double averageLatencyNanos;
+
+    private long batchCount;
+
+    private long rowCount;
+
+    private long increaseCount;
+
+    private long decreaseCount;
+
+    /**
+     * @param minSize 最小批次大小
+     * @param maxSize 最大批次大小
+     * @param targetLatency 单批的目标耗时
+     * @param unit 时间单位
+     */
+    public AdaptiveBatchSize(int minSize, int maxSize, long targetLatency, TimeUnit unit) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("require 0 < minSize <= maxSize");
+        }
+        if (targetLatency <= 0) {
+            throw new IllegalArgumentException("targetLatency must be positive");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetNanos = unit.toNanos(targetLatency);
+        this.additiveIncrease = Math.max(1, (maxSize - minSize) / 20);
+        this.size = Math.min(maxSize, Math.max(minSize, BatchExecutor.DEFAULT_COUNT));
+    }
+
+    /**
+     * 初始批次大小，默认200并限制在最小值与最大值之间
+     */
+    public AdaptiveBatchSize initialSize(int initialSize) {
+        this.size = Math.min(maxSize, Math.max(minSize, initialSize));
+        return this;
+    }
+
+    /**
+     * 每次增加的条数，默认为(最大值 - 最小值) / 20
+     */
+    public synchronized AdaptiveBatchSize additiveIncrease(int additiveIncrease) {
+        if (additiveIncrease <= 0) {
+            throw new IllegalArgumentException("additiveIncrease must be positive");
+        }
+        this.additiveIncrease = additiveIncrease;
+        return this;
+    }
+
+    /**
+     * 超过目标耗时后批次大小乘以的系数，默认0.5
+     */
+    public synchronized AdaptiveBatchSize decreaseFactor(double decreaseFactor) {
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("decreaseFactor must be between 0 and 1");
+        }
+        this.decreaseFactor = decreaseFactor;
+        return this;
+    }
+
+    /**
+     * @return 下一批的大小
+     */
+    public int next() {
+        return size;
+    }
+
+    /**
+     * @return 当前代数，每次减小批次大小后加一；并行切分批次前记下，执行完传给{@link #record(int, long, boolean, long)}
+     */
+    public long epoch() {
+        return epoch;
+    }
+
+    /**
+     * 记录一批的执行结果并调整批次大小，按当前代处理，适用于逐批顺序执行
+     *
+     * @param batchSize 该批的条数
+     * @param elapsedNanos 该批的耗时(纳秒)
+     * @param success 是否执行成功
+     */
+    public void record(int batchSize, long elapsedNanos, boolean success) {
+        record(batchSize, elapsedNanos, success, epoch);
+    }
+
+    /**
+     * 记录一批的执行结果并调整批次大小，切分于上次减小之前的批次只计入统计
+     *
+     * @param batchSize 该批的条数
+     * @param elapsedNanos 该批的耗时(纳秒)
+     * @param success 是否执行成功
+     * @param batchEpoch 切分该批之前{@link #epoch()}的值
+     */
+    public synchronized void record(int batchSize, long elapsedNanos, boolean success, long batchEpoch) {
+        batchCount++;
+        rowCount += batchSize;
+        lastLatencyNanos = elapsedNanos;
+        averageLatencyNanos = batchCount == 1 ? elapsedNanos
+                : averageLatencyNanos + EWMA_ALPHA * (elapsedNanos - averageLatencyNanos);
+        if (batchEpoch < epoch) {
+            return;
+        }
+        if (!success || elapsedNanos > targetNanos) {
+            int decreased = Math.max(minSize, (int) (size * decreaseFactor));
+            if (decreased < size) {
+                size = decreased;
+                decreaseCount++;
+                epoch++;
+            }
+        } else if (batchSize >= size && size < maxSize) {
+            //最后一批不满时不能说明下游还有余量
+            size = Math.min(maxSize, size + additiveIncrease);
+            increaseCount++;
+        }
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTargetLatency(TimeUnit unit) {
+        return unit.convert(targetNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 当前批次大小
+     */
+    public int getBatchSize() {
+        return size;
+    }
+
+    public synchronized long getLastLatency(TimeUnit unit) {
+        return unit.convert(lastLatencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 单批耗时的指数移动平均
+     */
+    public synchronized long getAverageLatency(TimeUnit unit) {
+        return unit.convert((long) averageLatencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    public synchronized long getRowCount() {
+        return rowCount;
+    }
+
+    public synchronized long getIncreaseCount() {
+        return increaseCount;
+    }
+
+    public synchronized long getDecreaseCount() {
+        return decreaseCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("AdaptiveBatchSize{size=%d, min=%d, max=%d, target=%dms, avgLatency=%dms, "
+                        + "lastLatency=%dms, batches=%d, rows=%d, increases=%d, decreases=%d}",
+                size, minSize, maxSize, TimeUnit.NANOSECONDS.toMillis(targetNanos),
+                TimeUnit.NANOSECONDS.toMillis((long) averageLatencyNanos), TimeUnit.NANOSECONDS.toMillis(lastLatencyNanos),
+                batchCount, rowCount, increaseCount, decreaseCount);
+    }
+}
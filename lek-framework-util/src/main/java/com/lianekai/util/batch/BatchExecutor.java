@@ -1,10 +1,18 @@
 package com.lianekai.util.batch;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 批量执行器
+ * 默认在调用线程中依次执行每一批，需要并行执行时使用{@link #parallel()}
+ * 数据量很大时使用Iterator、Stream或Spliterator作为输入，边读取边分批，内存占用只与每批的数量有关
+ * 不确定每批多少条合适时传入{@link AdaptiveBatchSize}，按每批的耗时自动调整批次大小
+ * 长时间运行、需要在重启后继续的任务使用{@link #job(String, CheckpointStore)}
  *
  * @author lianekai
  * @version: 1.0
@@ -12,7 +20,7 @@ import java.util.function.Consumer;
  */
 public class BatchExecutor {
     /**每次提交的数量*/
-    private static final int DEFAULT_COUNT = 200;
+    static final int DEFAULT_COUNT = 200;
 
     /**
      *  分批执行（默认200条）
@@ -49,4 +57,191 @@ public class BatchExecutor {
             consumer.accept(subList);
         }
     }
+
+    /**
+     *  分批执行（默认200条），不需要把数据全部读入List
+     *
+     * @param iterator 要分批执行的数据
+     * @param consumer 执行方法，传入的List在各批之间复用，需要保留时自行复制
+     */
+    public static <T> void execute(Iterator<? extends T> iterator, Consumer<List<T>> consumer) {
+        execute(iterator, DEFAULT_COUNT, consumer);
+    }
+
+    /**
+     *  分批执行，不需要把数据全部读入List
+     *
+     * @param iterator 要分批执行的数据
+     * @param batch 每批执行的数量
+     * @param consumer 执行方法，传入的List在各批之间复用，需要保留时自行复制
+     */
+    public static <T> void execute(Iterator<? extends T> iterator, int batch, Consumer<List<T>> consumer) {
+        if (iterator == null) {
+            return;
+        }
+        BatchBuffer<T> buffer = new BatchBuffer<>(batch > 0 ? batch : DEFAULT_COUNT, consumer);
+        iterator.forEachRemaining(buffer);
+        buffer.flush();
+    }
+
+    /**
+     *  分批执行，流由调用方关闭
+     *
+     * @param stream 要分批执行的数据
+     * @param batch 每批执行的数量
+     * @param consumer 执行方法，传入的List在各批之间复用，需要保留时自行复制
+     */
+    public static <T> void execute(Stream<? extends T> stream, int batch, Consumer<List<T>> consumer) {
+        if (stream == null) {
+            return;
+        }
+        execute(stream.spliterator(), batch, consumer);
+    }
+
+    /**
+     *  分批执行
+     *
+     * @param spliterator 要分批执行的数据
+     * @param batch 每批执行的数量
+     * @param consumer 执行方法，传入的List在各批之间复用，需要保留时自行复制
+     */
+    public static <T> void execute(Spliterator<? extends T> spliterator, int batch, Consumer<List<T>> consumer) {
+        if (spliterator == null) {
+            return;
+        }
+        BatchBuffer<T> buffer = new BatchBuffer<>(batch > 0 ? batch : DEFAULT_COUNT, consumer);
+        spliterator.forEachRemaining(buffer);
+        buffer.flush();
+    }
+
+    /**
+     *  按耗时自动调整批次大小分批执行
+     *
+     * @param list 要分批执行的列表
+     * @param sizing 自适应批次大小
+     * @param consumer 执行方法，抛出异常时批次大小同样会减小，异常继续向上抛出
+     */
+    public static <T> void execute(List<T> list, AdaptiveBatchSize sizing, Consumer<List<T>> consumer) {
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        int size = list.size();
+        int from = 0;
+        while (from < size) {
+            int to = Math.min(size, from + sizing.next());
+            timed(list.subList(from, to), sizing, consumer);
+            from = to;
+        }
+    }
+
+    /**
+     *  按耗时自动调整批次大小分批执行，不需要把数据全部读入List
+     *
+     * @param iterator 要分批执行的数据
+     * @param sizing 自适应批次大小
+     * @param consumer 执行方法，传入的List在各批之间复用，需要保留时自行复制
+     */
+    public static <T> void execute(Iterator<? extends T> iterator, AdaptiveBatchSize sizing, Consumer<List<T>> consumer) {
+        if (iterator == null) {
+            return;
+        }
+        BatchBuffer<T> buffer = new BatchBuffer<>(sizing, consumer);
+        iterator.forEachRemaining(buffer);
+        buffer.flush();
+    }
+
+    /**
+     * 执行一批并把耗时记录到sizing
+     */
+    static <T> void timed(List<T> batch, AdaptiveBatchSize sizing, Consumer<List<T>> consumer) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            consumer.accept(batch);
+            success = true;
+        } finally {
+            sizing.record(batch.size(), System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 重试、失败拆分与死信处理，包装执行方法后可以传给任意分批执行方法
+     *
+     * @return 重试配置
+     */
+    public static BatchRetry retry() {
+        return new BatchRetry();
+    }
+
+    /**
+     * 可中断恢复的批量任务，每批执行成功后记录检查点，重启后从检查点继续
+     *
+     * @param name 任务名称，作为检查点的标识
+     * @param store 检查点存储，如{@link FileCheckpointStore}
+     * @return 批量任务
+     */
+    public static <T> BatchJob<T> job(String name, CheckpointStore store) {
+        return new BatchJob<>(name, store);
+    }
+
+    /**
+     * 并行批量执行，可以配置并行度、线程池与排队的批次上限，返回每一批的执行结果
+     *
+     * @return 并行批量执行器
+     */
+    public static ParallelBatchExecutor parallel() {
+        return new ParallelBatchExecutor();
+    }
+
+    /**
+     * 攒满一批后交给执行方法，执行完清空复用
+     */
+    private static class BatchBuffer<T> implements Consumer<T> {
+
+        private final int batch;
+
+        /**不为null时每批的大小由sizing决定*/
+        private final AdaptiveBatchSize sizing;
+
+        private final Consumer<List<T>> consumer;
+
+        private final List<T> buffer;
+
+        BatchBuffer(int batch, Consumer<List<T>> consumer) {
+            this.batch = batch;
+            this.sizing = null;
+            this.consumer = consumer;
+            this.buffer = new ArrayList<>(batch);
+        }
+
+        BatchBuffer(AdaptiveBatchSize sizing, Consumer<List<T>> consumer) {
+            this.batch = 0;
+            this.sizing = sizing;
+            this.consumer = consumer;
+            this.buffer = new ArrayList<>(sizing.next());
+        }
+
+        @Override
+        public void accept(T item) {
+            buffer.add(item);
+            if (buffer.size() >= (sizing == null ? batch : sizing.next())) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            try {
+                if (sizing == null) {
+                    consumer.accept(buffer);
+                } else {
+                    timed(buffer, sizing, consumer);
+                }
+            } finally {
+                buffer.clear();
+            }
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.lianekai.util.batch;
+
+import java.util.List;
+
+/**
+ * 批量任务的执行方法，见{@link BatchJob}
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 17:10
+ */
+@FunctionalInterface
+public interface BatchHandler<T> {
+
+    /**
+     * @param batch 一批数据，执行完后会被复用，需要保留时自行复制
+     * @param idempotencyKey 批次的幂等键，任务中断后重新执行同一批时不变，可以用于下游去重
+     */
+    void handle(List<T> batch, String idempotencyKey);
+}
@@ -0,0 +1,232 @@
+package com.lianekai.util.batch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * 可中断恢复的批量任务，每一批执行成功后把已提交的位置写入{@link CheckpointStore}，进程崩溃或重新部署后从该位置继续
+ * <pre>
+ * BatchJob&lt;User&gt; job = BatchExecutor.&lt;User&gt;job("migrate-user", new FileCheckpointStore(dir))
+ *         .batchSize(500).totalRows(userMapper.count())
+ *         .progressListener(progress -&gt; log.info("{}", progress));
+ * job.runByKey(lastId -&gt; userMapper.scanAfter(lastId), user -&gt; String.valueOf(user.getId()),
+ *         (batch, key) -&gt; newUserMapper.insertBatch(batch));
+ * </pre>
+ * 支持两种恢复方式：按已提交条数(offset)重新定位数据源，或按最后一条已提交数据的key重新定位(如 id &gt; ?)，
+ * 数据源需要保证每次执行的顺序一致
+ * 检查点在一批执行成功之后写入，在两者之间中断时该批会在恢复后再执行一次，即至少一次；
+ * 每批带有幂等键(任务名 + 该批开始的位置)，同一批重新执行时幂等键不变，下游可以据此去重
+ * 执行完成后检查点标记为已完成，再次执行直接返回，需要重新执行时先调用{@link #reset()}
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 17:20
+ */
+@Slf4j
+public class BatchJob<T> {
+
+    private final String name;
+
+    private final CheckpointStore store;
+
+    private int batchSize = BatchExecutor.DEFAULT_COUNT;
+
+    private long totalRows = -1;
+
+    private Consumer<JobProgress> progressListener;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean stopRequested;
+
+    private volatile JobProgress progress;
+
+    BatchJob(String name, CheckpointStore store) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.store = Objects.requireNonNull(store, "store");
+        this.progress = new JobProgress(name, JobProgress.State.NEW, 0, 0, -1, 0);
+    }
+
+    /**
+     * 每批的数量，默认200；恢复时依赖批次边界一致来保持幂等键不变，同一个任务不应在执行之间修改
+     */
+    public BatchJob<T> batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 预计总条数，用于计算完成百分比与剩余时间
+     */
+    public BatchJob<T> totalRows(long totalRows) {
+        this.totalRows = totalRows;
+        return this;
+    }
+
+    /**
+     * 每批提交后在执行线程中回调当前进度
+     */
+    public BatchJob<T> progressListener(Consumer<JobProgress> progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * 执行任务，数据源不能按位置定位时使用，恢复时跳过已提交的条数(仍会读取这些数据)
+     *
+     * @param source 数据源，每次遍历的顺序需要一致
+     * @param handler 执行方法
+     * @return 执行结束时的进度
+     */
+    public JobProgress run(Iterable<? extends T> source, BatchHandler<T> handler) {
+        return run(offset -> {
+            Iterator<? extends T> iterator = source.iterator();
+            for (long i = 0; i < offset && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            return iterator;
+        }, handler);
+    }
+
+    /**
+     * 执行任务，按已提交的条数恢复
+     *
+     * @param source 根据已提交的条数返回剩余的数据，如 LIMIT ?, MAX
+     * @param handler 执行方法
+     * @return 执行结束时的进度
+     */
+    public JobProgress run(LongFunction<? extends Iterator<? extends T>> source, BatchHandler<T> handler) {
+        Objects.requireNonNull(source, "source");
+        return execute(checkpoint -> source.apply(checkpoint.getOffset()), null, handler);
+    }
+
+    /**
+     * 执行任务，按最后一条已提交数据的key恢复，数据源需要按key有序
+     *
+     * @param source 根据最后一条已提交数据的key返回剩余的数据，首次执行时传入null，如 WHERE id &gt; ? ORDER BY id
+     * @param keyOf 数据的key
+     * @param handler 执行方法
+     * @return 执行结束时的进度
+     */
+    public JobProgress runByKey(Function<String, ? extends Iterator<? extends T>> source,
+                                Function<? super T, String> keyOf, BatchHandler<T> handler) {
+        Objects.requireNonNull(source, "source");
+        Objects.requireNonNull(keyOf, "keyOf");
+        return execute(checkpoint -> source.apply(checkpoint.getLastKey()), keyOf, handler);
+    }
+
+    /**
+     * 请求停止，当前批次执行完并写入检查点后返回
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * 删除检查点，下次从头执行
+     */
+    public void reset() {
+        if (running.get()) {
+            throw new IllegalStateException("Job " + name + " is running");
+        }
+        store.clear(name);
+        progress = new JobProgress(name, JobProgress.State.NEW, 0, 0, totalRows, 0);
+    }
+
+    /**
+     * 当前进度，可以在其他线程中调用
+     */
+    public JobProgress getProgress() {
+        return progress;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private JobProgress execute(Function<Checkpoint, ? extends Iterator<? extends T>> source,
+                                Function<? super T, String> keyOf, BatchHandler<T> handler) {
+        Objects.requireNonNull(handler, "handler");
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Job " + name + " is already running");
+        }
+        stopRequested = false;
+        long start = System.nanoTime();
+        Checkpoint checkpoint = store.load(name);
+        if (checkpoint == null) {
+            checkpoint = new Checkpoint(0, null, false, System.currentTimeMillis());
+        }
+        long resumed = checkpoint.getOffset();
+        try {
+            if (checkpoint.isCompleted()) {
+                log.info("Batch Job Already Completed, job: {}, rows: {}", name, resumed);
+                return update(JobProgress.State.COMPLETED, resumed, resumed, start);
+            }
+            if (resumed > 0 || checkpoint.getLastKey() != null) {
+                log.info("Batch Job Resumed, job: {}, {}", name, checkpoint);
+            }
+            update(JobProgress.State.RUNNING, resumed, resumed, start);
+            Iterator<? extends T> iterator = source.apply(checkpoint);
+            List<T> batch = new ArrayList<>(batchSize);
+            long offset = resumed;
+            String lastKey = checkpoint.getLastKey();
+            while (iterator.hasNext()) {
+                if (stopRequested || Thread.currentThread().isInterrupted()) {
+                    log.info("Batch Job Stopped, job: {}, committed: {}", name, offset);
+                    return update(JobProgress.State.STOPPED, resumed, offset, start);
+                }
+                while (batch.size() < batchSize && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+                String idempotencyKey = name + ":" + (keyOf == null ? String.valueOf(offset) : String.valueOf(lastKey));
+                handler.handle(batch, idempotencyKey);
+                offset += batch.size();
+                if (keyOf != null) {
+                    lastKey = keyOf.apply(batch.get(batch.size() - 1));
+                }
+                batch.clear();
+                store.save(name, new Checkpoint(offset, lastKey, false, System.currentTimeMillis()));
+                notifyListener(update(JobProgress.State.RUNNING, resumed, offset, start));
+            }
+            store.save(name, new Checkpoint(offset, lastKey, true, System.currentTimeMillis()));
+            JobProgress completed = update(JobProgress.State.COMPLETED, resumed, offset, start);
+            log.info("Batch Job Completed, {}", completed);
+            notifyListener(completed);
+            return completed;
+        } catch (RuntimeException | Error e) {
+            JobProgress current = progress;
+            update(JobProgress.State.FAILED, resumed, current.getCommittedRows(), start);
+            log.error("Batch Job Failed, job: {}, committed: {}", name, current.getCommittedRows(), e);
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private JobProgress update(JobProgress.State state, long resumed, long committed, long start) {
+        JobProgress current = new JobProgress(name, state, resumed, committed, totalRows, System.nanoTime() - start);
+        progress = current;
+        return current;
+    }
+
+    private void notifyListener(JobProgress current) {
+        if (progressListener != null) {
+            try {
+                progressListener.accept(current);
+            } catch (RuntimeException e) {
+                log.error("Batch Job Progress Listener Error, job: {}", name, e);
+            }
+        }
+    }
+}
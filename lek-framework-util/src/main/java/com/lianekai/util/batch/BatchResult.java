@@ -0,0 +1,154 @@
+package com.lianekai.util.batch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行批量执行的结果，记录每一批的成功或失败、耗时以及第一个异常
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 13:00
+ */
+public class BatchResult {
+
+    private final List<Outcome> outcomes;
+
+    private final long elapsedNanos;
+
+    private final boolean cancelled;
+
+    BatchResult(List<Outcome> outcomes, long elapsedNanos, boolean cancelled) {
+        this.outcomes = Collections.unmodifiableList(outcomes);
+        this.elapsedNanos = elapsedNanos;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * 每一批的执行结果，按批次序号排序
+     */
+    public List<Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @return 所有批次都执行且都成功
+     */
+    public boolean isSuccess() {
+        return !cancelled && getFailedBatches() == 0;
+    }
+
+    /**
+     * @return 是否因为失败快速结束或线程中断而没有执行全部批次
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getBatchCount() {
+        return outcomes.size();
+    }
+
+    public int getFailedBatches() {
+        int failed = 0;
+        for (Outcome outcome : outcomes) {
+            if (!outcome.isSuccess()) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return 执行成功的数据条数
+     */
+    public long getSucceededCount() {
+        long count = 0;
+        for (Outcome outcome : outcomes) {
+            if (outcome.isSuccess()) {
+                count += outcome.getSize();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return 批次序号最小的失败批次的异常，全部成功时返回null
+     */
+    public Throwable getFirstException() {
+        for (Outcome outcome : outcomes) {
+            if (outcome.getException() != null) {
+                return outcome.getException();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 整体耗时
+     */
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchResult{batches=%d, failed=%d, succeeded=%d, elapsed=%dms, cancelled=%s}",
+                getBatchCount(), getFailedBatches(), getSucceededCount(), getElapsed(TimeUnit.MILLISECONDS), cancelled);
+    }
+
+    /**
+     * 单批的执行结果
+     */
+    public static class Outcome {
+
+        private final int index;
+
+        private final long offset;
+
+        private final int size;
+
+        private final long elapsedNanos;
+
+        private final Throwable exception;
+
+        Outcome(int index, long offset, int size, long elapsedNanos, Throwable exception) {
+            this.index = index;
+            this.offset = offset;
+            this.size = size;
+            this.elapsedNanos = elapsedNanos;
+            this.exception = exception;
+        }
+
+        /**
+         * 批次序号，从0开始
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 该批第一条数据在整个输入中的位置
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public boolean isSuccess() {
+            return exception == null;
+        }
+
+        public Throwable getException() {
+            return exception;
+        }
+
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
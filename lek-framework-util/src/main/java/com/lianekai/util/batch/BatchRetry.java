@@ -0,0 +1,114 @@
+package com.lianekai.util.batch;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 批量执行的重试与失败拆分配置，通过{@link BatchExecutor#retry()}创建
+ * <pre>
+ * Consumer&lt;List&lt;User&gt;&gt; consumer = BatchExecutor.retry().maxAttempts(3).backoff(100, 5000, TimeUnit.MILLISECONDS)
+ *         .wrap(userMapper::insertBatch, (user, e) -&gt; log.error("insert failed: {}", user, e));
+ * BatchExecutor.execute(list, 500, consumer);
+ * </pre>
+ * 一批失败后按指数退避加随机抖动重试，重试用尽仍然失败时把这一批对半拆分分别执行，
+ * 逐层拆分直到找出执行失败的单条数据交给{@link DeadLetterSink}，其余数据正常写入，不需要整体重跑
+ * 拆分后的子批次只执行一次，不再退避重试：此时的失败通常来自数据本身，重试没有意义
+ * 失败的批次会被再次执行，执行方法需要是事务性的(失败时整批不生效)或幂等的
+ * 返回的{@link ResilientConsumer}不会抛出执行异常，可以与串行、并行、流式和自适应模式组合使用
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 16:00
+ */
+public class BatchRetry {
+
+    int maxAttempts = 3;
+
+    long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+    long maxBackoffNanos = TimeUnit.SECONDS.toNanos(10);
+
+    double multiplier = 2;
+
+    double jitter = 0.5;
+
+    boolean split = true;
+
+    Predicate<Throwable> retryOn = e -> true;
+
+    BatchRetry() {
+    }
+
+    /**
+     * 整批的最多执行次数(包括第一次)，默认3次，1表示不重试
+     */
+    public BatchRetry maxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * 退避时间，第n次重试前等待initial * multiplier^(n-1)，不超过max，默认100毫秒到10秒
+     */
+    public BatchRetry backoff(long initial, long max, TimeUnit unit) {
+        if (initial < 0 || max < initial) {
+            throw new IllegalArgumentException("require 0 <= initial <= max");
+        }
+        this.initialBackoffNanos = unit.toNanos(initial);
+        this.maxBackoffNanos = unit.toNanos(max);
+        return this;
+    }
+
+    /**
+     * 退避时间的增长倍数，默认2
+     */
+    public BatchRetry multiplier(double multiplier) {
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("multiplier must not be less than 1");
+        }
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * 随机抖动比例，实际等待时间在[backoff * (1 - jitter), backoff]之间，避免多个线程同时重试，默认0.5
+     */
+    public BatchRetry jitter(double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * 哪些异常需要退避重试，其他异常直接拆分，默认全部重试
+     */
+    public BatchRetry retryOn(Predicate<Throwable> retryOn) {
+        this.retryOn = Objects.requireNonNull(retryOn, "retryOn");
+        return this;
+    }
+
+    /**
+     * 重试用尽后不拆分，整批交给死信处理
+     */
+    public BatchRetry noSplit() {
+        this.split = false;
+        return this;
+    }
+
+    /**
+     * @param consumer 执行方法
+     * @param deadLetter 死信处理
+     * @return 带重试与拆分的执行方法
+     */
+    public <T> ResilientConsumer<T> wrap(Consumer<List<T>> consumer, DeadLetterSink<? super T> deadLetter) {
+        return new ResilientConsumer<>(this, consumer, deadLetter);
+    }
+}
@@ -0,0 +1,383 @@
+package com.lianekai.util.batch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 攒批队列(组提交)，多个线程逐条提交，单个消费线程按数量或等待时间攒成一批后一起执行
+ * <pre>
+ * BatchingQueue&lt;Log&gt; queue = BatchingQueue.newBuilder().maxBatchSize(500).maxLinger(5, TimeUnit.MILLISECONDS)
+ *         .build(logMapper::insertBatch);
+ * queue.offer(log).join();   //等待所在批次写入完成
+ * </pre>
+ * 攒满maxBatchSize条，或者最早的一条已经等待了maxLinger，就把当前批次交给执行方法；
+ * offer返回的CompletableFuture在所在批次执行完成后完成，执行异常时以该异常结束，回调在消费线程中执行，不应阻塞
+ * 执行方法通常只在消费线程中调用；使用{@link FullPolicy#CALLER_RUNS}时提交线程也会调用，可能与消费线程并发，执行方法需要线程安全
+ * 内部是有界的多生产者单消费者环形队列，生产者通过CAS占位，不加锁；队列满时按{@link FullPolicy}处理
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 14:00
+ */
+@Slf4j
+public class BatchingQueue<T> implements Closeable {
+
+    /**队列满时的处理方式*/
+    public enum FullPolicy {
+        /**等待队列有空位*/
+        BLOCK,
+        /**丢弃，返回的Future以RejectedExecutionException结束*/
+        DROP,
+        /**在提交线程中单独执行这一条，不等待消费线程，执行方法会被并发调用*/
+        CALLER_RUNS
+    }
+
+    /**消费线程空闲时的最长等待时间，防止错过唤醒*/
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**BLOCK策略下队列满时的重试间隔*/
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+    private final Consumer<List<T>> consumer;
+
+    private final int maxBatchSize;
+
+    private final long maxLingerNanos;
+
+    private final FullPolicy fullPolicy;
+
+    private final int mask;
+
+    /**环形队列的槽位，与sequences配合使用*/
+    private final Object[] buffer;
+
+    /**每个槽位的序号：等于写入位置表示可写，等于写入位置+1表示可读*/
+    private final AtomicLongArray sequences;
+
+    /**下一个写入位置，生产者通过CAS占位*/
+    private final AtomicLong tail = new AtomicLong();
+
+    /**下一个读取位置，只有消费线程写入*/
+    private volatile long head;
+
+    /**消费线程已经取出、还未执行的数量，只有消费线程写入*/
+    private volatile int drained;
+
+    /**消费线程是否正在等待，只有消费线程写入*/
+    private volatile boolean parked;
+
+    private volatile boolean closed;
+
+    /**正在提交中的线程数，关闭时等这些提交进入队列后消费线程才退出*/
+    private final AtomicInteger activeOffers = new AtomicInteger();
+
+    private final Thread drainer;
+
+    private BatchingQueue(Builder builder, Consumer<List<T>> consumer) {
+        this.consumer = Objects.requireNonNull(consumer, "consumer");
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxLingerNanos = builder.maxLingerNanos;
+        this.fullPolicy = builder.fullPolicy;
+        int capacity = Integer.highestOneBit(Math.max(2, builder.capacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.buffer = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        String name = builder.name != null ? builder.name : "lek-batching-queue-" + THREAD_INDEX.incrementAndGet();
+        this.drainer = new Thread(this::drain, name);
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 提交一条数据
+     *
+     * @param item 数据
+     * @return 所在批次执行完成后完成
+     */
+    public CompletableFuture<Void> offer(T item) {
+        Objects.requireNonNull(item, "item");
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        activeOffers.incrementAndGet();
+        try {
+            if (closed) {
+                future.completeExceptionally(new IllegalStateException("BatchingQueue is closed"));
+            } else {
+                enqueue(new Pending<>(item, future, System.nanoTime()));
+            }
+        } finally {
+            activeOffers.decrementAndGet();
+        }
+        return future;
+    }
+
+    private void enqueue(Pending<T> pending) {
+        if (tryEnqueue(pending)) {
+            return;
+        }
+        T item = pending.item;
+        CompletableFuture<Void> future = pending.future;
+        switch (fullPolicy) {
+            case BLOCK:
+                while (!tryEnqueue(pending)) {
+                    if (closed) {
+                        future.completeExceptionally(new IllegalStateException("BatchingQueue is closed"));
+                        break;
+                    }
+                    if (Thread.interrupted()) {
+                        Thread.currentThread().interrupt();
+                        future.completeExceptionally(new InterruptedException());
+                        break;
+                    }
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                }
+                break;
+            case CALLER_RUNS:
+                try {
+                    consumer.accept(Collections.singletonList(item));
+                    future.complete(null);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+                break;
+            default:
+                future.completeExceptionally(new RejectedExecutionException("BatchingQueue is full"));
+                break;
+        }
+    }
+
+    /**
+     * @return 队列中等待消费的数量，并发下为近似值
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * 不再接收新数据，等待已提交的数据全部执行完成
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainer);
+        boolean interrupted = false;
+        while (drainer.isAlive()) {
+            try {
+                drainer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean tryEnqueue(Pending<T> pending) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = pending;
+                    sequences.set(index, position + 1);
+                    //消费线程空闲时有了数据，或者加上已取出的数据攒够了一批，唤醒消费线程
+                    int taken = drained;
+                    if (parked && (taken == 0 || position + 1 - head + taken >= maxBatchSize)) {
+                        LockSupport.unpark(drainer);
+                    }
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Pending<T> poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        Pending<T> pending = (Pending<T>) buffer[index];
+        buffer[index] = null;
+        sequences.set(index, position + buffer.length);
+        head = position + 1;
+        return pending;
+    }
+
+    private void drain() {
+        List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+        List<T> items = new ArrayList<>(maxBatchSize);
+        while (true) {
+            Pending<T> pending;
+            while (batch.size() < maxBatchSize && (pending = poll()) != null) {
+                batch.add(pending);
+            }
+            drained = batch.size();
+            if (batch.isEmpty()) {
+                if (closed && activeOffers.get() == 0 && tail.get() == head) {
+                    return;
+                }
+                park(IDLE_PARK_NANOS);
+                continue;
+            }
+            long waited = System.nanoTime() - batch.get(0).offerTime;
+            if (batch.size() >= maxBatchSize || waited >= maxLingerNanos || closed) {
+                flush(batch, items);
+            } else {
+                park(maxLingerNanos - waited);
+            }
+        }
+    }
+
+    /**
+     * 先标记等待再检查一次队列，与生产者先写入再检查标记配合，不会错过唤醒
+     */
+    private void park(long nanos) {
+        parked = true;
+        int pending = drained;
+        if (tail.get() - head + pending < (pending == 0 ? 1 : maxBatchSize)) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        parked = false;
+    }
+
+    private void flush(List<Pending<T>> batch, List<T> items) {
+        drained = 0;
+        for (Pending<T> pending : batch) {
+            items.add(pending.item);
+        }
+        Throwable error = null;
+        try {
+            consumer.accept(items);
+        } catch (Throwable e) {
+            error = e;
+            log.error("BatchingQueue Consumer Error", e);
+        }
+        for (Pending<T> pending : batch) {
+            if (error == null) {
+                pending.future.complete(null);
+            } else {
+                pending.future.completeExceptionally(error);
+            }
+        }
+        batch.clear();
+        items.clear();
+    }
+
+    private static class Pending<T> {
+
+        private final T item;
+
+        private final CompletableFuture<Void> future;
+
+        private final long offerTime;
+
+        Pending(T item, CompletableFuture<Void> future, long offerTime) {
+            this.item = item;
+            this.future = future;
+            this.offerTime = offerTime;
+        }
+    }
+
+    /**
+     * 攒批队列配置
+     */
+    public static class Builder {
+
+        private int capacity = 8192;
+
+        private int maxBatchSize = 200;
+
+        private long maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(10);
+
+        private FullPolicy fullPolicy = FullPolicy.BLOCK;
+
+        private String name;
+
+        private Builder() {
+        }
+
+        /**
+         * 队列容量，向上取整为2的幂，默认8192
+         */
+        public Builder capacity(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be positive");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * 每批最多的数量，默认200
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize must be positive");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * 一条数据最多等待多久就执行，默认10毫秒
+         */
+        public Builder maxLinger(long duration, TimeUnit unit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("duration must not be negative");
+            }
+            this.maxLingerNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * 队列满时的处理方式，默认阻塞等待
+         */
+        public Builder fullPolicy(FullPolicy fullPolicy) {
+            this.fullPolicy = Objects.requireNonNull(fullPolicy, "fullPolicy");
+            return this;
+        }
+
+        /**
+         * 消费线程名称
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * @param consumer 批量执行方法，在消费线程中调用，传入的List执行完后会被复用；
+         *                 {@link FullPolicy#CALLER_RUNS}时也在提交线程中调用，需要线程安全
+         */
+        public <T> BatchingQueue<T> build(Consumer<List<T>> consumer) {
+            return new BatchingQueue<>(this, consumer);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.lianekai.util.batch;
+
+/**
+ * 批量任务的检查点，记录已经提交的数据条数以及最后一条数据的key
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 17:00
+ */
+public class Checkpoint {
+
+    private final long offset;
+
+    private final String lastKey;
+
+    private final boolean completed;
+
+    private final long updatedAt;
+
+    /**
+     * @param offset 已经提交的数据条数
+     * @param lastKey 最后一条已提交数据的key，按offset恢复的任务为null
+     * @param completed 任务是否已经全部完成
+     * @param updatedAt 更新时间戳(毫秒)
+     */
+    public Checkpoint(long offset, String lastKey, boolean completed, long updatedAt) {
+        this.offset = offset;
+        this.lastKey = lastKey;
+        this.completed = completed;
+        this.updatedAt = updatedAt;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Checkpoint{offset=" + offset + ", lastKey=" + lastKey + ", completed=" + completed + "}";
+    }
+}
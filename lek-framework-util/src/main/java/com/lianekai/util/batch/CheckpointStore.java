@@ -0,0 +1,24 @@
+package com.lianekai.util.batch;
+
+/**
+ * 检查点存储，默认实现为本地文件{@link FileCheckpointStore}，也可以存到数据库或Redis，实现需要线程安全
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 17:00
+ */
+public interface CheckpointStore {
+
+    /**
+     * @param jobName 任务名称
+     * @return 检查点，没有时返回null
+     */
+    Checkpoint load(String jobName);
+
+    /**
+     * 保存检查点，返回时需要已经持久化
+     */
+    void save(String jobName, Checkpoint checkpoint);
+
+    void clear(String jobName);
+}
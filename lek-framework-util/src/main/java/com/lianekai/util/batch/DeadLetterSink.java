@@ -0,0 +1,18 @@
+package com.lianekai.util.batch;
+
+/**
+ * 死信处理，接收重试和拆分后仍然执行失败的单条数据，例如写入错误表或日志
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 16:00
+ */
+@FunctionalInterface
+public interface DeadLetterSink<T> {
+
+    /**
+     * @param item 执行失败的数据
+     * @param cause 最后一次执行的异常
+     */
+    void accept(T item, Throwable cause);
+}
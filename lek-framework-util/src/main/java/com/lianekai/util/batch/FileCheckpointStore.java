@@ -0,0 +1,96 @@
+package com.lianekai.util.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * 本地文件检查点存储，每个任务一个properties文件
+ * 先写临时文件并刷盘，再原子重命名覆盖，进程在保存过程中崩溃时保留上一个检查点
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 17:10
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+    private final Path directory;
+
+    /**
+     * @param directory 检查点文件所在目录，不存在时自动创建
+     */
+    public FileCheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Checkpoint load(String jobName) {
+        Path file = fileOf(jobName);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Checkpoint(Long.parseLong(properties.getProperty("offset", "0")),
+                properties.getProperty("lastKey"),
+                Boolean.parseBoolean(properties.getProperty("completed")),
+                Long.parseLong(properties.getProperty("updatedAt", "0")));
+    }
+
+    @Override
+    public synchronized void save(String jobName, Checkpoint checkpoint) {
+        Properties properties = new Properties();
+        properties.setProperty("offset", String.valueOf(checkpoint.getOffset()));
+        if (checkpoint.getLastKey() != null) {
+            properties.setProperty("lastKey", checkpoint.getLastKey());
+        }
+        properties.setProperty("completed", String.valueOf(checkpoint.isCompleted()));
+        properties.setProperty("updatedAt", String.valueOf(checkpoint.getUpdatedAt()));
+        Path file = fileOf(jobName);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, jobName);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void clear(String jobName) {
+        try {
+            Files.deleteIfExists(fileOf(jobName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path fileOf(String jobName) {
+        if (!jobName.matches("[\\w.\\-]+")) {
+            throw new IllegalArgumentException("Job name may only contain letters, digits, '_', '.' and '-': " + jobName);
+        }
+        return directory.resolve(jobName + ".checkpoint");
+    }
+}
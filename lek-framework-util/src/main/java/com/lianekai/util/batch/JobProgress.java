@@ -0,0 +1,125 @@
+package com.lianekai.util.batch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量任务的进度快照，见{@link BatchJob#getProgress()}
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 17:20
+ */
+public class JobProgress {
+
+    /**任务状态*/
+    public enum State {
+        /**还没有开始*/
+        NEW,
+        RUNNING,
+        /**调用了stop或线程被中断，下次从检查点继续*/
+        STOPPED,
+        /**执行方法抛出异常，下次从检查点继续*/
+        FAILED,
+        COMPLETED
+    }
+
+    private final String jobName;
+
+    private final State state;
+
+    private final long resumedOffset;
+
+    private final long committedRows;
+
+    private final long totalRows;
+
+    private final long elapsedNanos;
+
+    JobProgress(String jobName, State state, long resumedOffset, long committedRows, long totalRows, long elapsedNanos) {
+        this.jobName = jobName;
+        this.state = state;
+        this.resumedOffset = resumedOffset;
+        this.committedRows = committedRows;
+        this.totalRows = totalRows;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 本次执行开始时检查点中已经提交的条数
+     */
+    public long getResumedOffset() {
+        return resumedOffset;
+    }
+
+    /**
+     * 累计已提交的条数，包括之前执行中提交的
+     */
+    public long getCommittedRows() {
+        return committedRows;
+    }
+
+    /**
+     * 本次执行提交的条数
+     */
+    public long getRowsThisRun() {
+        return committedRows - resumedOffset;
+    }
+
+    /**
+     * 预计总条数，未设置时为-1
+     */
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * 本次执行的耗时
+     */
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 本次执行的平均速度(条/秒)
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos <= 0 ? 0 : getRowsThisRun() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return 按当前速度预计的剩余时间，未设置总条数或还没有速度时为-1
+     */
+    public long getEta(TimeUnit unit) {
+        double rate = getRowsPerSecond();
+        if (totalRows < 0 || rate <= 0) {
+            return -1;
+        }
+        long remaining = Math.max(0, totalRows - committedRows);
+        return unit.convert((long) (remaining / rate * 1e9), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return 完成百分比，未设置总条数时为-1
+     */
+    public double getPercent() {
+        if (totalRows < 0) {
+            return -1;
+        }
+        return totalRows == 0 ? 100 : Math.min(100, committedRows * 100.0 / totalRows);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobProgress{job=%s, state=%s, committed=%d, total=%d, percent=%.1f, rate=%.1f/s, eta=%ds, "
+                        + "elapsed=%dms}", jobName, state, committedRows, totalRows, getPercent(), getRowsPerSecond(),
+                getEta(TimeUnit.SECONDS), getElapsed(TimeUnit.MILLISECONDS));
+    }
+}
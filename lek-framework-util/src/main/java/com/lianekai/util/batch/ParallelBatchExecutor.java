@@ -0,0 +1,488 @@
+package com.lianekai.util.batch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+/**
+ * 并行批量执行器，通过{@link BatchExecutor#parallel()}创建
+ * <pre>
+ * BatchResult result = BatchExecutor.parallel().batchSize(500).parallelism(8).execute(list, userMapper::insertBatch);
+ * </pre>
+ * 启动parallelism个工作任务，调用线程把切好的批次放入容量为maxInFlight的队列，工作任务从队列中取出执行；
+ * 队列满时调用线程阻塞，未执行的批次不会无限堆积
+ * 某一批失败不影响其他批次，全部结束后返回每一批的结果；开启failFast时第一个失败之后不再执行新的批次
+ * 输入为Iterator、Stream或Spliterator时边读取边分批，批次使用的List循环复用，最多同时存在maxInFlight + parallelism + 1个
+ * 设置{@link #adaptive(AdaptiveBatchSize)}后，切分时按当前的自适应批次大小，每批执行完记录耗时
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 13:10
+ */
+@Slf4j
+public class ParallelBatchExecutor {
+
+    /**队列已满或工作任务全部退出时，调用线程重新检查的间隔*/
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private static final Object POISON = new Object();
+
+    private static volatile Executor defaultExecutor;
+
+    private static volatile Executor virtualThreadExecutor;
+
+    private int batchSize = BatchExecutor.DEFAULT_COUNT;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private int maxInFlight;
+
+    private Executor executor;
+
+    private boolean failFast;
+
+    private AdaptiveBatchSize sizing;
+
+    ParallelBatchExecutor() {
+    }
+
+    /**
+     * 每批执行的数量，默认200
+     */
+    public ParallelBatchExecutor batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 同时执行的批次数，默认为CPU核数，IO密集的场景可以设置得更大
+     */
+    public ParallelBatchExecutor parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 已切分但还未开始执行的批次上限，默认为parallelism的2倍
+     */
+    public ParallelBatchExecutor maxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * 执行工作任务的线程池，线程数少于parallelism时实际并行度受线程池限制
+     * 线程池必须把任务交给其他线程执行：调用方线程负责读取数据并投递批次，工作任务在调用方线程上执行会一直等待批次；
+     * 所以{@code Runnable::run}这类直接执行的Executor会导致执行失败，CallerRunsPolicy退回调用方执行的工作任务按被拒绝处理；
+     * 线程池已满、工作任务一直排队不执行时同样会卡住，应使用足够的线程数或者无界的线程池
+     * 默认使用共享的守护线程池
+     */
+    public ParallelBatchExecutor executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 使用虚拟线程执行，运行在不支持虚拟线程的JDK上时使用默认线程池
+     */
+    public ParallelBatchExecutor virtualThreads() {
+        this.executor = virtualThreadExecutor();
+        return this;
+    }
+
+    /**
+     * 按每批的耗时自动调整批次大小，设置后忽略batchSize
+     */
+    public ParallelBatchExecutor adaptive(AdaptiveBatchSize sizing) {
+        this.sizing = sizing;
+        return this;
+    }
+
+    /**
+     * 第一个批次失败后不再执行新的批次
+     */
+    public ParallelBatchExecutor failFast() {
+        this.failFast = true;
+        return this;
+    }
+
+    /**
+     * 分批并行执行
+     *
+     * @param list 要分批执行的列表，执行期间不能修改
+     * @param consumer 执行方法，会在多个线程中同时调用
+     * @return 执行结果
+     */
+    public <T> BatchResult execute(List<T> list, Consumer<List<T>> consumer) {
+        if (list == null || list.isEmpty()) {
+            return new BatchResult(Collections.emptyList(), 0, false);
+        }
+        return run(new SubListIterator<>(list, this::nextBatchSize), consumer, null);
+    }
+
+    /**
+     * 边读取边分批并行执行，不需要把数据全部读入List
+     *
+     * @param iterator 要分批执行的数据，只在调用线程中读取
+     * @param consumer 执行方法，会在多个线程中同时调用，传入的List执行完后会被复用，需要保留时自行复制
+     * @return 执行结果
+     */
+    public <T> BatchResult execute(Iterator<? extends T> iterator, Consumer<List<T>> consumer) {
+        if (iterator == null) {
+            return new BatchResult(Collections.emptyList(), 0, false);
+        }
+        int buffers = (maxInFlight > 0 ? maxInFlight : parallelism * 2) + parallelism + 1;
+        BlockingQueue<List<T>> pool = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            pool.add(new ArrayList<>(nextBatchSize()));
+        }
+        return run(new BufferIterator<>(iterator, this::nextBatchSize, pool), consumer, buffer -> {
+            buffer.clear();
+            pool.offer(buffer);
+        });
+    }
+
+    /**
+     * 边读取边分批并行执行，流由调用方关闭
+     *
+     * @see #execute(Iterator, Consumer)
+     */
+    public <T> BatchResult execute(Stream<? extends T> stream, Consumer<List<T>> consumer) {
+        return execute(stream == null ? null : stream.iterator(), consumer);
+    }
+
+    /**
+     * 边读取边分批并行执行
+     *
+     * @see #execute(Iterator, Consumer)
+     */
+    public <T> BatchResult execute(Spliterator<? extends T> spliterator, Consumer<List<T>> consumer) {
+        return execute(spliterator == null ? null : Spliterators.iterator(spliterator), consumer);
+    }
+
+    /**
+     * @param release 批次执行完后的回调，用于回收复用的List，可以为null
+     */
+    private <T> BatchResult run(Iterator<List<T>> batches, Consumer<List<T>> consumer, Consumer<List<T>> release) {
+        long start = System.nanoTime();
+        int capacity = maxInFlight > 0 ? maxInFlight : parallelism * 2;
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(capacity);
+        List<BatchResult.Outcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicBoolean skipped = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(parallelism);
+        AtomicInteger workers = new AtomicInteger();
+        Executor target = executor != null ? executor : defaultExecutor();
+        Thread caller = Thread.currentThread();
+        AtomicBoolean callerRuns = new AtomicBoolean();
+        for (int i = 0; i < parallelism; i++) {
+            try {
+                target.execute(() -> {
+                    //在调用方线程上执行时没有线程投递批次，放弃该工作任务
+                    if (Thread.currentThread() == caller) {
+                        callerRuns.set(true);
+                        return;
+                    }
+                    work(queue, consumer, release, outcomes, failed, skipped, finished);
+                });
+                if (!callerRuns.get()) {
+                    workers.incrementAndGet();
+                    continue;
+                }
+                if (workers.get() == 0) {
+                    throw new IllegalStateException("Batch executor ran the worker on the calling thread, "
+                            + "it must hand workers to other threads");
+                }
+                log.warn("Batch worker ran on the calling thread, running with {} workers", workers.get());
+            } catch (RejectedExecutionException e) {
+                if (workers.get() == 0) {
+                    throw e;
+                }
+                log.warn("Batch worker rejected, running with {} workers", workers.get());
+            }
+            for (int j = i; j < parallelism; j++) {
+                finished.countDown();
+            }
+            break;
+        }
+
+        boolean cancelled = false;
+        int index = 0;
+        long offset = 0;
+        while (batches.hasNext()) {
+            if (failFast && failed.get()) {
+                cancelled = true;
+                break;
+            }
+            //先记下代数再切分，切分时恰好减小的批次也按旧的代处理
+            long epoch = sizing != null ? sizing.epoch() : 0;
+            List<T> batch = batches.next();
+            Task<T> task = new Task<>(index++, offset, batch, epoch);
+            offset += batch.size();
+            if (!offer(queue, task, finished)) {
+                cancelled = true;
+                break;
+            }
+        }
+        if (cancelled) {
+            //未开始的批次不再执行
+            queue.clear();
+        }
+        boolean interrupted = Thread.interrupted();
+        for (int i = 0; i < workers.get(); i++) {
+            while (finished.getCount() > 0) {
+                try {
+                    if (queue.offer(POISON, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<BatchResult.Outcome> sorted = new ArrayList<>(outcomes);
+        sorted.sort(Comparator.comparingInt(BatchResult.Outcome::getIndex));
+        return new BatchResult(sorted, System.nanoTime() - start,
+                cancelled || skipped.get() || sorted.size() < index);
+    }
+
+    /**
+     * @return 是否放入队列，线程中断或工作任务全部退出时返回false
+     */
+    private static boolean offer(BlockingQueue<Object> queue, Object task, CountDownLatch finished) {
+        try {
+            while (!queue.offer(task, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (finished.getCount() == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void work(BlockingQueue<Object> queue, Consumer<List<T>> consumer, Consumer<List<T>> release,
+                          List<BatchResult.Outcome> outcomes, AtomicBoolean failed, AtomicBoolean skipped,
+                          CountDownLatch finished) {
+        try {
+            while (true) {
+                Object next = queue.take();
+                if (next == POISON) {
+                    return;
+                }
+                Task<T> task = (Task<T>) next;
+                try {
+                    if (failFast && failed.get()) {
+                        skipped.set(true);
+                        continue;
+                    }
+                    long begin = System.nanoTime();
+                    Throwable error = null;
+                    try {
+                        consumer.accept(task.batch);
+                    } catch (Throwable e) {
+                        error = e;
+                        failed.set(true);
+                    }
+                    long elapsed = System.nanoTime() - begin;
+                    if (sizing != null) {
+                        sizing.record(task.batch.size(), elapsed, error == null, task.epoch);
+                    }
+                    outcomes.add(new BatchResult.Outcome(task.index, task.offset, task.batch.size(), elapsed, error));
+                } finally {
+                    if (release != null) {
+                        release.accept(task.batch);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private int nextBatchSize() {
+        return sizing != null ? sizing.next() : batchSize;
+    }
+
+    private static Executor defaultExecutor() {
+        Executor result = defaultExecutor;
+        if (result == null) {
+            synchronized (ParallelBatchExecutor.class) {
+                result = defaultExecutor;
+                if (result == null) {
+                    AtomicInteger threadIndex = new AtomicInteger();
+                    result = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "lek-batch-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    defaultExecutor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * JDK 21及以上通过反射创建虚拟线程执行器，保持Java 8编译
+     */
+    private static Executor virtualThreadExecutor() {
+        Executor result = virtualThreadExecutor;
+        if (result == null) {
+            synchronized (ParallelBatchExecutor.class) {
+                result = virtualThreadExecutor;
+                if (result == null) {
+                    try {
+                        result = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                    } catch (ReflectiveOperationException e) {
+                        log.info("Virtual threads are not available, using the default batch executor");
+                        result = defaultExecutor();
+                    }
+                    virtualThreadExecutor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static class Task<T> {
+
+        private final int index;
+
+        private final long offset;
+
+        private final List<T> batch;
+
+        /**切分时自适应批次大小的代数*/
+        private final long epoch;
+
+        Task(int index, long offset, List<T> batch, long epoch) {
+            this.index = index;
+            this.offset = offset;
+            this.batch = batch;
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * 按batch大小依次返回subList
+     */
+    private static class SubListIterator<T> implements Iterator<List<T>> {
+
+        private final List<T> list;
+
+        private final IntSupplier batch;
+
+        private int from;
+
+        SubListIterator(List<T> list, IntSupplier batch) {
+            this.list = list;
+            this.batch = batch;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return from < list.size();
+        }
+
+        @Override
+        public List<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int to = Math.min(from + batch.getAsInt(), list.size());
+            List<T> subList = list.subList(from, to);
+            from = to;
+            return subList;
+        }
+    }
+
+    /**
+     * 从缓冲池取出空的List，填满一批后返回
+     */
+    private static class BufferIterator<T> implements Iterator<List<T>> {
+
+        private final Iterator<? extends T> source;
+
+        private final IntSupplier batch;
+
+        private final BlockingQueue<List<T>> pool;
+
+        BufferIterator(Iterator<? extends T> source, IntSupplier batch, BlockingQueue<List<T>> pool) {
+            this.source = source;
+            this.batch = batch;
+            this.pool = pool;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public List<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<T> buffer;
+            try {
+                //缓冲池的容量保证调用线程不会一直等待，执行完的批次会归还
+                buffer = pool.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                buffer = new ArrayList<>();
+            }
+            int size = batch.getAsInt();
+            while (buffer.size() < size && source.hasNext()) {
+                buffer.add(source.next());
+            }
+            return buffer;
+        }
+    }
+}
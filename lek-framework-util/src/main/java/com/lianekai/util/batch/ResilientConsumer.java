@@ -0,0 +1,186 @@
+package com.lianekai.util.batch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 带重试、失败拆分与死信处理的批量执行方法，通过{@link BatchRetry#wrap(Consumer, DeadLetterSink)}创建
+ * 线程安全，可以在并行模式下使用；执行过程中线程被中断时抛出IllegalStateException，未执行的数据不会进入死信
+ * 死信处理本身抛出异常时逐条记录日志并计数，继续执行剩余的数据，不影响其他数据的拆分重试
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 16:10
+ */
+@Slf4j
+public class ResilientConsumer<T> implements Consumer<List<T>> {
+
+    private final int maxAttempts;
+
+    private final long initialBackoffNanos;
+
+    private final long maxBackoffNanos;
+
+    private final double multiplier;
+
+    private final double jitter;
+
+    private final boolean split;
+
+    private final Predicate<Throwable> retryOn;
+
+    private final Consumer<List<T>> consumer;
+
+    private final DeadLetterSink<? super T> deadLetter;
+
+    private final LongAdder succeeded = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder splits = new LongAdder();
+
+    private final LongAdder deadLetters = new LongAdder();
+
+    private final LongAdder deadLetterFailures = new LongAdder();
+
+    ResilientConsumer(BatchRetry retry, Consumer<List<T>> consumer, DeadLetterSink<? super T> deadLetter) {
+        this.maxAttempts = retry.maxAttempts;
+        this.initialBackoffNanos = retry.initialBackoffNanos;
+        this.maxBackoffNanos = retry.maxBackoffNanos;
+        this.multiplier = retry.multiplier;
+        this.jitter = retry.jitter;
+        this.split = retry.split;
+        this.retryOn = retry.retryOn;
+        this.consumer = Objects.requireNonNull(consumer, "consumer");
+        this.deadLetter = Objects.requireNonNull(deadLetter, "deadLetter");
+    }
+
+    @Override
+    public void accept(List<T> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Throwable error = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (attempt > 1) {
+                retries.increment();
+                backoff(attempt - 1);
+            }
+            error = tryAccept(batch);
+            if (error == null) {
+                return;
+            }
+            if (!retryOn.test(error)) {
+                break;
+            }
+        }
+        if (split) {
+            isolate(batch, error);
+        } else {
+            deadLetter(batch, error);
+        }
+    }
+
+    /**
+     * 执行成功的数据条数
+     */
+    public long getSucceededCount() {
+        return succeeded.sum();
+    }
+
+    /**
+     * 整批重试的次数
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * 拆分的次数
+     */
+    public long getSplitCount() {
+        return splits.sum();
+    }
+
+    /**
+     * 进入死信的数据条数
+     */
+    public long getDeadLetterCount() {
+        return deadLetters.sum();
+    }
+
+    /**
+     * 死信处理抛出异常、只记录了日志的数据条数
+     */
+    public long getDeadLetterFailureCount() {
+        return deadLetterFailures.sum();
+    }
+
+    /**
+     * 对半拆分执行，直到定位到执行失败的单条数据
+     *
+     * @param batch 已经执行失败的批次
+     * @param error 该批次的异常
+     */
+    private void isolate(List<T> batch, Throwable error) {
+        if (batch.size() == 1) {
+            deadLetter(batch, error);
+            return;
+        }
+        splits.increment();
+        int half = batch.size() / 2;
+        List<T> first = batch.subList(0, half);
+        List<T> second = batch.subList(half, batch.size());
+        Throwable firstError = tryAccept(first);
+        if (firstError != null) {
+            isolate(first, firstError);
+        }
+        Throwable secondError = tryAccept(second);
+        if (secondError != null) {
+            isolate(second, secondError);
+        }
+    }
+
+    private Throwable tryAccept(List<T> batch) {
+        try {
+            consumer.accept(batch);
+            succeeded.add(batch.size());
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private void deadLetter(List<T> batch, Throwable error) {
+        for (T item : batch) {
+            try {
+                deadLetter.accept(item, error);
+                deadLetters.increment();
+            } catch (RuntimeException e) {
+                deadLetterFailures.increment();
+                log.error("ResilientConsumer DeadLetterSink Error, item: {}", item, e);
+            }
+        }
+    }
+
+    private void backoff(int retry) {
+        double backoff = Math.min(maxBackoffNanos, initialBackoffNanos * Math.pow(multiplier, retry - 1));
+        long nanos = (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry batch", e);
+        }
+    }
+}
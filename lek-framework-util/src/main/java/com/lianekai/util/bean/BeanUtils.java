@@ -5,6 +5,7 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.lianekai.util.cache.Cache;
+import com.lianekai.util.cache.CacheBuilder;
 import com.lianekai.util.common.Constant;
 import com.lianekai.util.math.RandomUtils;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +18,6 @@ import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -34,12 +34,20 @@ public class BeanUtils {
     private BeanUtils(){}
 
     private static final List<String> IGNORES = new ArrayList<>();
-    private static Cache<Class<?>, BeanInfo> beanInfoCache = new Cache<>(32);
+    private static Cache<Class<?>, BeanInfo> beanInfoCache = CacheBuilder.newBuilder()
+            .maximumSize(32)
+            .recordStats()
+            .name("beanInfoCache")
+            .build();
 
     /**
-     * BeanCopier缓存
+     * BeanCopier缓存，不淘汰：淘汰后重新创建会再生成一个类
      */
-    private static final Map<String, BeanCopier> BEAN_COPIER_CACHE = new ConcurrentHashMap<>();
+    private static final Cache<String, BeanCopier> BEAN_COPIER_CACHE = CacheBuilder.newBuilder()
+            .unbounded()
+            .recordStats()
+            .name("beanCopierCache")
+            .build();
 
     static {
         IGNORES.add("class");
@@ -561,10 +569,9 @@ public class BeanUtils {
      */
     private static BeanCopier getBeanCopier(Class<?> sourceClass, Class<?> targetClass) {
         String beanKey = generateKey(sourceClass, targetClass);
-        BeanCopier copier = null;
-        if (BEAN_COPIER_CACHE.containsKey(beanKey)) {
-            copier = BEAN_COPIER_CACHE.get(beanKey);
-        } else {
+        //不使用Cache.get的loader：loader异常时只记录日志并返回null，这里需要把创建失败抛给调用方
+        BeanCopier copier = BEAN_COPIER_CACHE.getIfPresent(beanKey);
+        if (copier == null) {
             copier = BeanCopier.create(sourceClass, targetClass, false);
             BEAN_COPIER_CACHE.put(beanKey, copier);
         }
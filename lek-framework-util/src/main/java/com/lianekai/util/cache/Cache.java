@@ -1,15 +1,39 @@
 package com.lianekai.util.cache;
 
+import com.lianekai.util.batch.BatchExecutor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
- * 基于HashMap 与读写锁的本地缓存
+ * 基于分段LRU的本地缓存
+ * key按hash分散到相互独立的分段中，每个分段有自己的锁和淘汰顺序(默认LRU，可选TinyLFU)；
+ * 同一个key并发未命中时只会执行一次loader，且loader在分段锁之外执行，慢加载不会阻塞其他key的读写
+ * 支持写入后过期与访问后过期，更多配置见{@link CacheBuilder}
+ * 异步加载见{@link #getAsync(Object, Function)}，正在进行的加载以CompletableFuture保存，并发调用者共享同一个结果
+ * 可挂载二级缓存{@link SecondLevelCache}，例如堆外的{@link OffHeapStore}，一级未命中时先查二级再调用loader，写入与失效同时作用于两级；
+ * 二级缓存的记录与一级使用相同的写入过期时间，回填到一级时保留最初的写入时间，二级命中单独统计，不计入加载
  *
  * @author lianekai
  * @version: 1.0
@@ -18,46 +42,615 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 @Slf4j
 public class Cache<K,V> {
 
-    private ReadWriteLock rwl = new ReentrantReadWriteLock();
-    private Lock read = rwl.readLock();
-    private Lock write = rwl.writeLock();
+    /**单个分段的最小容量，容量太小时减少分段数，避免LRU顺序被切得过碎*/
+    private static final int MIN_SEGMENT_CAPACITY = 16;
 
-    private Map<K, V> cacheMap = null;
+    private final CacheSegment<K, V>[] segments;
+
+    private final int segmentMask;
+
+    private final int segmentShift;
+
+    /**写入后过期时间(纳秒)，0表示不过期*/
+    private final long expireAfterWriteNanos;
+
+    /**访问后过期时间(纳秒)，0表示不过期*/
+    private final long expireAfterAccessNanos;
+
+    /**写入后多久触发异步刷新(纳秒)，0表示不刷新*/
+    private final long refreshAfterWriteNanos;
+
+    /**异步刷新使用的线程池*/
+    private final Executor executor;
+
+    /**二级缓存，可以为null*/
+    private final SecondLevelCache<K, V> secondLevel;
+
+    /**统计计数器，未开启统计时为空实现*/
+    private final StatsCounter stats;
+
+    /**正在加载中的key，用于合并同一个key的并发加载*/
+    private final ConcurrentMap<K, FutureTask<V>> loadingMap = new ConcurrentHashMap<>();
+
+    /**正在异步加载或刷新中的key*/
+    private final ConcurrentMap<K, CompletableFuture<V>> futureMap = new ConcurrentHashMap<>();
 
     public Cache(int initialCapacity) {
-        this.cacheMap = new LRUMap<>(initialCapacity);
+        this(CacheBuilder.newBuilder().maximumSize(initialCapacity), null);
+    }
+
+    /**
+     * @param maximumSize 缓存最大数量
+     * @param concurrencyLevel 期望的分段数，会向下取整为2的幂
+     */
+    public Cache(int maximumSize, int concurrencyLevel) {
+        this(CacheBuilder.newBuilder().maximumSize(maximumSize).concurrencyLevel(concurrencyLevel), null);
     }
 
+    /**
+     * 使用自定义的Map作为存储，此时只有一个分段，不支持过期与统计
+     * 传入的Map中保存的是缓存值本身，已有的数据可以直接命中；直接读写时不经过分段锁，需要Map自身线程安全
+     *
+     * @param cacheMap 存储Map，淘汰由Map自身负责
+     * @deprecated 每次读取都要临时包装条目，使用{@link CacheBuilder}创建
+     */
+    @Deprecated
+    @SuppressWarnings("unchecked")
     public Cache(Map<K, V> cacheMap) {
-        this.cacheMap = cacheMap;
+        this.segments = new CacheSegment[]{new CacheSegment<>(new ValueMapAdapter<>(cacheMap))};
+        this.segmentMask = 0;
+        this.segmentShift = 0;
+        this.expireAfterWriteNanos = 0;
+        this.expireAfterAccessNanos = 0;
+        this.refreshAfterWriteNanos = 0;
+        this.executor = ForkJoinPool.commonPool();
+        this.stats = StatsCounter.DISABLED;
+        this.secondLevel = null;
     }
 
+    @SuppressWarnings("unchecked")
+    Cache(CacheBuilder builder, SecondLevelCache<K, V> secondLevel) {
+        int maximumSize = builder.maximumSize;
+        boolean unbounded = maximumSize == CacheBuilder.UNBOUNDED;
+        int segmentCount = Integer.highestOneBit(unbounded ? builder.concurrencyLevel
+                : Math.max(1, Math.min(builder.concurrencyLevel, maximumSize / MIN_SEGMENT_CAPACITY)));
+        int segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+        this.stats = builder.recordStats ? new StatsCounter.Concurrent() : StatsCounter.DISABLED;
+        this.segments = new CacheSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            //不限制数量时不需要淘汰顺序，使用普通的HashMap
+            this.segments[i] = unbounded ? new CacheSegment<>(new HashMap<>(), stats)
+                    : new CacheSegment<>(builder.evictionPolicy, segmentCapacity, stats);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+        this.executor = builder.executor;
+        this.secondLevel = secondLevel;
+        if (builder.cleanupIntervalNanos > 0) {
+            CacheCleaner.register(this, builder.cleanupIntervalNanos);
+        }
+    }
+
+    /**
+     * 获取缓存，未命中时调用loader加载并放入缓存
+     * 加载异常时记录日志并返回null，null值不会被缓存
+     *
+     * @param key 缓存key
+     * @param loader 加载方法
+     * @return 缓存值
+     */
     public V get(K key, Callable<? extends V> loader) {
-        V value = null;
-        read.lock();
-        try {
-            value = cacheMap.get(key);
-            if (value == null) {
-                read.unlock();
-                write.lock();
-                try {
-                    value = cacheMap.get(key);
-                    if (value == null) {
-                        value = loader.call();
-                        cacheMap.put(key, value);
-                    }
-                } catch (Exception e) {
-                    log.error("Cache Callback Error", e);
-                }finally {
-                    write.unlock();
-                    read.lock();
+        return get(key, loader, expireAfterWriteNanos);
+    }
+
+    /**
+     * 获取缓存，未命中或已过期时调用loader加载，加载的值使用单独的写入过期时间
+     * 过期的值由一个线程在分段锁之外重新加载，不影响其他key的读写
+     *
+     * @param key 缓存key
+     * @param loader 加载方法
+     * @param duration 写入后过期时间
+     * @param unit 时间单位
+     * @return 缓存值
+     */
+    public V get(K key, Callable<? extends V> loader, long duration, TimeUnit unit) {
+        return get(key, loader, CacheBuilder.toNanos(duration, unit));
+    }
+
+    private V get(K key, Callable<? extends V> loader, long expireNanos) {
+        Objects.requireNonNull(key, "key");
+        CacheSegment<K, V> segment = segmentFor(key);
+        long now = System.nanoTime();
+        CacheEntry<V> entry = segment.getEntry(key, now);
+        if (entry != null) {
+            stats.recordHits(1);
+            if (needsRefresh(entry, now)) {
+                load(key, segment, () -> CompletableFuture.supplyAsync(() -> call(loader), executor),
+                        entry.expireAfterWriteNanos);
+            }
+            return entry.value;
+        }
+        stats.recordMisses(1);
+        V value;
+
+        boolean[] called = new boolean[1];
+        FutureTask<V> task = new FutureTask<>(() -> {
+            //再查一次，防止前一个加载者刚好写入并移除了loading标记；与上面的查询属于同一次访问，不再累加频率
+            V loaded = segment.getQuietly(key, System.nanoTime());
+            if (loaded == null) {
+                loaded = promoteSecondLevel(key, segment);
+            }
+            if (loaded == null) {
+                called[0] = true;
+                loaded = loader.call();
+            }
+            return loaded;
+        });
+        FutureTask<V> loading = loadingMap.putIfAbsent(key, task);
+        if (loading == null) {
+            long generation = segment.generation();
+            try {
+                task.run();
+                value = task.get();
+                if (!called[0]) {
+                    //一级缓存的再次查询或二级缓存命中，已在一级缓存中
+                    return value;
+                }
+                if (value != null) {
+                    stats.recordLoadSuccess(System.nanoTime() - now);
+                    cacheLoaded(key, value, expireNanos, segment, generation);
+                } else {
+                    stats.recordLoadFailure(System.nanoTime() - now);
                 }
+                return value;
+            } catch (ExecutionException e) {
+                stats.recordLoadFailure(System.nanoTime() - now);
+                log.error("Cache Callback Error", e.getCause());
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                loadingMap.remove(key, task);
             }
-        } finally {
-            read.unlock();
         }
-        return value;
+        return waitForLoading(loading);
     }
 
+    /**
+     * 异步获取缓存，调用方不会在未命中时阻塞
+     * 未命中时调用mappingFunction，返回的future保存在缓存中，同一个key的并发调用共享该future；
+     * future正常完成后结果写入缓存，异常完成时移除且不缓存；
+     * 配置了refreshAfterWrite时，到期的值仍立即返回，同时在后台重新加载
+     *
+     * @param key 缓存key
+     * @param mappingFunction 异步加载方法
+     * @return 缓存值的future
+     */
+    public CompletableFuture<V> getAsync(K key, Function<? super K, CompletableFuture<V>> mappingFunction) {
+        Objects.requireNonNull(key, "key");
+        CacheSegment<K, V> segment = segmentFor(key);
+        long now = System.nanoTime();
+        CacheEntry<V> entry = segment.getEntry(key, now);
+        if (entry != null) {
+            stats.recordHits(1);
+            if (needsRefresh(entry, now)) {
+                load(key, segment, () -> mappingFunction.apply(key), entry.expireAfterWriteNanos);
+            }
+            return CompletableFuture.completedFuture(entry.value);
+        }
+        stats.recordMisses(1);
+        V value = promoteSecondLevel(key, segment);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return load(key, segment, () -> mappingFunction.apply(key), expireAfterWriteNanos);
+    }
+
+    /**
+     * 批量获取缓存，所有未命中的key只调用一次批量加载方法
+     *
+     * @param keys 缓存key
+     * @param loader 批量加载方法，返回值中缺少的key视为不存在
+     * @return 命中及加载到的值，顺序与keys一致
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<? super Set<K>, ? extends Map<K, V>> loader) {
+        return getAll(keys, 0, loader);
+    }
+
+    /**
+     * 批量获取缓存，未命中的key通过{@link BatchExecutor}按batch分批调用批量加载方法
+     * 每个分段的查询与写入都只加一次锁；加载异常时记录日志，结果中只包含已获取到的值
+     *
+     * @param keys 缓存key
+     * @param batch 每次加载的数量，小于等于0表示全部未命中的key一次加载
+     * @param loader 批量加载方法，返回值中缺少的key视为不存在
+     * @return 命中及加载到的值，顺序与keys一致
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, int batch,
+                            Function<? super Set<K>, ? extends Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        Set<K> misses = new LinkedHashSet<>();
+        long now = System.nanoTime();
+        for (Map.Entry<CacheSegment<K, V>, List<K>> group : groupBySegment(keys).entrySet()) {
+            group.getKey().getAll(group.getValue(), now, found, misses);
+        }
+
+        stats.recordHits(found.size());
+        stats.recordMisses(misses.size());
+
+        if (secondLevel != null && !misses.isEmpty()) {
+            for (Iterator<K> iterator = misses.iterator(); iterator.hasNext(); ) {
+                K key = iterator.next();
+                V value = promoteSecondLevel(key, segmentFor(key));
+                if (value != null) {
+                    found.put(key, value);
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<CacheSegment<K, V>, Long> generations = new HashMap<>();
+            for (K key : misses) {
+                generations.computeIfAbsent(segmentFor(key), CacheSegment::generation);
+            }
+            Map<K, V> loaded = new HashMap<>();
+            long start = System.nanoTime();
+            try {
+                if (batch <= 0) {
+                    putLoaded(loaded, loader.apply(misses));
+                } else {
+                    BatchExecutor.execute(new ArrayList<>(misses), batch,
+                            chunk -> putLoaded(loaded, loader.apply(new LinkedHashSet<>(chunk))));
+                }
+                stats.recordLoadSuccess(System.nanoTime() - start);
+            } catch (Exception e) {
+                stats.recordLoadFailure(System.nanoTime() - start);
+                log.error("Cache Bulk Load Error", e);
+            }
+            found.putAll(loaded);
+            cacheLoaded(loaded, generations);
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量放入缓存，每个分段只加一次锁
+     *
+     * @param map 缓存条目
+     */
+    public void putAll(Map<? extends K, ? extends V> map) {
+        Map<CacheSegment<K, V>, Map<K, CacheEntry<V>>> groups = new HashMap<>();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            K key = Objects.requireNonNull(entry.getKey(), "key");
+            V value = Objects.requireNonNull(entry.getValue(), "value");
+            groups.computeIfAbsent(segmentFor(key), segment -> new HashMap<>())
+                    .put(key, newEntry(value, expireAfterWriteNanos));
+        }
+        for (Map.Entry<CacheSegment<K, V>, Map<K, CacheEntry<V>>> group : groups.entrySet()) {
+            group.getKey().putAll(group.getValue());
+        }
+        map.forEach((key, value) -> putSecondLevel(key, value, expireAfterWriteNanos));
+    }
+
+    /**
+     * 只查询缓存，不触发加载
+     *
+     * @param key 缓存key
+     * @return 缓存值，不存在时返回null
+     */
+    public V getIfPresent(K key) {
+        Objects.requireNonNull(key, "key");
+        CacheSegment<K, V> segment = segmentFor(key);
+        V value = segment.get(key, System.nanoTime());
+        if (value != null) {
+            stats.recordHits(1);
+            return value;
+        }
+        stats.recordMisses(1);
+        return promoteSecondLevel(key, segment);
+    }
+
+    public void put(K key, V value) {
+        put(key, value, expireAfterWriteNanos);
+    }
+
+    /**
+     * 放入缓存，并指定该条目的写入过期时间
+     *
+     * @param key 缓存key
+     * @param value 缓存值
+     * @param duration 写入后过期时间
+     * @param unit 时间单位
+     */
+    public void put(K key, V value, long duration, TimeUnit unit) {
+        put(key, value, CacheBuilder.toNanos(duration, unit));
+    }
+
+    private void put(K key, V value, long expireNanos) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        segmentFor(key).put(key, newEntry(value, expireNanos));
+        putSecondLevel(key, value, expireNanos);
+    }
+
+    public void invalidate(K key) {
+        Objects.requireNonNull(key, "key");
+        segmentFor(key).remove(key);
+        if (secondLevel != null) {
+            secondLevel.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (CacheSegment<K, V> segment : segments) {
+            segment.clear();
+        }
+        if (secondLevel != null) {
+            secondLevel.clear();
+        }
+    }
 
+    public long size() {
+        long size = 0;
+        for (CacheSegment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 清理所有分段中的过期条目
+     *
+     * @return 清理的条目数
+     */
+    public int cleanUp() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (CacheSegment<K, V> segment : segments) {
+            removed += segment.cleanUp(now);
+        }
+        return removed;
+    }
+
+    /**
+     * 当前的统计快照，未开启统计时所有计数为0
+     *
+     * @return 统计快照
+     */
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * 按热度从高到低取出条目，供{@link CacheSnapshot}使用
+     *
+     * @param order 排序方式
+     * @param limit 最多取出的条目数，0表示不限制
+     */
+    List<CacheSegment.HotEntry<K, V>> hottest(SnapshotOrder order, int limit) {
+        long now = System.nanoTime();
+        List<CacheSegment.HotEntry<K, V>> entries = new ArrayList<>();
+        for (CacheSegment<K, V> segment : segments) {
+            segment.collect(now, order, entries);
+        }
+        entries.sort(CacheSegment.HotEntry.HOTTEST_FIRST);
+        return limit > 0 && limit < entries.size() ? entries.subList(0, limit) : entries;
+    }
+
+    /**
+     * 从快照恢复条目，只写入一级缓存，已存在的条目不会被覆盖
+     *
+     * @param expireNanos 剩余的过期时间(纳秒)，0表示不过期
+     * @return 是否写入
+     */
+    boolean restore(K key, V value, long expireNanos) {
+        return segmentFor(key).putIfAbsent(key, newEntry(value, expireNanos));
+    }
+
+    private Map<CacheSegment<K, V>, List<K>> groupBySegment(Collection<? extends K> keys) {
+        Map<CacheSegment<K, V>, List<K>> groups = new HashMap<>();
+        for (K key : keys) {
+            Objects.requireNonNull(key, "key");
+            groups.computeIfAbsent(segmentFor(key), segment -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
+
+    private static <K, V> void putLoaded(Map<K, V> loaded, Map<K, V> values) {
+        if (values == null) {
+            return;
+        }
+        for (Map.Entry<K, V> entry : values.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                loaded.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 查询二级缓存，命中时按记录的写入时间回填到一级缓存，剩余的过期时间与刷新时间不会重新计算
+     * 二级缓存异常只记录日志，按未命中处理
+     *
+     * @return 二级缓存中未过期的值，没有时返回null
+     */
+    private V promoteSecondLevel(K key, CacheSegment<K, V> segment) {
+        if (secondLevel == null) {
+            return null;
+        }
+        long generation = segment.generation();
+        SecondLevelCache.Entry<V> entry;
+        try {
+            entry = secondLevel.getEntry(key);
+        } catch (Exception e) {
+            log.error("Cache Second Level Get Error", e);
+            return null;
+        }
+        long nowMillis = System.currentTimeMillis();
+        if (entry == null || entry.getValue() == null || entry.isExpired(nowMillis)) {
+            return null;
+        }
+        stats.recordSecondLevelHits(1);
+        long now = System.nanoTime();
+        long age = TimeUnit.MILLISECONDS.toNanos(Math.max(0, nowMillis - entry.getWriteTime()));
+        long expireNanos = entry.getExpireTime() > 0
+                ? TimeUnit.MILLISECONDS.toNanos(entry.getExpireTime() - entry.getWriteTime()) : 0;
+        segment.put(key, new CacheEntry<>(entry.getValue(), now - age, now, expireNanos, expireAfterAccessNanos),
+                generation);
+        return entry.getValue();
+    }
+
+    /**
+     * 写入加载结果，加载期间分段内有失效操作时不写入，避免把失效前读到的旧值写回缓存
+     * 先写二级缓存再写一级缓存，一级缓存拒绝写入说明失效发生在两次写入之间，再删除刚写入的二级缓存
+     *
+     * @param generation 加载前记录的分段失效次数
+     */
+    private void cacheLoaded(K key, V value, long expireNanos, CacheSegment<K, V> segment, long generation) {
+        if (segment.generation() != generation) {
+            return;
+        }
+        putSecondLevel(key, value, expireNanos);
+        if (!segment.put(key, newEntry(value, expireNanos), generation)) {
+            removeSecondLevel(key);
+        }
+    }
+
+    /**
+     * 批量写入加载结果，按分段比较加载前记录的失效次数，见{@link #cacheLoaded(Object, Object, long, CacheSegment, long)}
+     */
+    private void cacheLoaded(Map<K, V> loaded, Map<CacheSegment<K, V>, Long> generations) {
+        Map<CacheSegment<K, V>, Map<K, CacheEntry<V>>> groups = new HashMap<>();
+        for (Map.Entry<K, V> entry : loaded.entrySet()) {
+            groups.computeIfAbsent(segmentFor(entry.getKey()), segment -> new HashMap<>())
+                    .put(entry.getKey(), newEntry(entry.getValue(), expireAfterWriteNanos));
+        }
+        for (Map.Entry<CacheSegment<K, V>, Map<K, CacheEntry<V>>> group : groups.entrySet()) {
+            CacheSegment<K, V> segment = group.getKey();
+            long generation = generations.get(segment);
+            if (segment.generation() != generation) {
+                continue;
+            }
+            Map<K, CacheEntry<V>> entries = group.getValue();
+            entries.forEach((key, entry) -> putSecondLevel(key, entry.value, expireAfterWriteNanos));
+            if (!segment.putAll(entries, generation)) {
+                entries.keySet().forEach(this::removeSecondLevel);
+            }
+        }
+    }
+
+    /**
+     * @param expireNanos 一级缓存条目的写入过期时间，二级缓存使用相同的时间(向下取整到毫秒，不会晚于一级过期)
+     */
+    private void putSecondLevel(K key, V value, long expireNanos) {
+        if (secondLevel == null || value == null) {
+            return;
+        }
+        long expireMillis = expireNanos > 0 ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(expireNanos)) : 0;
+        try {
+            secondLevel.put(key, value, expireMillis);
+        } catch (Exception e) {
+            log.error("Cache Second Level Put Error", e);
+        }
+    }
+
+    private void removeSecondLevel(K key) {
+        if (secondLevel == null) {
+            return;
+        }
+        try {
+            secondLevel.remove(key);
+        } catch (Exception e) {
+            log.error("Cache Second Level Remove Error", e);
+        }
+    }
+
+    private boolean needsRefresh(CacheEntry<V> entry, long now) {
+        return refreshAfterWriteNanos > 0 && now - entry.writeTime >= refreshAfterWriteNanos;
+    }
+
+    /**
+     * 发起异步加载，同一个key同时只有一个加载在进行
+     * 刷新失败时保留旧值，只记录日志；加载期间被失效时结果照常返回给调用方，但不写入缓存
+     */
+    private CompletableFuture<V> load(K key, CacheSegment<K, V> segment,
+                                      Supplier<CompletableFuture<V>> source, long expireNanos) {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> loading = futureMap.putIfAbsent(key, promise);
+        if (loading != null) {
+            return loading;
+        }
+        long generation = segment.generation();
+        long start = System.nanoTime();
+        CompletableFuture<V> future;
+        try {
+            future = source.get();
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        if (future == null) {
+            future = CompletableFuture.completedFuture(null);
+        }
+        future.whenComplete((value, error) -> {
+            if (error == null && value != null) {
+                stats.recordLoadSuccess(System.nanoTime() - start);
+                cacheLoaded(key, value, expireNanos, segment, generation);
+            } else {
+                stats.recordLoadFailure(System.nanoTime() - start);
+            }
+            futureMap.remove(key, promise);
+            if (error != null) {
+                log.error("Cache Async Load Error", error);
+                promise.completeExceptionally(error);
+            } else {
+                promise.complete(value);
+            }
+        });
+        return promise;
+    }
+
+    private static <V> V call(Callable<? extends V> loader) {
+        try {
+            return loader.call();
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private CacheEntry<V> newEntry(V value, long expireNanos) {
+        return new CacheEntry<>(value, System.nanoTime(), expireNanos, expireAfterAccessNanos);
+    }
+
+    private V waitForLoading(FutureTask<V> loading) {
+        try {
+            return loading.get();
+        } catch (ExecutionException e) {
+            //异常已由加载线程记录
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 分段使用hash的高位，分段内的HashMap使用低位，避免同一分段内的key挤在少数桶里
+     */
+    private CacheSegment<K, V> segmentFor(K key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return segments[(h >>> segmentShift) & segmentMask];
+    }
 }
@@ -0,0 +1,189 @@
+package com.lianekai.util.cache;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存构建器
+ * <pre>
+ * Cache&lt;Long, User&gt; cache = CacheBuilder.newBuilder()
+ *         .maximumSize(1024)
+ *         .evictionPolicy(EvictionPolicy.TINY_LFU)
+ *         .expireAfterWrite(10, TimeUnit.MINUTES)
+ *         .refreshAfterWrite(1, TimeUnit.MINUTES)
+ *         .cleanupInterval(1, TimeUnit.MINUTES)
+ *         .recordStats()
+ *         .name("userCache")
+ *         .build();
+ * </pre>
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 11:20
+ */
+public final class CacheBuilder {
+
+    static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**不限制数量*/
+    static final int UNBOUNDED = 0;
+
+    int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    int concurrencyLevel = DEFAULT_CONCURRENCY_LEVEL;
+
+    long expireAfterWriteNanos;
+
+    long expireAfterAccessNanos;
+
+    long cleanupIntervalNanos;
+
+    EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+    long refreshAfterWriteNanos;
+
+    Executor executor = ForkJoinPool.commonPool();
+
+    boolean recordStats;
+
+    String name;
+
+    private CacheBuilder() {
+    }
+
+    public static CacheBuilder newBuilder() {
+        return new CacheBuilder();
+    }
+
+    /**
+     * 缓存最大数量
+     */
+    public CacheBuilder maximumSize(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * 不限制数量，不按容量淘汰，只在过期或失效时移除
+     * 用于key集合有限、重新创建代价高的元数据，例如按Class缓存的反射信息与生成的类；数量不可控的数据应设置maximumSize
+     */
+    public CacheBuilder unbounded() {
+        this.maximumSize = UNBOUNDED;
+        return this;
+    }
+
+    /**
+     * 期望的分段数，会向下取整为2的幂
+     */
+    public CacheBuilder concurrencyLevel(int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel must be positive: " + concurrencyLevel);
+        }
+        this.concurrencyLevel = concurrencyLevel;
+        return this;
+    }
+
+    /**
+     * 淘汰策略，默认LRU；访问中夹杂批量扫描时可使用TINY_LFU保护热点数据
+     */
+    public CacheBuilder evictionPolicy(EvictionPolicy evictionPolicy) {
+        if (evictionPolicy == null) {
+            throw new IllegalArgumentException("evictionPolicy cannot be null");
+        }
+        this.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
+    /**
+     * 写入后经过指定时间过期
+     */
+    public CacheBuilder expireAfterWrite(long duration, TimeUnit unit) {
+        this.expireAfterWriteNanos = toNanos(duration, unit);
+        return this;
+    }
+
+    /**
+     * 最后一次访问后经过指定时间过期
+     */
+    public CacheBuilder expireAfterAccess(long duration, TimeUnit unit) {
+        this.expireAfterAccessNanos = toNanos(duration, unit);
+        return this;
+    }
+
+    /**
+     * 写入后经过指定时间，下一次访问触发异步刷新，刷新完成前继续返回旧值
+     * 应小于expireAfterWrite，否则条目会先过期
+     */
+    public CacheBuilder refreshAfterWrite(long duration, TimeUnit unit) {
+        this.refreshAfterWriteNanos = toNanos(duration, unit);
+        return this;
+    }
+
+    /**
+     * 异步刷新使用的线程池，默认ForkJoinPool.commonPool()
+     */
+    public CacheBuilder executor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 由共享的清理线程定期清理过期条目，不设置时只在访问和写入时清理
+     */
+    public CacheBuilder cleanupInterval(long duration, TimeUnit unit) {
+        this.cleanupIntervalNanos = toNanos(duration, unit);
+        return this;
+    }
+
+    /**
+     * 开启命中、加载、淘汰统计，见{@link Cache#stats()}
+     */
+    public CacheBuilder recordStats() {
+        this.recordStats = true;
+        return this;
+    }
+
+    /**
+     * 缓存名称，设置后构建时登记到{@link CacheRegistry}
+     */
+    public CacheBuilder name(String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("name cannot be empty");
+        }
+        this.name = name;
+        return this;
+    }
+
+    public <K, V> Cache<K, V> build() {
+        return build(null);
+    }
+
+    /**
+     * 构建挂载二级缓存的缓存，一级未命中时先查询二级缓存
+     *
+     * @param secondLevel 二级缓存，例如{@link OffHeapStore}
+     */
+    public <K, V> Cache<K, V> build(SecondLevelCache<K, V> secondLevel) {
+        Cache<K, V> cache = new Cache<>(this, secondLevel);
+        if (name != null) {
+            CacheRegistry.register(name, cache);
+        }
+        return cache;
+    }
+
+    static long toNanos(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration cannot be negative: " + duration);
+        }
+        return unit.toNanos(duration);
+    }
+}
@@ -0,0 +1,51 @@
+package com.lianekai.util.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 缓存过期清理器
+ * 所有缓存共用一个守护线程定期清理过期条目，而不是每个条目一个定时器
+ * 只持有缓存的弱引用，缓存被回收后对应的清理任务自动取消
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 11:30
+ */
+@Slf4j
+final class CacheCleaner {
+    private CacheCleaner() {
+    }
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lek-cache-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static void register(Cache<?, ?> cache, long intervalNanos) {
+        WeakReference<Cache<?, ?>> reference = new WeakReference<>(cache);
+        AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+        future.set(EXECUTOR.scheduleWithFixedDelay(() -> {
+            Cache<?, ?> target = reference.get();
+            if (target == null) {
+                ScheduledFuture<?> self = future.get();
+                if (self != null) {
+                    self.cancel(false);
+                }
+                return;
+            }
+            try {
+                target.cleanUp();
+            } catch (Exception e) {
+                log.error("Cache CleanUp Error", e);
+            }
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,17 @@
+package com.lianekai.util.cache;
+
+/**
+ * 缓存key/value的二进制编解码器
+ * 用作key时编码结果必须是确定的，相等的key必须编码为相同的字节
+ * 常用实现见{@link CacheCodecs}
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 09:30
+ */
+public interface CacheCodec<T> {
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+}
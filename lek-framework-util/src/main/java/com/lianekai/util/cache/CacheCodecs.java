@@ -0,0 +1,116 @@
+package com.lianekai.util.cache;
+
+import com.lianekai.util.gizp.GzipUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 常用的缓存编解码器
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 09:35
+ */
+public class CacheCodecs {
+    private CacheCodecs() {
+    }
+
+    /**原样保存字节数组，适用于GzipUtils.compress等已序列化的数据*/
+    public static final CacheCodec<byte[]> BYTES = new CacheCodec<byte[]>() {
+        @Override
+        public byte[] encode(byte[] value) {
+            return value;
+        }
+
+        @Override
+        public byte[] decode(byte[] bytes) {
+            return bytes;
+        }
+    };
+
+    /**UTF-8字符串*/
+    public static final CacheCodec<String> STRING = new CacheCodec<String>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**gzip压缩的UTF-8字符串，适合较大的JSON等文本*/
+    public static final CacheCodec<String> GZIP_STRING = new CacheCodec<String>() {
+        @Override
+        public byte[] encode(String value) {
+            return GzipUtils.compress(value);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return GzipUtils.uncompressToString(bytes);
+        }
+    };
+
+    /**8字节大端long，适用于SnowflakeIdWorker生成的id*/
+    public static final CacheCodec<Long> LONG = new CacheCodec<Long>() {
+        @Override
+        public byte[] encode(Long value) {
+            long v = value;
+            byte[] bytes = new byte[8];
+            for (int i = 7; i >= 0; i--) {
+                bytes[i] = (byte) v;
+                v >>>= 8;
+            }
+            return bytes;
+        }
+
+        @Override
+        public Long decode(byte[] bytes) {
+            long v = 0;
+            for (byte b : bytes) {
+                v = (v << 8) | (b & 0xFF);
+            }
+            return v;
+        }
+    };
+
+    /**
+     * JDK序列化，只适合作为value，序列化结果不保证确定，不能用作key
+     */
+    public static <T extends Serializable> CacheCodec<T> serializable() {
+        return new CacheCodec<T>() {
+            @Override
+            public byte[] encode(T value) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+                    oos.writeObject(value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return out.toByteArray();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T decode(byte[] bytes) {
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (T) ois.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.lianekai.util.cache;
+
+/**
+ * 缓存条目，记录写入与访问时间用于过期判断
+ * 只在分段锁内读写，字段不需要volatile
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 11:08
+ */
+class CacheEntry<V> implements Expirable {
+
+    final V value;
+
+    final long writeTime;
+
+    long accessTime;
+
+    /**写入后过期时间(纳秒)，0表示不过期*/
+    final long expireAfterWriteNanos;
+
+    /**访问后过期时间(纳秒)，0表示不过期*/
+    final long expireAfterAccessNanos;
+
+    CacheEntry(V value, long now, long expireAfterWriteNanos, long expireAfterAccessNanos) {
+        this(value, now, now, expireAfterWriteNanos, expireAfterAccessNanos);
+    }
+
+    /**
+     * @param writeTime 写入时间，从二级缓存回填时早于当前时间
+     */
+    CacheEntry(V value, long writeTime, long now, long expireAfterWriteNanos, long expireAfterAccessNanos) {
+        this.value = value;
+        this.writeTime = writeTime;
+        this.accessTime = now;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.expireAfterAccessNanos = expireAfterAccessNanos;
+    }
+
+    /**
+     * 距离写入后过期的剩余时间(纳秒)，0表示不过期
+     */
+    long remainingNanos(long now) {
+        if (expireAfterWriteNanos <= 0) {
+            return 0;
+        }
+        return Math.max(1, expireAfterWriteNanos - (now - writeTime));
+    }
+
+    @Override
+    public boolean isExpired(long now) {
+        return (expireAfterWriteNanos > 0 && now - writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - accessTime >= expireAfterAccessNanos);
+    }
+}
@@ -0,0 +1,59 @@
+package com.lianekai.util.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * 缓存注册表，按名称登记框架内的缓存，供监控端点与指标读取统计信息
+ * 通过{@link CacheBuilder#name(String)}构建的缓存会自动登记
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 16:30
+ */
+public class CacheRegistry {
+    private CacheRegistry() {
+    }
+
+    private static final Map<String, Cache<?, ?>> CACHES = new ConcurrentSkipListMap<>();
+
+    private static final List<BiConsumer<String, Cache<?, ?>>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * 登记缓存，同名缓存会被替换
+     *
+     * @param name 缓存名称
+     * @param cache 缓存
+     */
+    public static synchronized void register(String name, Cache<?, ?> cache) {
+        CACHES.put(name, cache);
+        for (BiConsumer<String, Cache<?, ?>> listener : LISTENERS) {
+            listener.accept(name, cache);
+        }
+    }
+
+    public static Cache<?, ?> get(String name) {
+        return CACHES.get(name);
+    }
+
+    /**
+     * 按名称排序的全部缓存
+     */
+    public static Map<String, Cache<?, ?>> getCaches() {
+        return Collections.unmodifiableMap(CACHES);
+    }
+
+    /**
+     * 监听缓存登记，已登记的缓存会立即回调一次，之后登记的缓存在登记时回调
+     *
+     * @param listener 回调
+     */
+    public static synchronized void addListener(BiConsumer<String, Cache<?, ?>> listener) {
+        CACHES.forEach(listener);
+        LISTENERS.add(listener);
+    }
+}
@@ -0,0 +1,355 @@
+package com.lianekai.util.cache;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 缓存分段，每个分段持有独立的锁与淘汰顺序
+ * LRUMap为访问有序的LinkedHashMap，get也会修改链表结构，所以分段内读写统一使用互斥锁
+ * 过期条目在访问时删除，并且每写入一定次数顺带从最久未访问的一端清理一小批，清理成本分摊到写操作上
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 10:12
+ */
+class CacheSegment<K, V> {
+
+    /**每写入多少次做一次增量清理*/
+    private static final int CLEANUP_THRESHOLD = 64;
+
+    /**每次增量清理最多检查的条目数*/
+    private static final int CLEANUP_BATCH = 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<K, CacheEntry<V>> map;
+
+    private final StatsCounter stats;
+
+    private int writeCount;
+
+    /**失效次数，在锁内递增，加载前记录、写入时比较，加载期间发生过失效则放弃写入*/
+    private volatile long generation;
+
+    CacheSegment(Map<K, CacheEntry<V>> map) {
+        this(map, StatsCounter.DISABLED);
+    }
+
+    /**
+     * @param map 存储Map，自身不淘汰条目
+     */
+    CacheSegment(Map<K, CacheEntry<V>> map, StatsCounter stats) {
+        this.map = map;
+        this.stats = stats;
+    }
+
+    /**
+     * @param policy 淘汰策略
+     * @param capacity 分段容量
+     * @param stats 统计计数器，Map自身淘汰的条目通过回调计入
+     */
+    CacheSegment(EvictionPolicy policy, int capacity, StatsCounter stats) {
+        this.map = policy.newMap(capacity,
+                stats == StatsCounter.DISABLED ? null : (key, entry, cause) -> stats.recordEviction(cause, 1));
+        this.stats = stats;
+    }
+
+    V get(K key, long now) {
+        CacheEntry<V> entry = getEntry(key, now);
+        return entry == null ? null : entry.value;
+    }
+
+    CacheEntry<V> getEntry(K key, long now) {
+        return getEntry(key, now, true);
+    }
+
+    /**
+     * 同一次访问中的重复查询，不累加TinyLfuMap的访问频率
+     */
+    V getQuietly(K key, long now) {
+        CacheEntry<V> entry = getEntry(key, now, false);
+        return entry == null ? null : entry.value;
+    }
+
+    private CacheEntry<V> getEntry(K key, long now, boolean recordAccess) {
+        lock.lock();
+        try {
+            CacheEntry<V> entry = recordAccess || !(map instanceof TinyLfuMap)
+                    ? map.get(key) : ((TinyLfuMap<K, CacheEntry<V>>) map).getQuietly(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                map.remove(key);
+                stats.recordEviction(RemovalCause.EXPIRED, 1);
+                return null;
+            }
+            entry.accessTime = now;
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(K key, CacheEntry<V> entry) {
+        lock.lock();
+        try {
+            doPut(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入加载结果，记录的失效次数与当前不同时说明加载期间有key被失效，不写入
+     * 按分段而不是按key比较，同一分段其他key的失效也会放弃本次写入，只影响命中率
+     *
+     * @param generation 加载前的{@link #generation()}
+     * @return 是否写入
+     */
+    boolean put(K key, CacheEntry<V> entry, long generation) {
+        lock.lock();
+        try {
+            if (this.generation != generation) {
+                return false;
+            }
+            doPut(key, entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doPut(K key, CacheEntry<V> entry) {
+        map.put(key, entry);
+        if (++writeCount >= CLEANUP_THRESHOLD) {
+            writeCount = 0;
+            expire(entry.writeTime, CLEANUP_BATCH);
+        }
+    }
+
+    /**
+     * 一次加锁批量查询
+     *
+     * @param keys 属于该分段的key
+     * @param now 当前时间，System.nanoTime()
+     * @param found 命中的结果
+     * @param misses 未命中的key
+     */
+    void getAll(Collection<K> keys, long now, Map<K, V> found, Collection<K> misses) {
+        lock.lock();
+        try {
+            for (K key : keys) {
+                CacheEntry<V> entry = map.get(key);
+                if (entry != null && entry.isExpired(now)) {
+                    map.remove(key);
+                    stats.recordEviction(RemovalCause.EXPIRED, 1);
+                    entry = null;
+                }
+                if (entry == null) {
+                    misses.add(key);
+                } else {
+                    entry.accessTime = now;
+                    found.put(key, entry.value);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一次加锁批量写入
+     *
+     * @param entries 属于该分段的条目
+     */
+    void putAll(Map<K, CacheEntry<V>> entries) {
+        lock.lock();
+        try {
+            doPutAll(entries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量写入加载结果，加载期间分段内发生过失效时全部不写入，见{@link #put(Object, CacheEntry, long)}
+     *
+     * @return 是否写入
+     */
+    boolean putAll(Map<K, CacheEntry<V>> entries, long generation) {
+        lock.lock();
+        try {
+            if (this.generation != generation) {
+                return false;
+            }
+            doPutAll(entries);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doPutAll(Map<K, CacheEntry<V>> entries) {
+        map.putAll(entries);
+        writeCount += entries.size();
+        if (writeCount >= CLEANUP_THRESHOLD) {
+            writeCount = 0;
+            expire(System.nanoTime(), CLEANUP_BATCH);
+        }
+    }
+
+    /**
+     * 条目不存在或已过期时写入，用于从快照恢复，不覆盖恢复期间新加载的数据
+     *
+     * @return 是否写入
+     */
+    boolean putIfAbsent(K key, CacheEntry<V> entry) {
+        lock.lock();
+        try {
+            CacheEntry<V> existing = map.get(key);
+            if (existing != null && !existing.isExpired(entry.writeTime)) {
+                return false;
+            }
+            map.put(key, entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 复制未过期的条目，遍历不会改变访问顺序
+     * 按频率排序时记录TinyLfuMap的频率估计，其他Map没有频率信息，频率记为0
+     *
+     * @param now 当前时间，System.nanoTime()
+     * @param order 排序方式
+     * @param out 复制的条目
+     */
+    @SuppressWarnings("unchecked")
+    void collect(long now, SnapshotOrder order, List<HotEntry<K, V>> out) {
+        lock.lock();
+        try {
+            TinyLfuMap<K, CacheEntry<V>> tinyLfuMap = order == SnapshotOrder.FREQUENCY && map instanceof TinyLfuMap
+                    ? (TinyLfuMap<K, CacheEntry<V>>) map : null;
+            for (Map.Entry<K, CacheEntry<V>> entry : map.entrySet()) {
+                CacheEntry<V> value = entry.getValue();
+                if (!value.isExpired(now)) {
+                    int frequency = tinyLfuMap == null ? 0 : tinyLfuMap.frequency(entry.getKey());
+                    out.add(new HotEntry<>(entry.getKey(), value, frequency));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前的失效次数，加载前记录，写入时传给{@link #put(Object, CacheEntry, long)}
+     */
+    long generation() {
+        return generation;
+    }
+
+    V remove(K key) {
+        lock.lock();
+        try {
+            generation++;
+            CacheEntry<V> entry = map.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            stats.recordEviction(RemovalCause.EXPLICIT, 1);
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            generation++;
+            stats.recordEviction(RemovalCause.EXPLICIT, map.size());
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清理全部过期条目
+     *
+     * @param now 当前时间，System.nanoTime()
+     * @return 清理的条目数
+     */
+    int cleanUp(long now) {
+        lock.lock();
+        try {
+            return expire(now, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int expire(long now, int limit) {
+        if (map instanceof LRUMap) {
+            //LRUMap通过淘汰回调计数
+            return ((LRUMap<K, CacheEntry<V>>) map).removeExpired(now, limit);
+        }
+        int removed = 0;
+        int checked = 0;
+        Iterator<CacheEntry<V>> iterator = map.values().iterator();
+        while (iterator.hasNext() && (limit <= 0 || checked++ < limit)) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        stats.recordEviction(RemovalCause.EXPIRED, removed);
+        return removed;
+    }
+
+    /**
+     * 快照使用的条目副本，按频率、最近访问时间从高到低排序
+     */
+    static final class HotEntry<K, V> {
+
+        static final Comparator<HotEntry<?, ?>> HOTTEST_FIRST = (a, b) -> {
+            if (a.frequency != b.frequency) {
+                return Integer.compare(b.frequency, a.frequency);
+            }
+            return Long.compare(b.accessTime - a.accessTime, 0);
+        };
+
+        final K key;
+
+        final CacheEntry<V> entry;
+
+        final int frequency;
+
+        /**复制时的访问时间，排序期间条目仍可能被访问*/
+        final long accessTime;
+
+        HotEntry(K key, CacheEntry<V> entry, int frequency) {
+            this.key = key;
+            this.entry = entry;
+            this.frequency = frequency;
+            this.accessTime = entry.accessTime;
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.lianekai.util.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存快照，把热点条目保存到本地文件，重启后预热缓存，避免发布后大量请求同时穿透到后端存储
+ * <pre>
+ * CacheSnapshot&lt;Long, String&gt; snapshot = new CacheSnapshot&lt;&gt;(cache, Paths.get("user.snapshot"), CacheCodecs.LONG, CacheCodecs.STRING)
+ *         .order(SnapshotOrder.FREQUENCY).maxEntries(100000);
+ * snapshot.restoreAsync(executor);   //启动时后台恢复
+ * snapshot.save();                   //停机时保存
+ * </pre>
+ * 文件格式：魔数、版本、保存时间，然后是按热度从高到低的条目(key长度、key、value长度、value、过期时间戳)，以-1结尾
+ * 先写入同目录下的临时文件并刷盘，再原子重命名覆盖，保存过程中崩溃不会破坏上一份快照；
+ * 缺少结尾标记的文件视为被截断，已读出的条目照常恢复
+ * 恢复时按从冷到热的顺序写入，最热的条目最后写入、处于最近使用的位置，恢复到容量更小的缓存时先淘汰冷条目；
+ * 恢复的条目不会覆盖恢复期间已经加载到缓存中的数据，过期时间按保存时的剩余时间计算，已过期的条目跳过
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 21:30
+ */
+@Slf4j
+public class CacheSnapshot<K, V> {
+
+    private static final int MAGIC = 0x4C454B53;
+
+    private static final int VERSION = 1;
+
+    private static final int END = -1;
+
+    /**异步恢复时每个任务解码的条目数*/
+    private static final int RESTORE_CHUNK_SIZE = 1024;
+
+    private final Cache<K, V> cache;
+
+    private final Path file;
+
+    private final CacheCodec<K> keyCodec;
+
+    private final CacheCodec<V> valueCodec;
+
+    private SnapshotOrder order = SnapshotOrder.RECENCY;
+
+    private int maxEntries;
+
+    /**
+     * @param cache 缓存
+     * @param file 快照文件
+     * @param keyCodec key编解码器
+     * @param valueCodec value编解码器
+     */
+    public CacheSnapshot(Cache<K, V> cache, Path file, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        this.cache = Objects.requireNonNull(cache, "cache");
+        this.file = Objects.requireNonNull(file, "file");
+        this.keyCodec = Objects.requireNonNull(keyCodec, "keyCodec");
+        this.valueCodec = Objects.requireNonNull(valueCodec, "valueCodec");
+    }
+
+    /**
+     * 条目排序方式，默认按最近访问时间
+     */
+    public CacheSnapshot<K, V> order(SnapshotOrder order) {
+        this.order = Objects.requireNonNull(order, "order");
+        return this;
+    }
+
+    /**
+     * 最多保存的条目数，只保留最热的部分，0表示全部保存
+     */
+    public CacheSnapshot<K, V> maxEntries(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 保存快照，编码失败的条目跳过
+     *
+     * @return 保存的条目数
+     */
+    public synchronized int save() {
+        List<CacheSegment.HotEntry<K, V>> entries = cache.hottest(order, maxEntries);
+        long now = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int written = 0;
+        int skipped = 0;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(nowMillis);
+                for (CacheSegment.HotEntry<K, V> entry : entries) {
+                    byte[] key;
+                    byte[] value;
+                    try {
+                        key = keyCodec.encode(entry.key);
+                        value = valueCodec.encode(entry.entry.value);
+                    } catch (RuntimeException e) {
+                        skipped++;
+                        continue;
+                    }
+                    long remainingNanos = entry.entry.remainingNanos(now);
+                    out.writeInt(key.length);
+                    out.write(key);
+                    out.writeInt(value.length);
+                    out.write(value);
+                    out.writeLong(remainingNanos == 0 ? 0 : nowMillis + TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+                    written++;
+                }
+                out.writeInt(END);
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            move(temp, file);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                //临时文件下次保存时覆盖
+            }
+            throw new UncheckedIOException(e);
+        }
+        if (skipped > 0) {
+            log.warn("Cache Snapshot skipped {} entries that failed to encode, file: {}", skipped, file);
+        }
+        return written;
+    }
+
+    /**
+     * 在调用线程中恢复快照，文件不存在时直接返回
+     *
+     * @return 恢复的条目数
+     */
+    public int restore() {
+        List<Decoded<K, V>> entries = new ArrayList<>();
+        for (Record record : readAll()) {
+            Decoded<K, V> decoded = decode(record, System.currentTimeMillis());
+            if (decoded != null) {
+                entries.add(decoded);
+            }
+        }
+        return insert(Collections.singletonList(entries));
+    }
+
+    /**
+     * 后台恢复快照，缓存可以立即使用，未恢复的key按正常流程加载
+     * 读取文件的任务按块提交解码任务，线程池有多个线程时并行解码，全部解码后再按从冷到热的顺序写入缓存
+     *
+     * @param executor 执行恢复的线程池
+     * @return 恢复的条目数
+     */
+    public CompletableFuture<Integer> restoreAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> submitChunks(executor), executor)
+                .thenCompose(chunks -> CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                        .thenApply(ignored -> {
+                            List<List<Decoded<K, V>>> decoded = new ArrayList<>(chunks.size());
+                            for (CompletableFuture<List<Decoded<K, V>>> chunk : chunks) {
+                                decoded.add(chunk.join());
+                            }
+                            return insert(decoded);
+                        }));
+    }
+
+    /**
+     * 定时保存快照，保存异常只记录日志
+     *
+     * @param scheduler 调度线程池
+     * @param period 保存间隔
+     * @param unit 时间单位
+     */
+    public ScheduledFuture<?> scheduleSave(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                save();
+            } catch (Exception e) {
+                log.error("Cache Snapshot Save Error", e);
+            }
+        }, period, period, unit);
+    }
+
+    private List<Record> readAll() {
+        List<Record> records = new ArrayList<>();
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            if (reader == null) {
+                return records;
+            }
+            Record record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return records;
+    }
+
+    private List<CompletableFuture<List<Decoded<K, V>>>> submitChunks(Executor executor) {
+        List<Record> records = readAll();
+        List<CompletableFuture<List<Decoded<K, V>>>> chunks = new ArrayList<>();
+        for (int from = 0; from < records.size(); from += RESTORE_CHUNK_SIZE) {
+            List<Record> chunk = records.subList(from, Math.min(from + RESTORE_CHUNK_SIZE, records.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                long nowMillis = System.currentTimeMillis();
+                List<Decoded<K, V>> decoded = new ArrayList<>(chunk.size());
+                for (Record record : chunk) {
+                    Decoded<K, V> entry = decode(record, nowMillis);
+                    if (entry != null) {
+                        decoded.add(entry);
+                    }
+                }
+                return decoded;
+            }, executor));
+        }
+        return chunks;
+    }
+
+    /**
+     * 文件中的条目从热到冷，倒序写入，让最热的条目处于最近使用的位置
+     */
+    private int insert(List<List<Decoded<K, V>>> chunks) {
+        long nowMillis = System.currentTimeMillis();
+        int restored = 0;
+        for (int i = chunks.size() - 1; i >= 0; i--) {
+            List<Decoded<K, V>> chunk = chunks.get(i);
+            for (int j = chunk.size() - 1; j >= 0; j--) {
+                Decoded<K, V> entry = chunk.get(j);
+                long expireNanos = 0;
+                if (entry.deadline > 0) {
+                    if (entry.deadline <= nowMillis) {
+                        continue;
+                    }
+                    expireNanos = TimeUnit.MILLISECONDS.toNanos(entry.deadline - nowMillis);
+                }
+                if (cache.restore(entry.key, entry.value, expireNanos)) {
+                    restored++;
+                }
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * @return 已过期、解码失败或解码为null时返回null
+     */
+    private Decoded<K, V> decode(Record record, long nowMillis) {
+        if (record.deadline > 0 && record.deadline <= nowMillis) {
+            return null;
+        }
+        K key;
+        V value;
+        try {
+            key = keyCodec.decode(record.key);
+            value = valueCodec.decode(record.value);
+        } catch (RuntimeException e) {
+            log.error("Cache Snapshot Decode Error", e);
+            return null;
+        }
+        return key == null || value == null ? null : new Decoded<>(key, value, record.deadline);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static class Record {
+
+        private final byte[] key;
+
+        private final byte[] value;
+
+        /**过期时间戳(毫秒)，0表示不过期*/
+        private final long deadline;
+
+        Record(byte[] key, byte[] value, long deadline) {
+            this.key = key;
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+
+    private static class Decoded<K, V> {
+
+        private final K key;
+
+        private final V value;
+
+        private final long deadline;
+
+        Decoded(K key, V value, long deadline) {
+            this.key = key;
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+
+    private static class SnapshotReader implements AutoCloseable {
+
+        private final Path file;
+
+        private final DataInputStream in;
+
+        private boolean finished;
+
+        private SnapshotReader(Path file, DataInputStream in) {
+            this.file = file;
+            this.in = in;
+        }
+
+        /**
+         * @return 文件不存在或不是快照文件时返回null
+         */
+        static SnapshotReader open(Path file) throws IOException {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            InputStream input = Files.newInputStream(file);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(input, 64 * 1024));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    log.warn("Cache Snapshot ignored unknown file format: {}", file);
+                    in.close();
+                    return null;
+                }
+                in.readLong();
+            } catch (EOFException e) {
+                log.warn("Cache Snapshot ignored truncated file: {}", file);
+                in.close();
+                return null;
+            }
+            return new SnapshotReader(file, in);
+        }
+
+        /**
+         * @return 下一个条目，读完或文件被截断时返回null
+         */
+        Record next() throws IOException {
+            if (finished) {
+                return null;
+            }
+            try {
+                int keyLength = in.readInt();
+                if (keyLength == END) {
+                    finished = true;
+                    return null;
+                }
+                byte[] key = readBytes(keyLength);
+                byte[] value = readBytes(in.readInt());
+                return new Record(key, value, in.readLong());
+            } catch (EOFException e) {
+                log.warn("Cache Snapshot file is truncated, restored entries read so far: {}", file);
+                finished = true;
+                return null;
+            }
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            if (length < 0) {
+                throw new IOException("Corrupted cache snapshot: " + file);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
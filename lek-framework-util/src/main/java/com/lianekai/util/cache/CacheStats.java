@@ -0,0 +1,119 @@
+package com.lianekai.util.cache;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 缓存统计快照，不可变
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 16:20
+ */
+public final class CacheStats {
+
+    static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, new EnumMap<>(RemovalCause.class));
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long secondLevelHitCount;
+
+    private final long loadSuccessCount;
+
+    private final long loadFailureCount;
+
+    private final long totalLoadTime;
+
+    private final Map<RemovalCause, Long> evictionCounts;
+
+    CacheStats(long hitCount, long missCount, long secondLevelHitCount, long loadSuccessCount, long loadFailureCount,
+               long totalLoadTime, Map<RemovalCause, Long> evictionCounts) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.secondLevelHitCount = secondLevelHitCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCounts = Collections.unmodifiableMap(evictionCounts);
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 一级未命中、在二级缓存中找到的次数，包含在missCount中，不计入加载
+     */
+    public long getSecondLevelHitCount() {
+        return secondLevelHitCount;
+    }
+
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0D : (double) hitCount / requestCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    /**
+     * 加载异常或加载结果为null的次数
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * 加载总耗时(纳秒)
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * 平均加载耗时(纳秒)
+     */
+    public double getAverageLoadPenalty() {
+        long loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0.0D : (double) totalLoadTime / loadCount;
+    }
+
+    public long getEvictionCount() {
+        long count = 0;
+        for (Long value : evictionCounts.values()) {
+            count += value;
+        }
+        return count;
+    }
+
+    /**
+     * 按原因分类的移除数量
+     */
+    public Map<RemovalCause, Long> getEvictionCounts() {
+        return evictionCounts;
+    }
+
+    public long getEvictionCount(RemovalCause cause) {
+        Long count = evictionCounts.get(cause);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount
+                + ", secondLevelHitCount=" + secondLevelHitCount + ", loadSuccessCount=" + loadSuccessCount + ", loadFailureCount=" + loadFailureCount
+                + ", totalLoadTime=" + totalLoadTime + ", evictionCounts=" + evictionCounts + '}';
+    }
+}
@@ -0,0 +1,12 @@
+package com.lianekai.util.cache;
+
+/**
+ * 有界Map淘汰条目时的回调，在Map的写操作中同步调用，不应执行耗时操作
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 16:12
+ */
+public interface EvictionListener<K, V> {
+    void onEviction(K key, V value, RemovalCause cause);
+}
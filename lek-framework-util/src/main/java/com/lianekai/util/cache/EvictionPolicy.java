@@ -0,0 +1,52 @@
+package com.lianekai.util.cache;
+
+import java.util.Map;
+
+/**
+ * 缓存淘汰策略
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 14:50
+ */
+public enum EvictionPolicy {
+
+    /**最近最少使用，见{@link LRUMap}*/
+    LRU {
+        @Override
+        public <K, V> Map<K, V> newMap(int maximumSize, EvictionListener<K, V> evictionListener) {
+            LRUMap<K, V> map = new LRUMap<>(maximumSize);
+            map.setEvictionListener(evictionListener);
+            return map;
+        }
+    },
+
+    /**窗口LRU + 按频率准入的分段LRU，能抵抗批量扫描，见{@link TinyLfuMap}*/
+    TINY_LFU {
+        @Override
+        public <K, V> Map<K, V> newMap(int maximumSize, EvictionListener<K, V> evictionListener) {
+            TinyLfuMap<K, V> map = new TinyLfuMap<>(maximumSize);
+            map.setEvictionListener(evictionListener);
+            return map;
+        }
+    };
+
+    /**
+     * 创建使用该策略的有界Map，非线程安全
+     *
+     * @param maximumSize 最大数量
+     * @return 有界Map
+     */
+    public <K, V> Map<K, V> newMap(int maximumSize) {
+        return newMap(maximumSize, null);
+    }
+
+    /**
+     * 创建使用该策略的有界Map，非线程安全
+     *
+     * @param maximumSize 最大数量
+     * @param evictionListener 淘汰回调，可以为null
+     * @return 有界Map
+     */
+    public abstract <K, V> Map<K, V> newMap(int maximumSize, EvictionListener<K, V> evictionListener);
+}
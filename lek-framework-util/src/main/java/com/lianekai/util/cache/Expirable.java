@@ -0,0 +1,20 @@
+package com.lianekai.util.cache;
+
+/**
+ * 可过期的缓存值
+ * LRUMap中的值实现该接口时，淘汰最老条目以及清理过期条目时会检查是否过期
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 11:05
+ */
+public interface Expirable {
+
+    /**
+     * 是否已过期
+     *
+     * @param now 当前时间，System.nanoTime()
+     * @return true 已过期
+     */
+    boolean isExpired(long now);
+}
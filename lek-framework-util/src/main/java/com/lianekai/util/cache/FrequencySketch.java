@@ -0,0 +1,105 @@
+package com.lianekai.util.cache;
+
+/**
+ * 4位Count-Min Sketch频率估计器
+ * 每个long存放16个4位计数器，每个key在4行中各占一个计数器，估计值取最小值(最大15)；
+ * 累计增加次数达到采样数时所有计数器减半(老化)，使频率能反映最近的访问情况
+ * 非线程安全，由调用方加锁
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 14:05
+ */
+class FrequencySketch {
+
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**老化时右移一位后清除每个计数器的最高位，防止相邻计数器的低位移入*/
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**每个计数器的最低位，用于统计老化时被截断的奇数*/
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    private final int sampleSize;
+
+    private int size;
+
+    FrequencySketch(int maximumSize) {
+        int capacity = Math.max(1, maximumSize);
+        int tableSize = capacity >= (1 << 30) ? (1 << 30) : Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new long[Math.max(1, tableSize)];
+        this.tableMask = table.length - 1;
+        this.sampleSize = 10 * capacity;
+    }
+
+    /**
+     * 估计key的访问频率
+     *
+     * @param key key
+     * @return 频率，0~15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 访问频率加1，计数器已到15时不再增加
+     *
+     * @param key key
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEED[row]) * SEED[row];
+        h += (h >>> 32);
+        return ((int) h) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
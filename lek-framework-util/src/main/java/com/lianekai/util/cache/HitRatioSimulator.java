@@ -0,0 +1,136 @@
+package com.lianekai.util.cache;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 命中率模拟器，回放记录的key访问序列，比较不同淘汰策略的命中率
+ * <pre>
+ * Map&lt;EvictionPolicy, HitRatioSimulator.Result&gt; results = HitRatioSimulator.compare(10000, Paths.get("access.log"));
+ * </pre>
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 15:10
+ */
+public class HitRatioSimulator {
+    private HitRatioSimulator() {
+    }
+
+    /**
+     * 以同一访问序列回放所有淘汰策略
+     *
+     * @param maximumSize 缓存容量
+     * @param trace key访问序列
+     * @return 各策略的模拟结果
+     */
+    public static <K> Map<EvictionPolicy, Result> compare(int maximumSize, Iterator<K> trace) {
+        EvictionPolicy[] policies = EvictionPolicy.values();
+        Map<EvictionPolicy, Map<K, Boolean>> maps = new EnumMap<>(EvictionPolicy.class);
+        Map<EvictionPolicy, Result> results = new EnumMap<>(EvictionPolicy.class);
+        for (EvictionPolicy policy : policies) {
+            maps.put(policy, policy.newMap(maximumSize));
+            results.put(policy, new Result(policy, maximumSize));
+        }
+        while (trace.hasNext()) {
+            K key = trace.next();
+            for (EvictionPolicy policy : policies) {
+                results.get(policy).record(access(maps.get(policy), key));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 回放访问日志文件，每行一个key，空行忽略
+     *
+     * @param maximumSize 缓存容量
+     * @param traceFile 访问日志文件
+     * @return 各策略的模拟结果
+     * @throws IOException 读取文件异常
+     */
+    public static Map<EvictionPolicy, Result> compare(int maximumSize, Path traceFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(traceFile, StandardCharsets.UTF_8)) {
+            return compare(maximumSize, reader.lines().map(String::trim).filter(line -> !line.isEmpty()).iterator());
+        }
+    }
+
+    /**
+     * 以单个淘汰策略回放访问序列
+     *
+     * @param policy 淘汰策略
+     * @param maximumSize 缓存容量
+     * @param trace key访问序列
+     * @return 模拟结果
+     */
+    public static <K> Result simulate(EvictionPolicy policy, int maximumSize, Iterator<K> trace) {
+        Map<K, Boolean> map = policy.newMap(maximumSize);
+        Result result = new Result(policy, maximumSize);
+        while (trace.hasNext()) {
+            result.record(access(map, trace.next()));
+        }
+        return result;
+    }
+
+    private static <K> boolean access(Map<K, Boolean> map, K key) {
+        if (map.get(key) != null) {
+            return true;
+        }
+        map.put(key, Boolean.TRUE);
+        return false;
+    }
+
+    /**
+     * 模拟结果
+     */
+    public static class Result {
+
+        private final EvictionPolicy policy;
+
+        private final int maximumSize;
+
+        private long requests;
+
+        private long hits;
+
+        Result(EvictionPolicy policy, int maximumSize) {
+            this.policy = policy;
+            this.maximumSize = maximumSize;
+        }
+
+        private void record(boolean hit) {
+            requests++;
+            if (hit) {
+                hits++;
+            }
+        }
+
+        public EvictionPolicy getPolicy() {
+            return policy;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public double getHitRatio() {
+            return requests == 0 ? 1.0D : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(size=%d): requests=%d, hits=%d, hitRatio=%.2f%%",
+                    policy, maximumSize, requests, hits, getHitRatio() * 100);
+        }
+    }
+}
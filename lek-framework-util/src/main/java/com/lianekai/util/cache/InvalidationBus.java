@@ -0,0 +1,33 @@
+package com.lianekai.util.cache;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效通道，多实例部署时把一个实例上的失效广播给其他实例，见{@link NearCache}
+ * 内置实现：进程内的{@link LocalInvalidationBus}，基于UDP组播或单播的{@link UdpInvalidationBus}
+ * 消息可能重复、乱序或丢失；失效是幂等的删除，重复或乱序只是多删一次，丢失的消息由缓存自身的过期时间兜底
+ * 消息中的版本号只在同一发布方内有序，各实例的时钟不同，不能跨实例比较，订阅方不据此丢弃消息
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 11:00
+ */
+public interface InvalidationBus extends Closeable {
+
+    /**
+     * 发布失效消息
+     *
+     * @param message 失效消息
+     */
+    void publish(InvalidationMessage message);
+
+    /**
+     * 订阅失效消息，包括自己发布的消息，订阅方自行按来源过滤
+     *
+     * @param listener 消息处理方法，在通道的接收线程中调用，不应阻塞
+     */
+    void subscribe(Consumer<InvalidationMessage> listener);
+
+    void unsubscribe(Consumer<InvalidationMessage> listener);
+}
@@ -0,0 +1,169 @@
+package com.lianekai.util.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 批量失效消息，包含来源、缓存名称以及编码后的key与对应的版本号
+ * all为true时表示清空整个缓存，此时keys为空
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 11:00
+ */
+public final class InvalidationMessage {
+
+    private static final int MAGIC = 0x4C454B49;
+
+    private final String source;
+
+    private final String cacheName;
+
+    private final boolean all;
+
+    private final long allVersion;
+
+    private final byte[][] keys;
+
+    private final long[] versions;
+
+    private InvalidationMessage(String source, String cacheName, boolean all, long allVersion,
+                                byte[][] keys, long[] versions) {
+        this.source = Objects.requireNonNull(source, "source");
+        this.cacheName = Objects.requireNonNull(cacheName, "cacheName");
+        this.all = all;
+        this.allVersion = allVersion;
+        this.keys = keys;
+        this.versions = versions;
+    }
+
+    /**
+     * @param source 发布方标识
+     * @param cacheName 缓存名称
+     * @param keys 编码后的key
+     * @param versions 与key一一对应的版本号，只在同一发布方内有序，不能跨实例比较
+     */
+    public static InvalidationMessage keys(String source, String cacheName, byte[][] keys, long[] versions) {
+        if (keys.length != versions.length) {
+            throw new IllegalArgumentException("keys and versions must have the same length");
+        }
+        return new InvalidationMessage(source, cacheName, false, 0, keys, versions);
+    }
+
+    /**
+     * @param source 发布方标识
+     * @param cacheName 缓存名称
+     * @param version 版本号
+     */
+    public static InvalidationMessage all(String source, String cacheName, long version) {
+        return new InvalidationMessage(source, cacheName, true, version, new byte[0][], new long[0]);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    public long getAllVersion() {
+        return allVersion;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public byte[] getKey(int index) {
+        return keys[index];
+    }
+
+    public long getVersion(int index) {
+        return versions[index];
+    }
+
+    /**
+     * 按序列化后的大小拆分，用于数据报等有长度限制的通道
+     *
+     * @param maxBytes 单条消息序列化后的最大字节数
+     * @return 拆分后的消息，单个key超过限制时该key单独成一条
+     */
+    public InvalidationMessage[] split(int maxBytes) {
+        if (all || keys.length <= 1 || toBytes().length <= maxBytes) {
+            return new InvalidationMessage[]{this};
+        }
+        int half = keys.length / 2;
+        InvalidationMessage[] first = keys(source, cacheName,
+                Arrays.copyOfRange(keys, 0, half), Arrays.copyOfRange(versions, 0, half)).split(maxBytes);
+        InvalidationMessage[] second = keys(source, cacheName,
+                Arrays.copyOfRange(keys, half, keys.length), Arrays.copyOfRange(versions, half, versions.length))
+                .split(maxBytes);
+        InvalidationMessage[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + keys.length * 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeUTF(source);
+            out.writeUTF(cacheName);
+            out.writeBoolean(all);
+            out.writeLong(allVersion);
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                out.writeInt(keys[i].length);
+                out.write(keys[i]);
+                out.writeLong(versions[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException 不是失效消息或数据不完整
+     */
+    public static InvalidationMessage fromBytes(byte[] data, int offset, int length) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not an invalidation message");
+            }
+            String source = in.readUTF();
+            String cacheName = in.readUTF();
+            boolean all = in.readBoolean();
+            long allVersion = in.readLong();
+            int count = in.readInt();
+            if (count < 0 || count > length) {
+                throw new IllegalArgumentException("Corrupted invalidation message");
+            }
+            byte[][] keys = new byte[count][];
+            long[] versions = new long[count];
+            for (int i = 0; i < count; i++) {
+                int keyLength = in.readInt();
+                if (keyLength < 0 || keyLength > length) {
+                    throw new IllegalArgumentException("Corrupted invalidation message");
+                }
+                keys[i] = new byte[keyLength];
+                in.readFully(keys[i]);
+                versions[i] = in.readLong();
+            }
+            return new InvalidationMessage(source, cacheName, all, allVersion, keys, versions);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupted invalidation message", e);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.lianekai.util.cache;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * 基于LinkedHashMap实现，最近访问优先的LRU缓存  LRU是Least Recently Used的缩写--最近最少使用，是一种常用的页面置换算法
+ * 值实现{@link Expirable}时，写入时会顺带淘汰已过期的最老条目，也可以调用{@link #removeExpired(long, int)}分批清理
  *
  * @author lianekai
  * @version: 1.0
@@ -13,13 +15,59 @@ import java.util.Map;
 public class LRUMap<K,V> extends LinkedHashMap<K,V> {
     private int maxSize;
 
+    private EvictionListener<K, V> evictionListener;
+
     public LRUMap(int maxSize) {
         super(maxSize, 0.75F, true);
         this.maxSize = maxSize;
     }
 
+    /**
+     * 设置淘汰回调，超出容量或过期被移除时调用
+     *
+     * @param evictionListener 回调
+     */
+    public void setEvictionListener(EvictionListener<K, V> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
     @Override
     protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-        return (size() > this.maxSize);
+        RemovalCause cause = null;
+        V value = eldest.getValue();
+        if (size() > this.maxSize) {
+            cause = RemovalCause.SIZE;
+        } else if (value instanceof Expirable && ((Expirable) value).isExpired(System.nanoTime())) {
+            cause = RemovalCause.EXPIRED;
+        }
+        if (cause != null && evictionListener != null) {
+            evictionListener.onEviction(eldest.getKey(), value, cause);
+        }
+        return cause != null;
+    }
+
+    /**
+     * 从最久未访问的条目开始清理已过期的条目
+     *
+     * @param now 当前时间，System.nanoTime()
+     * @param limit 最多检查的条目数，小于等于0表示全部检查
+     * @return 清理的条目数
+     */
+    public int removeExpired(long now, int limit) {
+        int removed = 0;
+        int checked = 0;
+        Iterator<Map.Entry<K, V>> iterator = entrySet().iterator();
+        while (iterator.hasNext() && (limit <= 0 || checked++ < limit)) {
+            Map.Entry<K, V> entry = iterator.next();
+            V value = entry.getValue();
+            if (value instanceof Expirable && ((Expirable) value).isExpired(now)) {
+                iterator.remove();
+                removed++;
+                if (evictionListener != null) {
+                    evictionListener.onEviction(entry.getKey(), value, RemovalCause.EXPIRED);
+                }
+            }
+        }
+        return removed;
     }
 }
@@ -0,0 +1,47 @@
+package com.lianekai.util.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的失效通道，在发布线程中同步通知所有订阅方
+ * 用于单进程内多个缓存副本之间的同步，以及测试
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 11:00
+ */
+@Slf4j
+public class LocalInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<InvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        for (Consumer<InvalidationMessage> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                log.error("Cache Invalidation Listener Error", e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(Consumer<InvalidationMessage> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void close() {
+        listeners.clear();
+    }
+}
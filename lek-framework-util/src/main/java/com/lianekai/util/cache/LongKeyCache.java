@@ -0,0 +1,305 @@
+package com.lianekai.util.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * long类型key的本地缓存，适合以{@link com.lianekai.util.unique.SnowflakeIdWorker}生成的ID作为key的场景
+ * 与Cache&lt;Long, V&gt;相比不装箱key，也没有链表节点与条目对象：
+ * 每个分段以开放寻址(线性探测)的long[]保存key、Object[]保存value，删除时回移后续条目，不留墓碑
+ * 淘汰使用CLOCK算法，命中只设置访问标记，不修改任何链表，所以命中不产生对象分配，写入也只占用数组中的槽位
+ * 与{@link Cache}不同，并发未命中同一个key时loader可能被执行多次，先写入的结果生效
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 20:30
+ */
+public class LongKeyCache<V> {
+
+    /**单个分段的最小容量*/
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+
+    private final int segmentMask;
+
+    private final int segmentShift;
+
+    public LongKeyCache(int maximumSize) {
+        this(maximumSize, 16);
+    }
+
+    /**
+     * @param maximumSize 缓存最大数量
+     * @param concurrencyLevel 期望的分段数，会向下取整为2的幂
+     */
+    @SuppressWarnings("unchecked")
+    public LongKeyCache(int maximumSize, int concurrencyLevel) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel must be positive");
+        }
+        int segmentCount = Integer.highestOneBit(
+                Math.max(1, Math.min(concurrencyLevel, maximumSize / MIN_SEGMENT_CAPACITY)));
+        int segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment<>(segmentCapacity);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    /**
+     * 获取缓存，未命中时调用loader加载并放入缓存
+     * loader在分段锁之外执行，返回null时不缓存
+     *
+     * @param key 缓存key
+     * @param loader 加载方法，建议使用不捕获变量的lambda，避免每次调用都创建对象
+     * @return 缓存值
+     */
+    public V get(long key, LongFunction<? extends V> loader) {
+        int hash = hash(key);
+        Segment<V> segment = segmentFor(hash);
+        V value = segment.get(key, hash);
+        if (value != null) {
+            return value;
+        }
+        V loaded = loader.apply(key);
+        if (loaded == null) {
+            return null;
+        }
+        return segment.putIfAbsent(key, hash, loaded);
+    }
+
+    public V getIfPresent(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    public void put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        int hash = hash(key);
+        segmentFor(hash).put(key, hash, value);
+    }
+
+    public V invalidate(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    public void invalidateAll() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 分段使用hash的高位，分段内的表使用低位
+     */
+    private Segment<V> segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 开放寻址表，负载因子不超过0.5，value为null的槽位即为空槽
+     */
+    private static final class Segment<V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final long[] keys;
+
+        private final Object[] values;
+
+        /**CLOCK访问标记*/
+        private final boolean[] referenced;
+
+        private final int mask;
+
+        private final int capacity;
+
+        private int size;
+
+        /**CLOCK指针*/
+        private int hand;
+
+        Segment(int capacity) {
+            int length = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+            this.keys = new long[length];
+            this.values = new Object[length];
+            this.referenced = new boolean[length];
+            this.mask = length - 1;
+            this.capacity = capacity;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(long key, int hash) {
+            lock.lock();
+            try {
+                int index = indexOf(key, hash);
+                if (index < 0) {
+                    return null;
+                }
+                referenced[index] = true;
+                return (V) values[index];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(long key, int hash, V value) {
+            lock.lock();
+            try {
+                int index = indexOf(key, hash);
+                if (index >= 0) {
+                    values[index] = value;
+                    referenced[index] = true;
+                    return;
+                }
+                insert(key, hash, value);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return 已存在的值，不存在时写入并返回value
+         */
+        @SuppressWarnings("unchecked")
+        V putIfAbsent(long key, int hash, V value) {
+            lock.lock();
+            try {
+                int index = indexOf(key, hash);
+                if (index >= 0) {
+                    referenced[index] = true;
+                    return (V) values[index];
+                }
+                insert(key, hash, value);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V remove(long key, int hash) {
+            lock.lock();
+            try {
+                int index = indexOf(key, hash);
+                if (index < 0) {
+                    return null;
+                }
+                V value = (V) values[index];
+                delete(index);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                Arrays.fill(values, null);
+                Arrays.fill(referenced, false);
+                size = 0;
+                hand = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int indexOf(long key, int hash) {
+            int index = hash & mask;
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(long key, int hash, V value) {
+            if (size >= capacity) {
+                evict();
+            }
+            int index = hash & mask;
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            //新条目不设置访问标记，只被访问一次的条目在下一轮即可淘汰
+            referenced[index] = false;
+            size++;
+        }
+
+        /**
+         * CLOCK：指针扫过的条目若有访问标记则清除标记给第二次机会，否则淘汰
+         * 删除会把后续条目回移到当前槽位，所以淘汰后指针停在原地
+         */
+        private void evict() {
+            while (true) {
+                if (values[hand] != null) {
+                    if (!referenced[hand]) {
+                        delete(hand);
+                        return;
+                    }
+                    referenced[hand] = false;
+                }
+                hand = (hand + 1) & mask;
+            }
+        }
+
+        /**
+         * 线性探测的回移删除，把探测链上可以前移的条目移到空出的槽位
+         */
+        private void delete(int index) {
+            int gap = index;
+            int next = (gap + 1) & mask;
+            while (values[next] != null) {
+                int home = hash(keys[next]) & mask;
+                //home不在(gap, next]区间内时，条目可以移动到gap
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    referenced[gap] = referenced[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            values[gap] = null;
+            referenced[gap] = false;
+            size--;
+        }
+    }
+}
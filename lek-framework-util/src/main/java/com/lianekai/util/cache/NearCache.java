@@ -0,0 +1,244 @@
+package com.lianekai.util.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 多实例部署下的近端缓存，本地{@link Cache}加上{@link InvalidationBus}失效通道
+ * 本实例写入或失效某个key时，通过通道通知其他实例删除各自的副本，下次访问时重新加载
+ * 失效消息先在本地合并：同一个key在合并窗口内只发送一次，窗口结束或攒够一批时一起发送，写入突增时不会刷屏
+ * 每个失效带有发送方的版本号(毫秒时间戳左移16位再递增)，只在同一发送方内有序；各实例的时钟不同，版本号不能跨实例比较，
+ * 接收方不据此去重，重复或乱序的失效只是多删一次
+ * 通道不保证送达，丢失的失效由缓存的过期时间兜底，需要强一致的数据不应使用近端缓存
+ * <pre>
+ * NearCache&lt;Long, User&gt; users = new NearCache&lt;&gt;(cache, "user", bus, CacheCodecs.LONG);
+ * users.put(user.getId(), user);   //其他实例上的该key被删除
+ * </pre>
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 11:40
+ */
+@Slf4j
+public class NearCache<K, V> implements Closeable {
+
+    /**所有近端缓存共用的发送线程*/
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lek-cache-invalidation-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicLong VERSION_CLOCK = new AtomicLong();
+
+    private final Cache<K, V> cache;
+
+    private final String name;
+
+    private final InvalidationBus bus;
+
+    private final CacheCodec<K> keyCodec;
+
+    /**本实例的标识，忽略自己发布的消息*/
+    private final String source = UUID.randomUUID().toString();
+
+    private final Consumer<InvalidationMessage> listener = this::onMessage;
+
+    private long coalesceNanos = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private int maxBatchSize = 512;
+
+    private final Object pendingLock = new Object();
+
+    /**等待发送的key与版本号*/
+    private Map<K, Long> pending = new HashMap<>();
+
+    /**等待发送的清空版本号，0表示没有*/
+    private long pendingAllVersion;
+
+    private boolean flushScheduled;
+
+    /**
+     * @param cache 本地缓存
+     * @param name 缓存名称，各实例上同一份数据的缓存名称相同
+     * @param bus 失效通道
+     * @param keyCodec key编解码器
+     */
+    public NearCache(Cache<K, V> cache, String name, InvalidationBus bus, CacheCodec<K> keyCodec) {
+        this.cache = Objects.requireNonNull(cache, "cache");
+        this.name = Objects.requireNonNull(name, "name");
+        this.bus = Objects.requireNonNull(bus, "bus");
+        this.keyCodec = Objects.requireNonNull(keyCodec, "keyCodec");
+        bus.subscribe(listener);
+    }
+
+    /**
+     * 失效消息的合并窗口，默认10毫秒，0表示立即发送
+     */
+    public NearCache<K, V> coalesce(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration must not be negative");
+        }
+        this.coalesceNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * 单条消息最多包含的key数量，攒够后不等合并窗口结束立即发送，默认512
+     */
+    public NearCache<K, V> maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public V get(K key, Callable<? extends V> loader) {
+        return cache.get(key, loader);
+    }
+
+    public V getIfPresent(K key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * 写入本地缓存，并通知其他实例删除该key
+     */
+    public void put(K key, V value) {
+        cache.put(key, value);
+        enqueue(key);
+    }
+
+    /**
+     * 删除本地缓存，并通知其他实例删除该key
+     */
+    public void invalidate(K key) {
+        cache.invalidate(key);
+        enqueue(key);
+    }
+
+    /**
+     * 清空本地缓存，并通知其他实例清空
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        synchronized (pendingLock) {
+            //清空覆盖之前等待发送的key
+            pending.clear();
+            pendingAllVersion = nextVersion();
+            scheduleFlush();
+        }
+    }
+
+    public Cache<K, V> getCache() {
+        return cache;
+    }
+
+    /**
+     * 立即发送等待中的失效消息
+     */
+    public void flush() {
+        Map<K, Long> batch;
+        long allVersion;
+        synchronized (pendingLock) {
+            batch = pending;
+            allVersion = pendingAllVersion;
+            pending = new HashMap<>();
+            pendingAllVersion = 0;
+            flushScheduled = false;
+        }
+        try {
+            if (allVersion != 0) {
+                bus.publish(InvalidationMessage.all(source, name, allVersion));
+            }
+            if (!batch.isEmpty()) {
+                byte[][] keys = new byte[batch.size()][];
+                long[] versions = new long[batch.size()];
+                int i = 0;
+                for (Map.Entry<K, Long> entry : batch.entrySet()) {
+                    keys[i] = keyCodec.encode(entry.getKey());
+                    versions[i++] = entry.getValue();
+                }
+                bus.publish(InvalidationMessage.keys(source, name, keys, versions));
+            }
+        } catch (Exception e) {
+            log.error("Cache Invalidation Publish Error, cache: {}", name, e);
+        }
+    }
+
+    /**
+     * 发送等待中的失效消息并取消订阅，不关闭共享的通道
+     */
+    @Override
+    public void close() {
+        flush();
+        bus.unsubscribe(listener);
+    }
+
+    private void enqueue(K key) {
+        boolean flushNow;
+        synchronized (pendingLock) {
+            pending.merge(key, nextVersion(), Math::max);
+            flushNow = coalesceNanos == 0 || pending.size() >= maxBatchSize;
+            if (!flushNow) {
+                scheduleFlush();
+            }
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            FLUSHER.schedule(this::flush, coalesceNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void onMessage(InvalidationMessage message) {
+        if (source.equals(message.getSource()) || !name.equals(message.getCacheName())) {
+            return;
+        }
+        if (message.isAll()) {
+            cache.invalidateAll();
+            return;
+        }
+        for (int i = 0; i < message.size(); i++) {
+            K key;
+            try {
+                key = keyCodec.decode(message.getKey(i));
+            } catch (RuntimeException e) {
+                log.error("Cache Invalidation Decode Error, cache: {}", name, e);
+                continue;
+            }
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 毫秒时间戳左移16位后单调递增，只在本实例内有序，用于排查消息的先后
+     */
+    private static long nextVersion() {
+        long now = System.currentTimeMillis() << 16;
+        while (true) {
+            long last = VERSION_CLOCK.get();
+            long next = Math.max(last + 1, now);
+            if (VERSION_CLOCK.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,697 @@
+package com.lianekai.util.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 堆外二级缓存，key/value编码后保存在堆外内存中，不占用Java堆，不增加GC停顿
+ * <p>
+ * 内存按1MB的页划分，页在首次使用时分配给某个固定大小的块(chunk)规格，每条记录占用一个能放下它的最小规格的块；
+ * 删除的块放回该规格的空闲链表复用，内存用满后按时钟指针轮转淘汰同规格的块。
+ * 索引为开放寻址的哈希表，只保存key字节的hash和记录地址，key的比较直接读取堆外内存，查询不会产生额外对象。
+ * 记录保存写入时间与过期时间，过期的记录查询时按不存在处理，之后被覆盖写入或淘汰时回收。
+ * <p>
+ * 使用{@link #mapped(Path, long, CacheCodec, CacheCodec)}时数据保存在内存映射文件中，重启后扫描文件重建索引；
+ * 记录先写内容再写状态，写到一半的记录在重建时会被忽略
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 10:00
+ */
+@Slf4j
+public class OffHeapStore<K, V> implements SecondLevelCache<K, V>, Closeable {
+
+    /**页大小*/
+    static final int PAGE_SIZE = 1 << 20;
+
+    /**页头：魔数 + 块规格下标*/
+    private static final int PAGE_HEADER = 8;
+
+    /**记录头增加写入与过期时间后更换了魔数，旧格式的页在恢复时丢弃*/
+    private static final int PAGE_MAGIC = 0x4C454B32;
+
+    /**页未分配给任何规格*/
+    private static final int UNASSIGNED = -1;
+
+    /**记录头：状态 + key长度 + value长度 + 写入时间 + 过期时间*/
+    private static final int RECORD_HEADER = 28;
+
+    private static final int STATUS_FREE = 0;
+
+    private static final int STATUS_LIVE = 1;
+
+    /**块规格，从64字节开始按1.25倍递增，最大为整页*/
+    private static final int[] CHUNK_SIZES = chunkSizes();
+
+    private static final byte[] ZERO_BLOCK = new byte[4096];
+
+    private static final long EMPTY = 0;
+
+    private static final long TOMBSTONE = -1;
+
+    private final CacheCodec<K> keyCodec;
+
+    private final CacheCodec<V> valueCodec;
+
+    private final FileChannel channel;
+
+    private final int maxPages;
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+
+    /**每页所属的块规格下标*/
+    private int[] pageClasses = new int[16];
+
+    /**已释放的空页*/
+    private final LongStack freePages = new LongStack();
+
+    private final SlabClass[] slabClasses = new SlabClass[CHUNK_SIZES.length];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Lock readLock = lock.readLock();
+
+    private final Lock writeLock = lock.writeLock();
+
+    /**开放寻址索引：key字节的hash与记录地址(页号 &lt;&lt; 32 | 页内偏移)*/
+    private int[] hashes;
+
+    private long[] addresses;
+
+    private int size;
+
+    /**已占用的槽位，包括墓碑*/
+    private int used;
+
+    private long rejectedCount;
+
+    private boolean closed;
+
+    private OffHeapStore(FileChannel channel, long maxBytes, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        if (maxBytes < PAGE_SIZE) {
+            throw new IllegalArgumentException("maxBytes must be at least " + PAGE_SIZE + ": " + maxBytes);
+        }
+        this.channel = channel;
+        this.maxPages = (int) Math.min(Integer.MAX_VALUE, maxBytes / PAGE_SIZE);
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        for (int i = 0; i < slabClasses.length; i++) {
+            slabClasses[i] = new SlabClass(CHUNK_SIZES[i]);
+        }
+        resetIndex(64);
+    }
+
+    /**
+     * 使用直接内存，进程退出后数据丢失
+     *
+     * @param maxBytes 最多占用的堆外内存字节数，至少1MB
+     * @param keyCodec key编解码器
+     * @param valueCodec value编解码器
+     */
+    public static <K, V> OffHeapStore<K, V> direct(long maxBytes, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        return new OffHeapStore<>(null, maxBytes, keyCodec, valueCodec);
+    }
+
+    /**
+     * 使用内存映射文件，文件已存在时加载其中的数据
+     *
+     * @param file 数据文件
+     * @param maxBytes 文件最大字节数，至少1MB
+     * @param keyCodec key编解码器
+     * @param valueCodec value编解码器
+     */
+    public static <K, V> OffHeapStore<K, V> mapped(Path file, long maxBytes,
+                                                   CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        try {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            OffHeapStore<K, V> store = new OffHeapStore<>(channel, maxBytes, keyCodec, valueCodec);
+            store.recover();
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return 未过期的值，不存在或已过期时返回null
+     */
+    public V get(K key) {
+        Entry<V> entry = getEntry(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Override
+    public Entry<V> getEntry(K key) {
+        byte[] keyBytes = keyCodec.encode(key);
+        int hash = hash(keyBytes);
+        long writeTime;
+        long expireTime;
+        byte[] valueBytes;
+        readLock.lock();
+        try {
+            ensureOpen();
+            int slot = find(keyBytes, hash);
+            if (slot < 0) {
+                return null;
+            }
+            ByteBuffer page = pages.get(pageOf(addresses[slot]));
+            int offset = offsetOf(addresses[slot]);
+            writeTime = page.getLong(offset + 12);
+            expireTime = page.getLong(offset + 20);
+            if (expireTime > 0 && System.currentTimeMillis() >= expireTime) {
+                return null;
+            }
+            valueBytes = readValue(addresses[slot]);
+        } finally {
+            readLock.unlock();
+        }
+        return new Entry<>(valueCodec.decode(valueBytes), writeTime, expireTime);
+    }
+
+    /**
+     * 写入不过期的记录
+     */
+    public void put(K key, V value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * 写入记录，超过一页大小的记录不会保存
+     */
+    @Override
+    public void put(K key, V value, long expireAfterWriteMillis) {
+        if (expireAfterWriteMillis < 0) {
+            throw new IllegalArgumentException("expireAfterWriteMillis cannot be negative: " + expireAfterWriteMillis);
+        }
+        byte[] keyBytes = keyCodec.encode(key);
+        byte[] valueBytes = valueCodec.encode(value);
+        int slabClass = slabClassFor(RECORD_HEADER + keyBytes.length + valueBytes.length);
+        int hash = hash(keyBytes);
+        writeLock.lock();
+        try {
+            ensureOpen();
+            int slot = find(keyBytes, hash);
+            if (slot >= 0) {
+                free(addresses[slot]);
+                removeSlot(slot);
+            }
+            if (slabClass < 0) {
+                rejectedCount++;
+                return;
+            }
+            long address = allocate(slabClass);
+            if (address == EMPTY) {
+                rejectedCount++;
+                return;
+            }
+            long now = System.currentTimeMillis();
+            writeRecord(address, keyBytes, valueBytes, now, expireAfterWriteMillis > 0 ? now + expireAfterWriteMillis : 0);
+            insert(hash, address);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        byte[] keyBytes = keyCodec.encode(key);
+        int hash = hash(keyBytes);
+        writeLock.lock();
+        try {
+            ensureOpen();
+            int slot = find(keyBytes, hash);
+            if (slot >= 0) {
+                free(addresses[slot]);
+                removeSlot(slot);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            ensureOpen();
+            freePages.clear();
+            for (int page = pages.size() - 1; page >= 0; page--) {
+                pages.get(page).putInt(4, UNASSIGNED);
+                pageClasses[page] = UNASSIGNED;
+                freePages.push(page);
+            }
+            for (SlabClass slabClass : slabClasses) {
+                slabClass.reset();
+            }
+            resetIndex(64);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * 已分配的堆外内存字节数
+     */
+    public long allocatedBytes() {
+        readLock.lock();
+        try {
+            return (long) pages.size() * PAGE_SIZE;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * 因记录过大或无法分配而未保存的次数
+     */
+    public long rejectedCount() {
+        readLock.lock();
+        try {
+            return rejectedCount;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * 映射文件模式下把数据刷到磁盘并关闭文件，直接内存模式下释放引用等待GC回收
+     * 空页与各块规格的空闲块都指向已释放的页，一并清空；关闭后读写抛出IllegalStateException，重复关闭忽略
+     */
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (channel != null) {
+                    for (ByteBuffer page : pages) {
+                        ((MappedByteBuffer) page).force();
+                    }
+                    channel.close();
+                }
+            } finally {
+                pages.clear();
+                freePages.clear();
+                for (SlabClass slabClass : slabClasses) {
+                    slabClass.reset();
+                }
+                resetIndex(64);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("OffHeapStore is closed");
+        }
+    }
+
+    // ==============================Index==========================================
+
+    private int find(byte[] keyBytes, int hash) {
+        int mask = addresses.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long address = addresses[slot];
+            if (address == EMPTY) {
+                return -1;
+            }
+            if (address != TOMBSTONE && hashes[slot] == hash && keyEquals(address, keyBytes)) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(int hash, long address) {
+        if ((used + 1) * 4L > addresses.length * 3L) {
+            rehash();
+        }
+        int mask = addresses.length - 1;
+        int slot = hash & mask;
+        while (addresses[slot] != EMPTY && addresses[slot] != TOMBSTONE) {
+            slot = (slot + 1) & mask;
+        }
+        if (addresses[slot] == EMPTY) {
+            used++;
+        }
+        hashes[slot] = hash;
+        addresses[slot] = address;
+        size++;
+    }
+
+    private void removeSlot(int slot) {
+        addresses[slot] = TOMBSTONE;
+        size--;
+    }
+
+    /**
+     * 按记录地址删除索引，淘汰时使用
+     */
+    private void removeAddress(long address) {
+        int hash = hash(readKey(address));
+        int mask = addresses.length - 1;
+        for (int slot = hash & mask; addresses[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (addresses[slot] == address) {
+                removeSlot(slot);
+                return;
+            }
+        }
+    }
+
+    private void rehash() {
+        int[] oldHashes = hashes;
+        long[] oldAddresses = addresses;
+        int capacity = Integer.highestOneBit(Math.max(64, size * 4) - 1) << 1;
+        resetIndex(capacity);
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] != EMPTY && oldAddresses[i] != TOMBSTONE) {
+                insert(oldHashes[i], oldAddresses[i]);
+            }
+        }
+    }
+
+    private void resetIndex(int capacity) {
+        hashes = new int[capacity];
+        addresses = new long[capacity];
+        size = 0;
+        used = 0;
+    }
+
+    // ==============================Memory==========================================
+
+    private long allocate(int slabClassIndex) {
+        SlabClass slabClass = slabClasses[slabClassIndex];
+        if (!slabClass.freeChunks.isEmpty()) {
+            return slabClass.freeChunks.pop();
+        }
+        if (slabClass.carvePage < 0 || slabClass.carveOffset + slabClass.chunkSize > PAGE_SIZE) {
+            int page = newPage(slabClassIndex);
+            if (page >= 0) {
+                slabClass.pages.push(page);
+                slabClass.carvePage = page;
+                slabClass.carveOffset = PAGE_HEADER;
+            } else {
+                return evict(slabClass);
+            }
+        }
+        long address = address(slabClass.carvePage, slabClass.carveOffset);
+        slabClass.carveOffset += slabClass.chunkSize;
+        return address;
+    }
+
+    private int newPage(int slabClassIndex) {
+        int page;
+        if (!freePages.isEmpty()) {
+            page = (int) freePages.pop();
+            //复用的页可能残留旧规格的记录状态，先清零；通过Buffer调用，Java 9新增的ByteBuffer重载在Java 8上不存在
+            ByteBuffer buffer = pages.get(page).duplicate();
+            ((Buffer) buffer).clear();
+            while (buffer.hasRemaining()) {
+                buffer.put(ZERO_BLOCK, 0, Math.min(ZERO_BLOCK.length, buffer.remaining()));
+            }
+        } else if (pages.size() < maxPages) {
+            page = pages.size();
+            pages.add(mapPage(page));
+            if (page >= pageClasses.length) {
+                pageClasses = Arrays.copyOf(pageClasses, pageClasses.length * 2);
+            }
+        } else {
+            return -1;
+        }
+        ByteBuffer buffer = pages.get(page);
+        buffer.putInt(0, PAGE_MAGIC);
+        buffer.putInt(4, slabClassIndex);
+        pageClasses[page] = slabClassIndex;
+        return page;
+    }
+
+    /**
+     * 时钟指针在该规格的所有块上轮转，淘汰遇到的第一个有效记录
+     */
+    private long evict(SlabClass slabClass) {
+        int pageCount = slabClass.pages.size();
+        if (pageCount == 0) {
+            return EMPTY;
+        }
+        int chunksPerPage = (PAGE_SIZE - PAGE_HEADER) / slabClass.chunkSize;
+        for (int i = 0, total = pageCount * chunksPerPage; i < total; i++) {
+            int hand = slabClass.hand;
+            slabClass.hand = (hand + 1) % (pageCount * chunksPerPage);
+            int page = (int) slabClass.pages.get(hand / chunksPerPage);
+            long address = address(page, PAGE_HEADER + (hand % chunksPerPage) * slabClass.chunkSize);
+            if (statusOf(address) == STATUS_LIVE) {
+                removeAddress(address);
+                setStatus(address, STATUS_FREE);
+                return address;
+            }
+        }
+        return EMPTY;
+    }
+
+    private void free(long address) {
+        setStatus(address, STATUS_FREE);
+        slabClasses[pageClasses[pageOf(address)]].freeChunks.push(address);
+    }
+
+    private ByteBuffer mapPage(int page) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(PAGE_SIZE);
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) page * PAGE_SIZE, PAGE_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 扫描映射文件，重建页规格、空闲块与索引
+     */
+    private void recover() throws IOException {
+        long pageCount = Math.min(maxPages, channel.size() / PAGE_SIZE);
+        for (int page = 0; page < pageCount; page++) {
+            ByteBuffer buffer = mapPage(page);
+            pages.add(buffer);
+            if (page >= pageClasses.length) {
+                pageClasses = Arrays.copyOf(pageClasses, pageClasses.length * 2);
+            }
+            int slabClassIndex = buffer.getInt(4);
+            if (buffer.getInt(0) != PAGE_MAGIC || slabClassIndex < 0 || slabClassIndex >= slabClasses.length) {
+                buffer.putInt(4, UNASSIGNED);
+                pageClasses[page] = UNASSIGNED;
+                freePages.push(page);
+                continue;
+            }
+            pageClasses[page] = slabClassIndex;
+            SlabClass slabClass = slabClasses[slabClassIndex];
+            slabClass.pages.push(page);
+            for (int offset = PAGE_HEADER; offset + slabClass.chunkSize <= PAGE_SIZE; offset += slabClass.chunkSize) {
+                long address = address(page, offset);
+                if (statusOf(address) == STATUS_LIVE && recordFits(address, slabClass.chunkSize)) {
+                    insert(hash(readKey(address)), address);
+                } else {
+                    setStatus(address, STATUS_FREE);
+                    slabClass.freeChunks.push(address);
+                }
+            }
+        }
+        log.info("OffHeapStore recovered {} entries from {} pages", size, pages.size());
+    }
+
+    // ==============================Record==========================================
+
+    private void writeRecord(long address, byte[] keyBytes, byte[] valueBytes, long writeTime, long expireTime) {
+        ByteBuffer buffer = view(address);
+        buffer.putInt(STATUS_FREE).putInt(keyBytes.length).putInt(valueBytes.length).putLong(writeTime)
+                .putLong(expireTime).put(keyBytes).put(valueBytes);
+        setStatus(address, STATUS_LIVE);
+    }
+
+    private boolean keyEquals(long address, byte[] keyBytes) {
+        ByteBuffer page = pages.get(pageOf(address));
+        int offset = offsetOf(address);
+        if (page.getInt(offset + 4) != keyBytes.length) {
+            return false;
+        }
+        int start = offset + RECORD_HEADER;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (page.get(start + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] readKey(long address) {
+        ByteBuffer buffer = view(address);
+        byte[] keyBytes = new byte[buffer.getInt(offsetOf(address) + 4)];
+        ((Buffer) buffer).position(offsetOf(address) + RECORD_HEADER);
+        buffer.get(keyBytes);
+        return keyBytes;
+    }
+
+    private byte[] readValue(long address) {
+        ByteBuffer buffer = view(address);
+        int offset = offsetOf(address);
+        int keyLength = buffer.getInt(offset + 4);
+        byte[] valueBytes = new byte[buffer.getInt(offset + 8)];
+        ((Buffer) buffer).position(offset + RECORD_HEADER + keyLength);
+        buffer.get(valueBytes);
+        return valueBytes;
+    }
+
+    private boolean recordFits(long address, int chunkSize) {
+        ByteBuffer page = pages.get(pageOf(address));
+        int offset = offsetOf(address);
+        long length = (long) RECORD_HEADER + page.getInt(offset + 4) + page.getInt(offset + 8);
+        return page.getInt(offset + 4) >= 0 && page.getInt(offset + 8) >= 0 && length <= chunkSize;
+    }
+
+    private int statusOf(long address) {
+        return pages.get(pageOf(address)).getInt(offsetOf(address));
+    }
+
+    private void setStatus(long address, int status) {
+        pages.get(pageOf(address)).putInt(offsetOf(address), status);
+    }
+
+    /**
+     * 定位到记录起始位置的独立视图，并发读取互不影响position
+     */
+    private ByteBuffer view(long address) {
+        ByteBuffer buffer = pages.get(pageOf(address)).duplicate();
+        ((Buffer) buffer).position(offsetOf(address));
+        return buffer;
+    }
+
+    private static long address(int page, int offset) {
+        return ((long) page << 32) | offset;
+    }
+
+    private static int pageOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private static int slabClassFor(int recordSize) {
+        for (int i = 0; i < CHUNK_SIZES.length; i++) {
+            if (CHUNK_SIZES[i] >= recordSize) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int hash(byte[] bytes) {
+        int h = Arrays.hashCode(bytes) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] chunkSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        int max = PAGE_SIZE - PAGE_HEADER;
+        for (int size = 64; size <= max / 2; size = ((int) (size * 1.25) + 7) & ~7) {
+            sizes.add(size);
+        }
+        sizes.add(max);
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 同一规格的块：所属页、空闲块、切分位置与淘汰指针
+     */
+    private static class SlabClass {
+
+        private final int chunkSize;
+
+        private final LongStack pages = new LongStack();
+
+        private final LongStack freeChunks = new LongStack();
+
+        private int carvePage = -1;
+
+        private int carveOffset;
+
+        private int hand;
+
+        SlabClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        void reset() {
+            pages.clear();
+            freeChunks.clear();
+            carvePage = -1;
+            carveOffset = 0;
+            hand = 0;
+        }
+    }
+
+    /**
+     * long数组实现的栈，避免装箱
+     */
+    private static class LongStack {
+
+        private long[] values = new long[16];
+
+        private int size;
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long pop() {
+            return values[--size];
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
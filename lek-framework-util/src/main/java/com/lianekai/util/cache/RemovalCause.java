@@ -0,0 +1,20 @@
+package com.lianekai.util.cache;
+
+/**
+ * 缓存条目被移除的原因
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 16:10
+ */
+public enum RemovalCause {
+
+    /**调用invalidate/invalidateAll主动移除*/
+    EXPLICIT,
+
+    /**超出容量被淘汰，TinyLFU准入失败的新数据也计入此类*/
+    SIZE,
+
+    /**过期被清理*/
+    EXPIRED
+}
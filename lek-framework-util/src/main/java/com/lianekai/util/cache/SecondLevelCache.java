@@ -0,0 +1,66 @@
+package com.lianekai.util.cache;
+
+/**
+ * 二级缓存，一级缓存未命中时先查询二级缓存，再调用loader
+ * 通过{@link CacheBuilder#build(SecondLevelCache)}挂到{@link Cache}后面，实现需要线程安全
+ * 写入时带上一级缓存的写入过期时间，过期的记录按不存在处理；一级缓存按记录的写入时间回填，
+ * 回填的条目不会获得新的过期时间，refreshAfterWrite也按最初的写入时间触发
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 09:40
+ */
+public interface SecondLevelCache<K, V> {
+
+    /**
+     * @return 未过期的记录，不存在或已过期时返回null
+     */
+    Entry<V> getEntry(K key);
+
+    /**
+     * @param expireAfterWriteMillis 写入后过期时间(毫秒)，0表示不过期
+     */
+    void put(K key, V value, long expireAfterWriteMillis);
+
+    void remove(K key);
+
+    void clear();
+
+    /**
+     * 二级缓存中的记录
+     */
+    final class Entry<V> {
+
+        private final V value;
+
+        private final long writeTime;
+
+        private final long expireTime;
+
+        /**
+         * @param writeTime 写入时间，System.currentTimeMillis()
+         * @param expireTime 过期时间，System.currentTimeMillis()，0表示不过期
+         */
+        public Entry(V value, long writeTime, long expireTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+            this.expireTime = expireTime;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public long getWriteTime() {
+            return writeTime;
+        }
+
+        public long getExpireTime() {
+            return expireTime;
+        }
+
+        public boolean isExpired(long nowMillis) {
+            return expireTime > 0 && nowMillis >= expireTime;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.lianekai.util.cache;
+
+/**
+ * 缓存快照中条目的排序方式，快照从最热的条目开始写入，截断或提前结束恢复时保留的都是热点数据
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 21:20
+ */
+public enum SnapshotOrder {
+    /**按最近访问时间*/
+    RECENCY,
+    /**按访问频率，只有TinyLFU淘汰策略记录频率，其他策略按最近访问时间*/
+    FREQUENCY
+}
@@ -0,0 +1,110 @@
+package com.lianekai.util.cache;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存统计计数器
+ * 开启统计时使用LongAdder累加，高并发下无锁且不会争用同一个缓存行；
+ * 未开启时使用空实现，调用点只是一次空方法调用
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 16:15
+ */
+interface StatsCounter {
+
+    StatsCounter DISABLED = new StatsCounter() {
+    };
+
+    default void recordHits(int count) {
+    }
+
+    default void recordMisses(int count) {
+    }
+
+    default void recordSecondLevelHits(int count) {
+    }
+
+    default void recordLoadSuccess(long loadTime) {
+    }
+
+    default void recordLoadFailure(long loadTime) {
+    }
+
+    default void recordEviction(RemovalCause cause, int count) {
+    }
+
+    default CacheStats snapshot() {
+        return CacheStats.EMPTY;
+    }
+
+    /**
+     * 基于LongAdder的计数器
+     */
+    final class Concurrent implements StatsCounter {
+
+        private final LongAdder hitCount = new LongAdder();
+
+        private final LongAdder missCount = new LongAdder();
+
+        private final LongAdder secondLevelHitCount = new LongAdder();
+
+        private final LongAdder loadSuccessCount = new LongAdder();
+
+        private final LongAdder loadFailureCount = new LongAdder();
+
+        private final LongAdder totalLoadTime = new LongAdder();
+
+        private final LongAdder[] evictionCounts = new LongAdder[RemovalCause.values().length];
+
+        Concurrent() {
+            for (int i = 0; i < evictionCounts.length; i++) {
+                evictionCounts[i] = new LongAdder();
+            }
+        }
+
+        @Override
+        public void recordHits(int count) {
+            hitCount.add(count);
+        }
+
+        @Override
+        public void recordMisses(int count) {
+            missCount.add(count);
+        }
+
+        @Override
+        public void recordSecondLevelHits(int count) {
+            secondLevelHitCount.add(count);
+        }
+
+        @Override
+        public void recordLoadSuccess(long loadTime) {
+            loadSuccessCount.increment();
+            totalLoadTime.add(loadTime);
+        }
+
+        @Override
+        public void recordLoadFailure(long loadTime) {
+            loadFailureCount.increment();
+            totalLoadTime.add(loadTime);
+        }
+
+        @Override
+        public void recordEviction(RemovalCause cause, int count) {
+            evictionCounts[cause.ordinal()].add(count);
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            Map<RemovalCause, Long> evictions = new EnumMap<>(RemovalCause.class);
+            for (RemovalCause cause : RemovalCause.values()) {
+                evictions.put(cause, evictionCounts[cause.ordinal()].sum());
+            }
+            return new CacheStats(hitCount.sum(), missCount.sum(), secondLevelHitCount.sum(), loadSuccessCount.sum(),
+                    loadFailureCount.sum(), totalLoadTime.sum(), evictions);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.lianekai.util.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 基于W-TinyLFU的有界Map，用于替代LRUMap抵抗批量扫描对热点数据的冲刷
+ * 新数据先进入约占1%容量的窗口LRU，被窗口淘汰后与主区的淘汰候选比较访问频率，频率更高者才能进入主区；
+ * 主区分为试用区(probation)与保护区(protected)，试用区中再次被访问的数据晋升到保护区
+ * 访问频率只在get时累加，put不计数，未命中后写入加载结果不会把同一次访问计为多次
+ * 非线程安全，由调用方加锁
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 14:20
+ */
+public class TinyLfuMap<K, V> extends AbstractMap<K, V> {
+
+    /**窗口区占总容量的百分比*/
+    private static final int WINDOW_PERCENT = 1;
+
+    /**保护区占主区容量的百分比*/
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final int windowMaxSize;
+
+    private final int mainMaxSize;
+
+    private final int protectedMaxSize;
+
+    private final LinkedHashMap<K, V> window;
+
+    private final LinkedHashMap<K, V> probation;
+
+    private final LinkedHashMap<K, V> protectedRegion;
+
+    private final FrequencySketch sketch;
+
+    private EvictionListener<K, V> evictionListener;
+
+    public TinyLfuMap(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.windowMaxSize = Math.max(1, maxSize * WINDOW_PERCENT / 100);
+        this.mainMaxSize = maxSize - windowMaxSize;
+        this.protectedMaxSize = mainMaxSize * PROTECTED_PERCENT / 100;
+        this.window = new LinkedHashMap<>(16, 0.75F, true);
+        this.probation = new LinkedHashMap<>(16, 0.75F, true);
+        this.protectedRegion = new LinkedHashMap<>(16, 0.75F, true);
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    /**
+     * 设置淘汰回调，主区淘汰受害者或拒绝候选数据时调用
+     *
+     * @param evictionListener 回调
+     */
+    public void setEvictionListener(EvictionListener<K, V> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        sketch.increment(key);
+        return getQuietly(key);
+    }
+
+    /**
+     * 查询但不累加访问频率，用于同一次访问中的重复查询
+     */
+    public V getQuietly(Object key) {
+        if (key == null) {
+            return null;
+        }
+        V value = window.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = protectedRegion.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = probation.remove(key);
+        if (value != null) {
+            promote(cast(key), value);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return window.containsKey(key) || probation.containsKey(key) || protectedRegion.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        if (window.containsKey(key)) {
+            return window.put(key, value);
+        }
+        if (protectedRegion.containsKey(key)) {
+            return protectedRegion.put(key, value);
+        }
+        V old = probation.remove(key);
+        if (old != null) {
+            promote(key, value);
+            return old;
+        }
+        window.put(key, value);
+        if (window.size() > windowMaxSize) {
+            Map.Entry<K, V> candidate = removeEldest(window);
+            admit(candidate.getKey(), candidate.getValue());
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V value = window.remove(key);
+        if (value == null) {
+            value = probation.remove(key);
+        }
+        if (value == null) {
+            value = protectedRegion.remove(key);
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return window.size() + probation.size() + protectedRegion.size();
+    }
+
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedRegion.clear();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new RegionIterator();
+            }
+
+            @Override
+            public int size() {
+                return TinyLfuMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * 试用区的数据再次被访问，晋升到保护区，保护区超出容量时最久未访问的数据降回试用区
+     */
+    private void promote(K key, V value) {
+        protectedRegion.put(key, value);
+        if (protectedRegion.size() > protectedMaxSize) {
+            Map.Entry<K, V> demoted = removeEldest(protectedRegion);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    /**
+     * 窗口淘汰的候选数据与主区淘汰的受害者比较频率，只保留频率更高的一方
+     */
+    private void admit(K candidateKey, V candidateValue) {
+        if (probation.size() + protectedRegion.size() < mainMaxSize) {
+            probation.put(candidateKey, candidateValue);
+            return;
+        }
+        LinkedHashMap<K, V> victimRegion = probation.isEmpty() ? protectedRegion : probation;
+        if (victimRegion.isEmpty()) {
+            notifyEviction(candidateKey, candidateValue);
+            return;
+        }
+        K victimKey = victimRegion.keySet().iterator().next();
+        if (sketch.frequency(candidateKey) > sketch.frequency(victimKey)) {
+            notifyEviction(victimKey, victimRegion.remove(victimKey));
+            probation.put(candidateKey, candidateValue);
+        } else {
+            notifyEviction(candidateKey, candidateValue);
+        }
+    }
+
+    /**
+     * key的访问频率估计值
+     */
+    int frequency(Object key) {
+        return sketch.frequency(key);
+    }
+
+    private void notifyEviction(K key, V value) {
+        if (evictionListener != null) {
+            evictionListener.onEviction(key, value, RemovalCause.SIZE);
+        }
+    }
+
+    private Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> region) {
+        Iterator<Map.Entry<K, V>> iterator = region.entrySet().iterator();
+        Map.Entry<K, V> eldest = iterator.next();
+        Map.Entry<K, V> copy = new SimpleImmutableEntry<>(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K cast(Object key) {
+        return (K) key;
+    }
+
+    /**
+     * 依次遍历窗口区、试用区、保护区，每个区内从最久未访问的数据开始
+     */
+    private class RegionIterator implements Iterator<Entry<K, V>> {
+
+        private final Iterator<Entry<K, V>>[] iterators;
+
+        private int index;
+
+        private Iterator<Entry<K, V>> last;
+
+        @SuppressWarnings("unchecked")
+        RegionIterator() {
+            this.iterators = new Iterator[]{
+                    window.entrySet().iterator(), probation.entrySet().iterator(), protectedRegion.entrySet().iterator()};
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index < iterators.length) {
+                if (iterators[index].hasNext()) {
+                    return true;
+                }
+                index++;
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = iterators[index];
+            return last.next();
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            last.remove();
+            last = null;
+        }
+    }
+}
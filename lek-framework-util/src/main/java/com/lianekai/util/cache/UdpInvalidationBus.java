@@ -0,0 +1,160 @@
+package com.lianekai.util.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.SocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 基于UDP的失效通道
+ * 组播模式下所有实例加入同一个组播地址，适用于同一网段内的部署；
+ * 单播模式下逐个发送给配置的对端地址，组播不可用的环境或单机多进程测试时使用
+ * 超过单个数据报长度的消息会被拆分发送，UDP不保证送达，订阅方依赖缓存过期兜底
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 11:20
+ */
+@Slf4j
+public class UdpInvalidationBus implements InvalidationBus {
+
+    /**单个数据报的最大长度，留出IP与UDP头部的空间*/
+    static final int MAX_DATAGRAM = 60 * 1024;
+
+    private final DatagramSocket socket;
+
+    private final List<SocketAddress> targets = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<InvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    private final Thread receiver;
+
+    private volatile boolean closed;
+
+    private UdpInvalidationBus(DatagramSocket socket, Collection<? extends SocketAddress> targets) {
+        this.socket = socket;
+        this.targets.addAll(targets);
+        this.receiver = new Thread(this::receive, "lek-cache-invalidation-" + socket.getLocalPort());
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    /**
+     * 组播模式，TTL为1，消息不会离开本网段
+     *
+     * @param group 组播地址，例如239.255.27.1
+     * @param port 端口，所有实例相同
+     */
+    public static UdpInvalidationBus multicast(String group, int port) {
+        try {
+            InetAddress address = InetAddress.getByName(group);
+            if (!address.isMulticastAddress()) {
+                throw new IllegalArgumentException(group + " is not a multicast address");
+            }
+            MulticastSocket socket = new MulticastSocket(port);
+            socket.setTimeToLive(1);
+            socket.joinGroup(address);
+            return new UdpInvalidationBus(socket, Collections.singletonList(new InetSocketAddress(address, port)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 单播模式
+     *
+     * @param bind 本地监听地址，端口为0时随机分配
+     * @param peers 其他实例的监听地址，之后可以通过{@link #addPeer(SocketAddress)}追加
+     */
+    public static UdpInvalidationBus unicast(InetSocketAddress bind, Collection<? extends SocketAddress> peers) {
+        try {
+            return new UdpInvalidationBus(new DatagramSocket(bind), peers);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void addPeer(SocketAddress peer) {
+        targets.add(peer);
+    }
+
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        for (InvalidationMessage part : message.split(MAX_DATAGRAM)) {
+            byte[] data = part.toBytes();
+            if (data.length > MAX_DATAGRAM) {
+                log.warn("Cache Invalidation dropped, key too large: {} bytes", data.length);
+                continue;
+            }
+            for (SocketAddress target : targets) {
+                try {
+                    socket.send(new DatagramPacket(data, data.length, target));
+                } catch (IOException e) {
+                    log.error("Cache Invalidation Send Error, target: {}", target, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(Consumer<InvalidationMessage> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        socket.close();
+        listeners.clear();
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_DATAGRAM];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!closed) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (!closed) {
+                    log.error("Cache Invalidation Receive Error", e);
+                }
+                continue;
+            }
+            InvalidationMessage message;
+            try {
+                message = InvalidationMessage.fromBytes(packet.getData(), packet.getOffset(), packet.getLength());
+            } catch (IllegalArgumentException e) {
+                log.warn("Cache Invalidation ignored invalid datagram from {}", packet.getSocketAddress());
+                continue;
+            }
+            for (Consumer<InvalidationMessage> listener : listeners) {
+                try {
+                    listener.accept(message);
+                } catch (Exception e) {
+                    log.error("Cache Invalidation Listener Error", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.lianekai.util.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 把保存缓存值的Map适配为分段需要的条目Map，用于{@link Cache#Cache(Map)}
+ * 传入的Map中保存的始终是缓存值本身，读取时临时包装为不过期的条目，写入时只保存值；
+ * 条目上的写入与访问时间不会保留，所以这种存储不支持过期
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 22:30
+ */
+class ValueMapAdapter<K, V> extends AbstractMap<K, CacheEntry<V>> {
+
+    private final Map<K, V> values;
+
+    ValueMapAdapter(Map<K, V> values) {
+        this.values = Objects.requireNonNull(values, "cacheMap");
+    }
+
+    @Override
+    public CacheEntry<V> get(Object key) {
+        return wrap(values.get(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public CacheEntry<V> put(K key, CacheEntry<V> entry) {
+        return wrap(values.put(key, entry.value));
+    }
+
+    @Override
+    public CacheEntry<V> remove(Object key) {
+        return wrap(values.remove(key));
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<K, CacheEntry<V>>> entrySet() {
+        return new AbstractSet<Map.Entry<K, CacheEntry<V>>>() {
+            @Override
+            public Iterator<Map.Entry<K, CacheEntry<V>>> iterator() {
+                Iterator<Map.Entry<K, V>> iterator = values.entrySet().iterator();
+                return new Iterator<Map.Entry<K, CacheEntry<V>>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<K, CacheEntry<V>> next() {
+                        Map.Entry<K, V> entry = iterator.next();
+                        return new SimpleImmutableEntry<>(entry.getKey(), wrap(entry.getValue()));
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.size();
+            }
+        };
+    }
+
+    private CacheEntry<V> wrap(V value) {
+        return value == null ? null : new CacheEntry<>(value, System.nanoTime(), 0, 0);
+    }
+}
@@ -94,8 +94,10 @@ public class SystemUtils {
                 Enumeration<InetAddress> ips = netInterface.getInetAddresses();
                 while (ips.hasMoreElements()) {
                     ip = ips.nextElement();
-                    if (!ip.isLoopbackAddress() && ip.getHostAddress().matches("(\\d{1,3}\\.){3}\\d{1,3}")) {
-                        macList.add(getMacFromBytes(netInterface.getHardwareAddress()));
+                    byte[] hardwareAddress = netInterface.getHardwareAddress();
+                    if (hardwareAddress != null && !ip.isLoopbackAddress()
+                            && ip.getHostAddress().matches("(\\d{1,3}\\.){3}\\d{1,3}")) {
+                        macList.add(getMacFromBytes(hardwareAddress));
                     }
                 }
             }
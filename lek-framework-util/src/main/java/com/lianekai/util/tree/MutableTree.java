@@ -0,0 +1,323 @@
+package com.lianekai.util.tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 可增量修改的树，内部维护编码到节点、编码到父节点的索引，新增、移动、删除节点时不需要重新生成整棵树
+ * <pre>
+ * MutableTree&lt;Dept&gt; tree = MutableTree.of(Dept.class, deptMapper.selectAll());
+ * tree.onInsert((parent, dept) -&gt; cache.invalidate(parent.getId()));
+ * tree.insert(newDept);
+ * tree.move(newDept.getId(), otherParentId);
+ * </pre>
+ * 按编码查找节点与父节点为O(1)；挂载为O(1)，从原父节点的子节点集合中摘除与兄弟节点数量成正比；
+ * 移动时沿新父节点向上检查环，与深度成正比；删除与摘出子树需要清理子树的索引，与子树大小成正比
+ * 节点对象上的子节点集合与树同步修改，可以直接渲染；非线程安全，并发读写需要外部同步
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 19:00
+ */
+public class MutableTree<T> {
+
+    private final TreeNodeWrapper wrapper;
+
+    private final Map<Object, T> nodes = new HashMap<>();
+
+    /**编码到父节点，顶层节点不在其中*/
+    private final Map<Object, T> parents = new HashMap<>();
+
+    /**顶层节点，按加入顺序*/
+    private final Map<Object, T> roots = new LinkedHashMap<>();
+
+    private final List<TreeChangeListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    private MutableTree(Class<T> clazz) {
+        this.wrapper = TreeUtils.getWrapper(clazz);
+    }
+
+    /**
+     * 空树
+     */
+    public static <T> MutableTree<T> empty(Class<T> clazz) {
+        return new MutableTree<>(clazz);
+    }
+
+    /**
+     * 由所有节点生成树，父节点不在其中的节点作为顶层节点
+     *
+     * @throws IllegalArgumentException 节点编码为null、重复或者存在环
+     */
+    public static <T> MutableTree<T> of(Class<T> clazz, List<T> nodes) {
+        MutableTree<T> tree = new MutableTree<>(clazz);
+        for (T root : TreeUtils.buildTree(nodes)) {
+            tree.roots.put(tree.code(root), root);
+            tree.index(root);
+        }
+        return tree;
+    }
+
+    public MutableTree<T> addListener(TreeChangeListener<T> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+        return this;
+    }
+
+    public void removeListener(TreeChangeListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 新增节点后回调(父节点, 新节点)
+     */
+    public MutableTree<T> onInsert(TreeConsumer<T, T> consumer) {
+        return addListener(new TreeChangeListener<T>() {
+            @Override
+            public void inserted(T parent, T node) {
+                consumer.apply(parent, node);
+            }
+        });
+    }
+
+    /**
+     * 移动节点后回调(新父节点, 节点)
+     */
+    public MutableTree<T> onMove(TreeConsumer<T, T> consumer) {
+        return addListener(new TreeChangeListener<T>() {
+            @Override
+            public void moved(T oldParent, T newParent, T node) {
+                consumer.apply(newParent, node);
+            }
+        });
+    }
+
+    /**
+     * 删除或摘出子树后回调(原父节点, 子树的根)
+     */
+    public MutableTree<T> onRemove(TreeConsumer<T, T> consumer) {
+        return addListener(new TreeChangeListener<T>() {
+            @Override
+            public void removed(T parent, T node) {
+                consumer.apply(parent, node);
+            }
+        });
+    }
+
+    /**
+     * 新增叶子节点，挂到父编码对应的节点下，父编码为空时作为顶层节点
+     *
+     * @throws IllegalArgumentException 编码已存在或者父节点不存在
+     */
+    public void insert(T node) {
+        Object code = code(node);
+        if (nodes.containsKey(code)) {
+            throw new IllegalArgumentException("Tree node already exists: " + code);
+        }
+        Object parentCode = wrapper.getParentNodeCode(node);
+        T parent = TreeUtils.isTopCode(parentCode) ? null : requireNode(parentCode);
+        wrapper.setChildNodes(node, wrapper.newChildCollection(0));
+        nodes.put(code, node);
+        attach(parent, code, node);
+        for (TreeChangeListener<T> listener : listeners) {
+            listener.inserted(parent, node);
+        }
+    }
+
+    /**
+     * 把节点连同子树移到新的父节点下，并修改节点的父编码
+     *
+     * @param code 节点编码
+     * @param newParentCode 新的父编码，为null时移到顶层，类型与父编码字段一致
+     * @throws IllegalArgumentException 节点或新父节点不存在，或者新父节点是该节点自身或其后代
+     */
+    public void move(Object code, Object newParentCode) {
+        T node = requireNode(code);
+        Object key = wrapper.toKey(code);
+        T newParent = null;
+        if (!TreeUtils.isTopCode(newParentCode)) {
+            newParent = requireNode(newParentCode);
+            for (T ancestor = newParent; ancestor != null; ancestor = parents.get(code(ancestor))) {
+                if (ancestor == node) {
+                    throw new IllegalArgumentException("Cannot move tree node " + code + " under its own subtree");
+                }
+            }
+        }
+        //先修改父编码，setter抛出异常(如类型不匹配)时树的结构还未改动
+        wrapper.setParentNodeCode(node, newParentCode);
+        T oldParent = detachFromParent(key, node);
+        attach(newParent, key, node);
+        for (TreeChangeListener<T> listener : listeners) {
+            listener.moved(oldParent, newParent, node);
+        }
+    }
+
+    /**
+     * 删除节点及其子树
+     *
+     * @return 删除的节点，不存在时返回null
+     */
+    public T delete(Object code) {
+        T node = nodes.get(wrapper.toKey(code));
+        if (node != null) {
+            remove(node);
+        }
+        return node;
+    }
+
+    /**
+     * 把节点及其子树从树中摘出，作为一棵新树返回，节点的父编码保持不变
+     *
+     * @throws IllegalArgumentException 节点不存在
+     */
+    @SuppressWarnings("unchecked")
+    public MutableTree<T> detach(Object code) {
+        T node = requireNode(code);
+        remove(node);
+        MutableTree<T> subtree = new MutableTree<>((Class<T>) wrapper.getClazz());
+        subtree.roots.put(subtree.code(node), node);
+        subtree.index(node);
+        return subtree;
+    }
+
+    public T get(Object code) {
+        return nodes.get(wrapper.toKey(code));
+    }
+
+    /**
+     * @return 父节点，顶层节点或节点不存在时返回null
+     */
+    public T getParent(Object code) {
+        return parents.get(wrapper.toKey(code));
+    }
+
+    public boolean contains(Object code) {
+        return nodes.containsKey(wrapper.toKey(code));
+    }
+
+    /**
+     * 顶层节点的只读视图
+     */
+    public Collection<T> getRoots() {
+        return Collections.unmodifiableCollection(roots.values());
+    }
+
+    /**
+     * 顶层节点的副本，可以直接返回给调用方
+     */
+    public List<T> toList() {
+        return new ArrayList<>(roots.values());
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    private void remove(T node) {
+        Object key = code(node);
+        T parent = detachFromParent(key, node);
+        Deque<T> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            T current = stack.pop();
+            Object currentKey = code(current);
+            nodes.remove(currentKey);
+            parents.remove(currentKey);
+            pushChildren(stack, current);
+        }
+        for (TreeChangeListener<T> listener : listeners) {
+            listener.removed(parent, node);
+        }
+    }
+
+    /**
+     * 把以root为根的子树加入索引
+     */
+    private void index(T root) {
+        Deque<T> stack = new ArrayDeque<>();
+        stack.push(root);
+        nodes.put(code(root), root);
+        while (!stack.isEmpty()) {
+            T current = stack.pop();
+            Collection<?> children = wrapper.getNodeChild(current);
+            if (children == null) {
+                continue;
+            }
+            for (Object child : children) {
+                @SuppressWarnings("unchecked")
+                T childNode = (T) child;
+                Object childKey = code(childNode);
+                nodes.put(childKey, childNode);
+                parents.put(childKey, current);
+                stack.push(childNode);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pushChildren(Deque<T> stack, T node) {
+        Collection<?> children = wrapper.getNodeChild(node);
+        if (children != null) {
+            for (Object child : children) {
+                stack.push((T) child);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void attach(T parent, Object key, T node) {
+        if (parent == null) {
+            roots.put(key, node);
+            return;
+        }
+        parents.put(key, parent);
+        Collection<Object> children = wrapper.getNodeChild(parent);
+        if (children == null) {
+            children = wrapper.newChildCollection(1);
+            wrapper.setChildNodes(parent, children);
+        }
+        children.add(node);
+    }
+
+    /**
+     * 从父节点的子节点集合(或顶层节点)中摘除，按引用比较，不依赖节点的equals
+     *
+     * @return 原父节点
+     */
+    private T detachFromParent(Object key, T node) {
+        T parent = parents.remove(key);
+        if (parent == null) {
+            roots.remove(key);
+            return null;
+        }
+        Collection<?> children = wrapper.getNodeChild(parent);
+        for (Iterator<?> iterator = children.iterator(); iterator.hasNext(); ) {
+            if (iterator.next() == node) {
+                iterator.remove();
+                break;
+            }
+        }
+        return parent;
+    }
+
+    private T requireNode(Object code) {
+        T node = nodes.get(wrapper.toKey(code));
+        if (node == null) {
+            throw new IllegalArgumentException("Tree node not found: " + code);
+        }
+        return node;
+    }
+
+    private Object code(T node) {
+        return wrapper.getNodeCode(node);
+    }
+}
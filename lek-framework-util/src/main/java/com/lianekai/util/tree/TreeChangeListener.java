@@ -0,0 +1,36 @@
+package com.lianekai.util.tree;
+
+/**
+ * {@link MutableTree}的变更监听，在变更完成后回调，可以据此增量更新缓存
+ * 只关心一种变更时可以用{@link MutableTree#onInsert(TreeConsumer)}等方法传入{@link TreeConsumer}
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 19:00
+ */
+public interface TreeChangeListener<T> {
+
+    /**
+     * @param parent 父节点，顶层节点为null
+     * @param node 新节点
+     */
+    default void inserted(T parent, T node) {
+    }
+
+    /**
+     * @param oldParent 原父节点，顶层节点为null
+     * @param newParent 新父节点，移到顶层时为null
+     * @param node 移动的节点，子树随之移动
+     */
+    default void moved(T oldParent, T newParent, T node) {
+    }
+
+    /**
+     * 删除或摘出子树时只对子树的根回调一次
+     *
+     * @param parent 原父节点，顶层节点为null
+     * @param node 子树的根，子节点仍然挂在上面
+     */
+    default void removed(T parent, T node) {
+    }
+}
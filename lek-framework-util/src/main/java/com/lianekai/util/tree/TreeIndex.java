@@ -0,0 +1,184 @@
+package com.lianekai.util.tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 树的欧拉序(嵌套集合)索引，按先序给每个节点编号，子树在先序中是连续的一段[enter, enter + size)
+ * <pre>
+ * TreeIndex&lt;Dept&gt; index = TreeUtils.index(roots);
+ * index.isDescendant(deptId, rootDeptId);   //O(1)
+ * index.descendants(rootDeptId);            //子树所有节点，不复制
+ * </pre>
+ * 判断后代、取子树与深度为O(1)，祖先与路径与深度成正比；索引是生成时的快照，树修改后需要重新生成
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 19:40
+ */
+public class TreeIndex<T> {
+
+    private final TreeNodeWrapper wrapper;
+
+    /**先序排列的节点*/
+    private final List<T> nodes;
+
+    private final Map<Object, Integer> positions;
+
+    private final int[] parents;
+
+    private final int[] depths;
+
+    private final int[] sizes;
+
+    @SuppressWarnings("unchecked")
+    TreeIndex(TreeNodeWrapper wrapper, Collection<? extends T> roots) {
+        this.wrapper = wrapper;
+        List<T> order = new ArrayList<>();
+        int[] parentArray = new int[16];
+        int[] depthArray = new int[16];
+        //栈中每一项为节点及其父节点的先序编号
+        Deque<Object> stack = new ArrayDeque<>();
+        Deque<Integer> parentStack = new ArrayDeque<>();
+        List<T> rootList = new ArrayList<>(roots);
+        for (int i = rootList.size() - 1; i >= 0; i--) {
+            stack.push(rootList.get(i));
+            parentStack.push(-1);
+        }
+        while (!stack.isEmpty()) {
+            T node = (T) stack.pop();
+            int parent = parentStack.pop();
+            int position = order.size();
+            if (position == parentArray.length) {
+                parentArray = Arrays.copyOf(parentArray, position * 2);
+                depthArray = Arrays.copyOf(depthArray, position * 2);
+            }
+            order.add(node);
+            parentArray[position] = parent;
+            depthArray[position] = parent < 0 ? 0 : depthArray[parent] + 1;
+            Collection<?> children = wrapper.getNodeChild(node);
+            if (children != null && !children.isEmpty()) {
+                Object[] array = children.toArray();
+                for (int i = array.length - 1; i >= 0; i--) {
+                    stack.push(array[i]);
+                    parentStack.push(position);
+                }
+            }
+        }
+        int size = order.size();
+        this.nodes = Collections.unmodifiableList(order);
+        this.positions = new HashMap<>(size * 4 / 3 + 1);
+        this.parents = Arrays.copyOf(parentArray, size);
+        this.depths = Arrays.copyOf(depthArray, size);
+        this.sizes = new int[size];
+        Arrays.fill(sizes, 1);
+        for (int i = 0; i < size; i++) {
+            Object code = wrapper.getNodeCode(order.get(i));
+            if (positions.put(code, i) != null) {
+                throw new IllegalArgumentException("Duplicate tree node code: " + code);
+            }
+        }
+        //先序中子节点都在父节点之后，倒序累加子树大小
+        for (int i = size - 1; i > 0; i--) {
+            if (parents[i] >= 0) {
+                sizes[parents[i]] += sizes[i];
+            }
+        }
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean contains(Object code) {
+        return positions.containsKey(wrapper.toKey(code));
+    }
+
+    public T get(Object code) {
+        Integer position = positions.get(wrapper.toKey(code));
+        return position == null ? null : nodes.get(position);
+    }
+
+    /**
+     * @return 父节点，顶层节点返回null
+     */
+    public T parent(Object code) {
+        int parent = parents[position(code)];
+        return parent < 0 ? null : nodes.get(parent);
+    }
+
+    /**
+     * @return 深度，顶层节点为0
+     */
+    public int depth(Object code) {
+        return depths[position(code)];
+    }
+
+    /**
+     * @return 以该节点为根的子树的节点数，包括自身
+     */
+    public int subtreeSize(Object code) {
+        return sizes[position(code)];
+    }
+
+    /**
+     * @return descendantCode是否是ancestorCode的后代，节点自身不算
+     */
+    public boolean isDescendant(Object descendantCode, Object ancestorCode) {
+        int descendant = position(descendantCode);
+        int ancestor = position(ancestorCode);
+        return descendant > ancestor && descendant < ancestor + sizes[ancestor];
+    }
+
+    /**
+     * @return 所有后代，先序排列，不包括自身，返回的是索引内部列表的只读视图
+     */
+    public List<T> descendants(Object code) {
+        int position = position(code);
+        return nodes.subList(position + 1, position + sizes[position]);
+    }
+
+    /**
+     * @return 所有祖先，从父节点到顶层节点
+     */
+    public List<T> ancestors(Object code) {
+        int position = position(code);
+        List<T> ancestors = new ArrayList<>(depths[position]);
+        for (int parent = parents[position]; parent >= 0; parent = parents[parent]) {
+            ancestors.add(nodes.get(parent));
+        }
+        return ancestors;
+    }
+
+    /**
+     * @return 从顶层节点到该节点的路径，包括自身
+     */
+    public List<T> path(Object code) {
+        List<T> path = ancestors(code);
+        Collections.reverse(path);
+        path.add(get(code));
+        return path;
+    }
+
+    /**
+     * @return 所有节点，先序排列
+     */
+    public List<T> nodes() {
+        return nodes;
+    }
+
+    private int position(Object code) {
+        Integer position = positions.get(wrapper.toKey(code));
+        if (position == null) {
+            throw new IllegalArgumentException("Tree node not found: " + code);
+        }
+        return position;
+    }
+}
@@ -1,9 +1,8 @@
 package com.lianekai.util.tree;
 
 import com.lianekai.util.bean.BeanUtils;
-
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import com.lianekai.util.cache.Cache;
+import com.lianekai.util.cache.CacheBuilder;
 
 /**
  * TreeNodeValidate
@@ -13,24 +12,22 @@ import java.util.concurrent.ConcurrentHashMap;
  * @date 2022/03/20 20:49
  */
 public class TreeNodeValidate {
-    private static final Map<Class,Boolean> validateMap=new ConcurrentHashMap<>();
+    private static final Cache<Class<?>,Boolean> validateMap=CacheBuilder.newBuilder()
+            .unbounded()
+            .recordStats()
+            .name("treeNodeValidateCache")
+            .build();
 
     public static <T> boolean check(Class<T> clazz) {
-
-        Boolean validateCache= validateMap.get(clazz);
-        if(validateCache!=null)
-        {
-            return validateCache.booleanValue();
-        }
-
-        if (BeanUtils.getOneFieldByAnnotation(clazz, TreeNodeCode.class) == null
-                || BeanUtils.getOneFieldByAnnotation(clazz, TreeNodeParentCode.class) == null
-                || BeanUtils.getOneFieldByAnnotation(clazz, TreeNodeChild.class) == null
-        ) {
-            validateMap.put(clazz,Boolean.FALSE);
-            return false;
+        Boolean validateCache = validateMap.getIfPresent(clazz);
+        if (validateCache != null) {
+            return validateCache;
         }
-        validateMap.put(clazz,Boolean.TRUE);
-        return true;
+        //反射异常直接抛出，不经过Cache.get的loader(异常时返回null)
+        boolean valid = BeanUtils.getOneFieldByAnnotation(clazz, TreeNodeCode.class) != null
+                && BeanUtils.getOneFieldByAnnotation(clazz, TreeNodeParentCode.class) != null
+                && BeanUtils.getOneFieldByAnnotation(clazz, TreeNodeChild.class) != null;
+        validateMap.put(clazz, valid);
+        return valid;
     }
 }
@@ -3,11 +3,25 @@ package com.lianekai.util.tree;
 import com.lianekai.util.bean.BeanUtils;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * 树节点封装类
+ * 创建时为编码、父编码与子节点字段生成访问器，之后每次访问不再经过Field反射：
+ * 有public的getter/setter时通过LambdaMetafactory生成Function/BiConsumer，调用开销与直接调用getter相当；
+ * 没有时使用字段的MethodHandle。编码保持字段原本的类型，只有编码与父编码类型不一致时才统一转为字符串
  *
  * @author lianekai
  * @version: 1.0
@@ -16,11 +30,24 @@ import java.util.Collection;
 @Slf4j
 public class TreeNodeWrapper {
 
+    /**Java 9及以上的MethodHandles.privateLookupIn，可以为非public的类生成访问器*/
+    private static final Method PRIVATE_LOOKUP_IN = privateLookupIn();
+
     private Class<?> clazz;
     private Field nodeCode;
     private Field parentNodeCode;
     private Field nodeChild;
 
+    private final Function<Object, Object> nodeCodeGetter;
+    private final Function<Object, Object> parentNodeCodeGetter;
+    private final Function<Object, Object> nodeChildGetter;
+    private final BiConsumer<Object, Object> nodeCodeSetter;
+    private final BiConsumer<Object, Object> parentNodeCodeSetter;
+    private final BiConsumer<Object, Object> nodeChildSetter;
+
+    /**编码与父编码类型不一致时都转为字符串比较*/
+    private final boolean stringKeys;
+
     public TreeNodeWrapper(Class<?> clazz) {
         this.clazz = clazz;
         nodeCode = BeanUtils.getOneFieldByAnnotation(clazz, TreeNodeCode.class);
@@ -30,6 +57,16 @@ public class TreeNodeWrapper {
         setFieldAccessible(nodeCode);
         setFieldAccessible(parentNodeCode);
         setFieldAccessible(nodeChild);
+
+        MethodHandles.Lookup lookup = lookupFor(clazz);
+        nodeCodeGetter = getter(lookup, nodeCode);
+        parentNodeCodeGetter = getter(lookup, parentNodeCode);
+        nodeChildGetter = getter(lookup, nodeChild);
+        nodeCodeSetter = setter(lookup, nodeCode);
+        parentNodeCodeSetter = setter(lookup, parentNodeCode);
+        nodeChildSetter = setter(lookup, nodeChild);
+        stringKeys = nodeCode != null && parentNodeCode != null
+                && wrap(nodeCode.getType()) != wrap(parentNodeCode.getType());
     }
     private void setFieldAccessible(Field field)
     {
@@ -39,30 +76,53 @@ public class TreeNodeWrapper {
         }
     }
 
-    public String getNodeCode(Object object) {
-        Object value = getFieldValue(object, nodeCode);
-        return value == null ? "" : value.toString();
+    /**
+     * @return 节点编码，保持字段原本的类型
+     */
+    public Object getNodeCode(Object object) {
+        return toKey(nodeCodeGetter.apply(object));
     }
 
     public void setNodeCode(Object object, Object value) {
-        setFiledValue(object, nodeCode, value);
+        nodeCodeSetter.accept(object, value);
     }
 
-    public String getParentNodeCode(Object object) {
-        Object value = getFieldValue(object, parentNodeCode);
-        return value == null ? "" : value.toString();
+    /**
+     * @return 父节点编码，保持字段原本的类型，没有父节点时为null
+     */
+    public Object getParentNodeCode(Object object) {
+        return toKey(parentNodeCodeGetter.apply(object));
     }
 
     public void setParentNodeCode(Object object, Object value) {
-        setFiledValue(object, parentNodeCode, value);
+        parentNodeCodeSetter.accept(object, value);
     }
 
     public Collection getNodeChild(Object object) {
-        return (Collection) getFieldValue(object, nodeChild);
+        return (Collection) nodeChildGetter.apply(object);
     }
 
     public void setChildNodes(Object object, Object value) {
-        setFiledValue(object, nodeChild, value);
+        nodeChildSetter.accept(object, value);
+    }
+
+    /**
+     * 按子节点字段的类型创建集合，List及其父类型用ArrayList，Set用LinkedHashSet，保持插入顺序
+     */
+    @SuppressWarnings("unchecked")
+    public Collection<Object> newChildCollection(int expectedSize) {
+        Class<?> type = nodeChild.getType();
+        if (type.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<>(expectedSize);
+        }
+        if (type.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<>(Math.max(16, expectedSize * 4 / 3 + 1));
+        }
+        try {
+            return (Collection<Object>) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("Unsupported child collection type: " + type.getName(), e);
+        }
     }
 
 
@@ -89,4 +149,145 @@ public class TreeNodeWrapper {
     public Class<?> getClazz() {
         return clazz;
     }
+
+    /**
+     * 转为索引中使用的编码，编码与父编码类型不一致时转为字符串，否则原样返回
+     */
+    public Object toKey(Object value) {
+        return stringKeys && value != null ? value.toString() : value;
+    }
+
+    private Function<Object, Object> getter(MethodHandles.Lookup lookup, Field field) {
+        if (field == null) {
+            return object -> {
+                throw new IllegalStateException(clazz.getName() + " has no tree node field");
+            };
+        }
+        Method method = findAccessor(field, true);
+        if (method != null && canGenerate(lookup, method)) {
+            try {
+                MethodHandle target = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class), target,
+                        MethodType.methodType(wrap(method.getReturnType()), method.getDeclaringClass()));
+                @SuppressWarnings("unchecked")
+                Function<Object, Object> function = (Function<Object, Object>) site.getTarget().invoke();
+                return function;
+            } catch (Throwable e) {
+                log.debug("Generate Tree Node Getter Failed, fallback to MethodHandle, field: {}", field, e);
+            }
+        }
+        MethodHandle handle;
+        try {
+            handle = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access tree node field: " + field, e);
+        }
+        return object -> {
+            try {
+                return handle.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private BiConsumer<Object, Object> setter(MethodHandles.Lookup lookup, Field field) {
+        if (field == null) {
+            return (object, value) -> {
+                throw new IllegalStateException(clazz.getName() + " has no tree node field");
+            };
+        }
+        Method method = findAccessor(field, false);
+        if (method != null && canGenerate(lookup, method)) {
+            try {
+                MethodHandle target = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class), target,
+                        MethodType.methodType(void.class, method.getDeclaringClass(), wrap(method.getParameterTypes()[0])));
+                @SuppressWarnings("unchecked")
+                BiConsumer<Object, Object> consumer = (BiConsumer<Object, Object>) site.getTarget().invoke();
+                return consumer;
+            } catch (Throwable e) {
+                log.debug("Generate Tree Node Setter Failed, fallback to MethodHandle, field: {}", field, e);
+            }
+        }
+        MethodHandle handle;
+        try {
+            handle = lookup.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access tree node field: " + field, e);
+        }
+        return (object, value) -> {
+            try {
+                handle.invokeExact(object, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * 字段对应的getter或setter，类型需要与字段一致，不存在时返回null
+     */
+    private Method findAccessor(Field field, boolean read) {
+        Method method;
+        try {
+            method = read ? BeanUtils.getReadMethod(clazz, field.getName()) : BeanUtils.getWriteMethod(clazz, field.getName());
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (method == null || Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        Class<?> type = read ? method.getReturnType() : method.getParameterTypes()[0];
+        return type == field.getType() ? method : null;
+    }
+
+    /**
+     * 有私有访问权限的Lookup可以为任意方法生成访问器；
+     * Java 8只有TreeNodeWrapper自己的Lookup，只为public类的public方法生成
+     */
+    private static boolean canGenerate(MethodHandles.Lookup lookup, Method method) {
+        if ((lookup.lookupModes() & MethodHandles.Lookup.PRIVATE) != 0 && lookup.lookupClass() != TreeNodeWrapper.class) {
+            return true;
+        }
+        if (!Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+        for (Class<?> type = method.getDeclaringClass(); type != null; type = type.getEnclosingClass()) {
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MethodHandles.Lookup lookupFor(Class<?> clazz) {
+        if (PRIVATE_LOOKUP_IN != null) {
+            try {
+                return (MethodHandles.Lookup) PRIVATE_LOOKUP_IN.invoke(null, clazz, MethodHandles.lookup());
+            } catch (ReflectiveOperationException e) {
+                log.debug("Private Lookup Unavailable, class: {}", clazz.getName(), e);
+            }
+        }
+        return MethodHandles.lookup();
+    }
+
+    private static Method privateLookupIn() {
+        try {
+            return MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
 }
@@ -0,0 +1,51 @@
+package com.lianekai.util.tree;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 树结构生成结果，除了根节点还包括找不到父节点的孤儿节点与成环的节点
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 18:00
+ */
+public class TreeResult<T> {
+
+    private final List<T> roots;
+
+    private final List<T> orphans;
+
+    private final List<T> cycleNodes;
+
+    TreeResult(List<T> roots, List<T> orphans, List<T> cycleNodes) {
+        this.roots = Collections.unmodifiableList(roots);
+        this.orphans = Collections.unmodifiableList(orphans);
+        this.cycleNodes = Collections.unmodifiableList(cycleNodes);
+    }
+
+    /**
+     * 顶层节点，按输入顺序，包括父编码为空的节点与孤儿节点
+     */
+    public List<T> getRoots() {
+        return roots;
+    }
+
+    /**
+     * 父编码不为空但输入中没有该父节点的节点，作为子树的根放在顶层
+     */
+    public List<T> getOrphans() {
+        return orphans;
+    }
+
+    /**
+     * 在环上或者祖先在环上的节点，无法从任何顶层节点到达，不会挂到树上
+     */
+    public List<T> getCycleNodes() {
+        return cycleNodes;
+    }
+
+    public boolean hasCycle() {
+        return !cycleNodes.isEmpty();
+    }
+}
@@ -0,0 +1,139 @@
+package com.lianekai.util.tree;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 树的迭代遍历，不使用递归，深度只受堆内存限制
+ * 深度优先为先序遍历，拆分时把待遍历子树的前一半交出去，保持先序的顺序；
+ * 只剩一棵子树时交出其根节点，自己保留其子节点，单个根节点的树也可以并行
+ * 广度优先按层遍历，拆分后各部分分别按层遍历，并行时不保证整体按层的顺序
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 19:30
+ */
+class TreeSpliterator<T> implements Spliterator<T> {
+
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    private final TreeNodeWrapper wrapper;
+
+    private final boolean breadthFirst;
+
+    private final int maxDepth;
+
+    /**待遍历的子树，队首先遍历*/
+    private final ArrayDeque<Frame<T>> pending;
+
+    /**节点数未知，每次拆分减半，避免拆成过多的小任务*/
+    private long estimate;
+
+    TreeSpliterator(TreeNodeWrapper wrapper, Collection<? extends T> roots, boolean breadthFirst, int maxDepth) {
+        this.wrapper = wrapper;
+        this.breadthFirst = breadthFirst;
+        this.maxDepth = maxDepth;
+        this.pending = new ArrayDeque<>(Math.max(16, roots.size()));
+        this.estimate = Long.MAX_VALUE;
+        for (T root : roots) {
+            pending.addLast(new Frame<>(root, 0, false));
+        }
+    }
+
+    private TreeSpliterator(TreeSpliterator<T> parent, ArrayDeque<Frame<T>> pending) {
+        this.wrapper = parent.wrapper;
+        this.breadthFirst = parent.breadthFirst;
+        this.maxDepth = parent.maxDepth;
+        this.pending = pending;
+        this.estimate = parent.estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Frame<T> frame = pending.pollFirst();
+        if (frame == null) {
+            return false;
+        }
+        if (!frame.skipChildren && frame.depth < maxDepth) {
+            Object[] children = children(frame.node);
+            if (breadthFirst) {
+                for (Object child : children) {
+                    pending.addLast(frame.child(child));
+                }
+            } else {
+                for (int i = children.length - 1; i >= 0; i--) {
+                    pending.addFirst(frame.child(children[i]));
+                }
+            }
+        }
+        action.accept(frame.node);
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int size = pending.size();
+        if (size >= 2) {
+            ArrayDeque<Frame<T>> prefix = new ArrayDeque<>(size / 2 + 1);
+            for (int i = size / 2; i > 0; i--) {
+                prefix.addLast(pending.pollFirst());
+            }
+            estimate >>>= 1;
+            return new TreeSpliterator<>(this, prefix);
+        }
+        Frame<T> frame = pending.peekFirst();
+        if (frame == null || frame.skipChildren || frame.depth >= maxDepth) {
+            return null;
+        }
+        Object[] children = children(frame.node);
+        if (children.length == 0) {
+            return null;
+        }
+        pending.pollFirst();
+        for (Object child : children) {
+            pending.addLast(frame.child(child));
+        }
+        ArrayDeque<Frame<T>> prefix = new ArrayDeque<>(1);
+        prefix.add(new Frame<>(frame.node, frame.depth, true));
+        estimate >>>= 1;
+        return new TreeSpliterator<>(this, prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+        return pending.isEmpty() ? 0 : estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return breadthFirst ? NONNULL : NONNULL | ORDERED;
+    }
+
+    private Object[] children(T node) {
+        Collection<?> children = wrapper.getNodeChild(node);
+        return children == null || children.isEmpty() ? NO_CHILDREN : children.toArray();
+    }
+
+    private static class Frame<T> {
+
+        private final T node;
+
+        private final int depth;
+
+        /**子节点已经交给其他部分遍历*/
+        private final boolean skipChildren;
+
+        Frame(T node, int depth, boolean skipChildren) {
+            this.node = node;
+            this.depth = depth;
+            this.skipChildren = skipChildren;
+        }
+
+        @SuppressWarnings("unchecked")
+        Frame<T> child(Object child) {
+            return new Frame<>((T) child, depth + 1, false);
+        }
+    }
+}
@@ -1,12 +1,36 @@
 package com.lianekai.util.tree;
 
+import com.lianekai.util.cache.Cache;
+import com.lianekai.util.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 树结构生成工具类
+ * 节点类需要用{@link TreeNodeCode}、{@link TreeNodeParentCode}、{@link TreeNodeChild}标注编码、父编码与子节点集合字段
+ * <pre>
+ * List&lt;Dept&gt; roots = TreeUtils.buildTree(deptMapper.selectAll());
+ * </pre>
+ * 先建立编码到节点的索引，再按父编码分组挂到父节点上，整体O(n)；
+ * 节点数量很大时可以并行执行，读取编码、查找父节点与挂载子节点按节点分片在ForkJoin公共线程池中执行，
+ * 每个父节点的子节点集合只由一个线程写入，子节点顺序与输入顺序一致
+ * 遍历使用{@link #depthFirst(Collection)}、{@link #breadthFirst(Collection)}与{@link #walk}，不递归，深度很大时也不会栈溢出；
+ * 后代、祖先与路径查询使用{@link #index(Collection)}
  *
  * @author lianekai
  * @version: 1.0
@@ -17,6 +41,306 @@ public class TreeUtils {
     private TreeUtils() {
     }
 
-    private static final Map<Class, TreeNodeWrapper> WRAPPER_CACHE = new ConcurrentHashMap<>();
+    /**不淘汰：TreeNodeWrapper通过LambdaMetafactory生成访问类，淘汰后重新创建会再生成一次*/
+    private static final Cache<Class<?>, TreeNodeWrapper> WRAPPER_CACHE = CacheBuilder.newBuilder()
+            .unbounded()
+            .recordStats()
+            .name("treeNodeWrapperCache")
+            .build();
 
+    /**父节点不在输入中*/
+    private static final int NO_PARENT = -1;
+
+    private static final byte UNVISITED = 0;
+
+    private static final byte VISITING = 1;
+
+    private static final byte REACHABLE = 2;
+
+    private static final byte IN_CYCLE = 3;
+
+    /**
+     * 生成树结构
+     *
+     * @param nodes 所有节点
+     * @return 顶层节点，父节点不在输入中的孤儿节点也作为顶层节点返回
+     * @throws IllegalArgumentException 节点编码为null、重复或者存在环
+     */
+    public static <T> List<T> buildTree(List<T> nodes) {
+        return buildTree(nodes, false);
+    }
+
+    /**
+     * 生成树结构
+     *
+     * @param nodes 所有节点
+     * @param parallel 是否并行，节点数在十万以上时才有明显收益
+     * @return 顶层节点，父节点不在输入中的孤儿节点也作为顶层节点返回
+     * @throws IllegalArgumentException 节点编码为null、重复或者存在环
+     */
+    public static <T> List<T> buildTree(List<T> nodes, boolean parallel) {
+        TreeResult<T> result = build(nodes, parallel);
+        if (result.hasCycle()) {
+            throw new IllegalArgumentException("Tree nodes contain a cycle: " + describe(result.getCycleNodes()));
+        }
+        return result.getRoots();
+    }
+
+    /**
+     * 生成树结构，返回孤儿节点与成环的节点，成环的节点不会挂到树上
+     *
+     * @param input 所有节点
+     * @param parallel 是否并行
+     * @return 生成结果
+     * @throws IllegalArgumentException 节点编码为null或重复
+     */
+    public static <T> TreeResult<T> build(List<T> input, boolean parallel) {
+        if (input == null || input.isEmpty()) {
+            return new TreeResult<>(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        }
+        //按下标访问，LinkedList等先复制
+        List<T> nodes = input instanceof RandomAccess ? input : new ArrayList<>(input);
+        TreeNodeWrapper wrapper = getWrapper(nodes.get(0).getClass());
+        int size = nodes.size();
+
+        //1.编码到下标的索引
+        Object[] codes = new Object[size];
+        range(size, parallel).forEach(i -> codes[i] = wrapper.getNodeCode(nodes.get(i)));
+        Map<Object, Integer> index = parallel ? new ConcurrentHashMap<>(size * 4 / 3 + 1) : new HashMap<>(size * 4 / 3 + 1);
+        range(size, parallel).forEach(i -> {
+            if (codes[i] == null) {
+                throw new IllegalArgumentException("Tree node code must not be null");
+            }
+            Integer previous = index.putIfAbsent(codes[i], i);
+            if (previous != null) {
+                throw new IllegalArgumentException("Duplicate tree node code: " + codes[i]);
+            }
+        });
+
+        //2.父节点下标，父编码为null、空字符串或找不到时为NO_PARENT
+        int[] parents = new int[size];
+        boolean[] orphan = new boolean[size];
+        range(size, parallel).forEach(i -> {
+            Object parentCode = wrapper.getParentNodeCode(nodes.get(i));
+            boolean top = isTopCode(parentCode);
+            Integer parent = top ? null : index.get(parentCode);
+            parents[i] = parent == null ? NO_PARENT : parent;
+            orphan[i] = parent == null && !top;
+        });
+
+        //3.沿父节点向上检查环，每个节点只访问一次
+        byte[] states = markCycles(parents);
+
+        //4.按父节点分组(计数排序，保持输入顺序)，再按父节点分片挂载子节点
+        int[] childStart = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            if (parents[i] != NO_PARENT && states[i] == REACHABLE) {
+                childStart[parents[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            childStart[i + 1] += childStart[i];
+        }
+        int[] children = new int[childStart[size]];
+        int[] cursor = new int[size];
+        for (int i = 0; i < size; i++) {
+            int parent = parents[i];
+            if (parent != NO_PARENT && states[i] == REACHABLE) {
+                children[childStart[parent] + cursor[parent]++] = i;
+            }
+        }
+        range(size, parallel).forEach(i -> {
+            if (states[i] != REACHABLE) {
+                return;
+            }
+            int from = childStart[i];
+            int to = childStart[i + 1];
+            Collection<Object> childNodes = wrapper.newChildCollection(to - from);
+            for (int c = from; c < to; c++) {
+                childNodes.add(nodes.get(children[c]));
+            }
+            wrapper.setChildNodes(nodes.get(i), childNodes);
+        });
+
+        List<T> roots = new ArrayList<>();
+        List<T> orphans = new ArrayList<>();
+        List<T> cycleNodes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            T node = nodes.get(i);
+            if (states[i] == IN_CYCLE) {
+                cycleNodes.add(node);
+            } else if (parents[i] == NO_PARENT) {
+                roots.add(node);
+                if (orphan[i]) {
+                    orphans.add(node);
+                }
+            }
+        }
+        if (!orphans.isEmpty()) {
+            log.debug("Tree Build Orphans, class: {}, count: {}", wrapper.getClazz().getName(), orphans.size());
+        }
+        return new TreeResult<>(roots, orphans, cycleNodes);
+    }
+
+    /**
+     * 深度优先(先序)遍历，惰性、非递归，可以并行，并行时把待遍历的子树分给不同的线程
+     *
+     * @param roots 顶层节点
+     * @return 所有节点
+     */
+    public static <T> Stream<T> depthFirst(Collection<? extends T> roots) {
+        return depthFirst(roots, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 限制深度的深度优先遍历，更深的节点不会被访问
+     *
+     * @param roots 顶层节点
+     * @param maxDepth 最大深度，顶层节点为0
+     * @return 深度不超过maxDepth的节点
+     */
+    public static <T> Stream<T> depthFirst(Collection<? extends T> roots, int maxDepth) {
+        return traverse(roots, false, maxDepth);
+    }
+
+    /**
+     * 广度优先(按层)遍历，惰性、非递归；并行时各部分分别按层遍历，不保证整体的顺序
+     *
+     * @param roots 顶层节点
+     * @return 所有节点
+     */
+    public static <T> Stream<T> breadthFirst(Collection<? extends T> roots) {
+        return traverse(roots, true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按先序遍历并剪枝，只访问需要的部分，适合渲染展开的节点或前几层
+     *
+     * @param roots 顶层节点
+     * @param maxDepth 最大深度，顶层节点为0
+     * @param expand 是否继续访问该节点的子节点
+     * @param consumer 对每个访问到的节点回调(父节点, 节点)，顶层节点的父节点为null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void walk(Collection<? extends T> roots, int maxDepth, Predicate<? super T> expand,
+                                TreeConsumer<T, T> consumer) {
+        if (roots == null || roots.isEmpty()) {
+            return;
+        }
+        TreeNodeWrapper wrapper = getWrapper(roots.iterator().next().getClass());
+        Deque<WalkFrame<T>> stack = new ArrayDeque<>();
+        List<T> rootList = new ArrayList<>(roots);
+        for (int i = rootList.size() - 1; i >= 0; i--) {
+            stack.push(new WalkFrame<>(null, rootList.get(i), 0));
+        }
+        while (!stack.isEmpty()) {
+            WalkFrame<T> frame = stack.pop();
+            consumer.apply(frame.parent, frame.node);
+            if (frame.depth >= maxDepth || !expand.test(frame.node)) {
+                continue;
+            }
+            Collection<?> children = wrapper.getNodeChild(frame.node);
+            if (children != null && !children.isEmpty()) {
+                Object[] array = children.toArray();
+                for (int i = array.length - 1; i >= 0; i--) {
+                    stack.push(new WalkFrame<>(frame.node, (T) array[i], frame.depth + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成欧拉序索引，用于O(1)判断后代、取子树以及查询祖先与路径
+     *
+     * @param roots 顶层节点
+     * @return 索引
+     */
+    public static <T> TreeIndex<T> index(Collection<? extends T> roots) {
+        if (roots == null || roots.isEmpty()) {
+            throw new IllegalArgumentException("roots must not be empty");
+        }
+        return new TreeIndex<>(getWrapper(roots.iterator().next().getClass()), roots);
+    }
+
+    private static <T> Stream<T> traverse(Collection<? extends T> roots, boolean breadthFirst, int maxDepth) {
+        if (roots == null || roots.isEmpty()) {
+            return Stream.empty();
+        }
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative");
+        }
+        TreeNodeWrapper wrapper = getWrapper(roots.iterator().next().getClass());
+        return StreamSupport.stream(new TreeSpliterator<>(wrapper, roots, breadthFirst, maxDepth), false);
+    }
+
+    static boolean isTopCode(Object parentCode) {
+        return parentCode == null || parentCode instanceof CharSequence && ((CharSequence) parentCode).length() == 0;
+    }
+
+    static TreeNodeWrapper getWrapper(Class<?> clazz) {
+        if (!TreeNodeValidate.check(clazz)) {
+            throw new IllegalArgumentException(clazz.getName()
+                    + " must annotate fields with @TreeNodeCode, @TreeNodeParentCode and @TreeNodeChild");
+        }
+        TreeNodeWrapper wrapper = WRAPPER_CACHE.getIfPresent(clazz);
+        if (wrapper == null) {
+            //创建失败直接抛出，不经过Cache.get的loader(异常时返回null)
+            wrapper = new TreeNodeWrapper(clazz);
+            WRAPPER_CACHE.put(clazz, wrapper);
+        }
+        return wrapper;
+    }
+
+    /**
+     * 沿父节点下标向上走，走到顶层或已确定的节点为止；遇到当前路径上的节点说明成环，
+     * 环上以及只能经过环到达的节点都标记为IN_CYCLE
+     */
+    private static byte[] markCycles(int[] parents) {
+        int size = parents.length;
+        byte[] states = new byte[size];
+        int[] path = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (states[i] != UNVISITED) {
+                continue;
+            }
+            int length = 0;
+            int current = i;
+            while (current != NO_PARENT && states[current] == UNVISITED) {
+                states[current] = VISITING;
+                path[length++] = current;
+                current = parents[current];
+            }
+            byte state = current == NO_PARENT || states[current] == REACHABLE ? REACHABLE : IN_CYCLE;
+            for (int p = 0; p < length; p++) {
+                states[path[p]] = state;
+            }
+        }
+        return states;
+    }
+
+    private static IntStream range(int size, boolean parallel) {
+        IntStream range = IntStream.range(0, size);
+        return parallel ? range.parallel() : range;
+    }
+
+    private static <T> String describe(List<T> cycleNodes) {
+        TreeNodeWrapper wrapper = getWrapper(cycleNodes.get(0).getClass());
+        String codes = cycleNodes.stream().limit(10).map(node -> String.valueOf(wrapper.getNodeCode(node))).collect(Collectors.joining(", "));
+        return cycleNodes.size() > 10 ? codes + " ... (" + cycleNodes.size() + " nodes)" : codes;
+    }
+
+    private static class WalkFrame<T> {
+
+        private final T parent;
+
+        private final T node;
+
+        private final int depth;
+
+        WalkFrame(T parent, T node, int depth) {
+            this.parent = parent;
+            this.node = node;
+            this.depth = depth;
+        }
+    }
 }
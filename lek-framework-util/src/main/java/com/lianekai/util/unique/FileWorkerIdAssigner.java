@@ -0,0 +1,562 @@
+package com.lianekai.util.unique;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于本地租约文件的机器id分配，适用于同一主机上运行多个进程
+ * <pre>
+ * WorkerIdAssigner assigner = FileWorkerIdAssigner.newBuilder(Paths.get("/var/run/app/worker-ids")).build();
+ * SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerIdAssigner(assigner).build();
+ * </pre>
+ * 每个机器id对应目录下的一个租约文件，进程对文件加独占锁并写入持有者与心跳时间，进程退出(包括崩溃)后锁由操作系统释放；
+ * 默认从本机MAC地址与主机名的哈希位置开始依次尝试，多台主机共享目录或各自使用本地目录时都尽量分散
+ * 持有期间文件中记录重用延迟(生成器的提前使用窗口与时钟回退容忍范围)，正常释放时写入可重用时间，之前不会被使用；
+ * 锁空闲但心跳未过期的文件是刚崩溃的进程留下的：本地目录的文件锁可靠，锁空闲说明持有者已退出，
+ * 从发现时起再等待记录的重用延迟即可使用；网络文件系统(NFS、CIFS等)的文件锁不可靠，要等心跳过期，见{@link Builder#trustFileLock(boolean)}
+ * 自动分配跳过暂不可用的文件，发现的崩溃文件改写为可重用时间供之后使用；
+ * 配置的固定id通过{@link #fixed(long, long)}同样加锁登记，暂不可用时等待到可用，已被其他进程持有时启动失败
+ * 分段模式下占用的每个机器id都有自己的租约文件，全部加锁成功才算分配成功，任意一个被占用时释放已加的锁
+ * 持有期间按心跳间隔续期，续期时发现文件已被其他实例写入，或者超过过期时间仍未续期成功，租约失效，生成器随即拒绝生成ID
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 22:10
+ */
+@Slf4j
+public class FileWorkerIdAssigner implements WorkerIdAssigner {
+
+    private static final ScheduledExecutorService HEARTBEAT = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lek-worker-id-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 本进程持有的租约文件，不再打开：Linux上关闭同一文件的任意一个FileChannel都会释放进程在该文件上的所有锁
+     */
+    private static final Set<Path> HELD_FILES = ConcurrentHashMap.newKeySet();
+
+    /**文件锁不可靠的网络文件系统类型，见{@link FileStore#type()}*/
+    private static final Set<String> NETWORK_FILE_STORES = new HashSet<>(Arrays.asList("nfs", "nfs4", "cifs", "smb",
+            "smbfs", "smb2", "smb3", "afs", "9p", "ncpfs", "sshfs", "fuse.sshfs", "glusterfs", "fuse.glusterfs",
+            "ceph", "fuse.ceph", "lustre", "gpfs", "davfs", "fuse.s3fs"));
+
+    private final Path directory;
+
+    private final Long datacenterId;
+
+    private final boolean hostHashStart;
+
+    private final long heartbeatMillis;
+
+    private final long expireMillis;
+
+    private final int maxAttempts;
+
+    /**为null时按目录所在的文件系统判断*/
+    private volatile Boolean trustFileLock;
+
+    private FileWorkerIdAssigner(Builder builder) {
+        this.directory = builder.directory;
+        this.datacenterId = builder.datacenterId;
+        this.hostHashStart = builder.hostHashStart;
+        this.heartbeatMillis = builder.heartbeatMillis;
+        this.expireMillis = builder.expireMillis;
+        this.maxAttempts = builder.maxAttempts;
+        this.trustFileLock = builder.trustFileLock;
+        if (expireMillis <= heartbeatMillis) {
+            throw new IllegalArgumentException("expireAfter must be longer than heartbeatInterval");
+        }
+    }
+
+    /**
+     * @param directory 租约文件所在目录，不存在时自动创建；同一主机上的进程需要使用同一个目录
+     */
+    public static Builder newBuilder(Path directory) {
+        return new Builder(directory);
+    }
+
+    @Override
+    public WorkerIdLease acquire(SnowflakeLayout layout, int stripes) {
+        if (datacenterId != null && (datacenterId < 0 || datacenterId > layout.getMaxDatacenterId())) {
+            throw new IllegalArgumentException("datacenterId must be between 0 and " + layout.getMaxDatacenterId());
+        }
+        createDirectory();
+        int slots = WorkerIdAssigners.slotCount(layout, stripes, datacenterId != null);
+        long start = hostHashStart ? Math.floorMod(startHash(), (long) slots) : 0;
+        String owner = newOwner();
+        int attempts = Math.min(slots, maxAttempts);
+        for (int i = 0; i < attempts; i++) {
+            long[] ids = WorkerIdAssigners.slotIds(layout, stripes, (start + i) % slots, datacenterId);
+            WorkerIdLease lease = tryAcquire(ids[0], ids[1], stripes, owner, false);
+            if (lease != null) {
+                log.info("Acquired Worker Id Lease, datacenterId: {}, workerId: {}, owner: {}", ids[0], ids[1], owner);
+                return lease;
+            }
+        }
+        throw new IllegalStateException(String.format("No free worker id in %s after %d attempts", directory, attempts));
+    }
+
+    /**
+     * 固定的数据中心id与机器id，与自动分配一样加锁登记租约文件并续期，用于配置的id：
+     * 同一主机上(或共享目录的主机之间)重复配置时启动失败，而不是生成重复的ID
+     * 分段模式下登记从workerId开始的连续stripes个机器id的文件；文件刚释放或者持有者刚崩溃时等待到可重用时间，
+     * 本地目录上通常只需等待重用延迟，网络文件系统上最多等待过期时间
+     *
+     * @throws IllegalStateException 其中任意一个id的租约文件已被其他实例持有，或者释放后还未到可重用时间
+     */
+    public WorkerIdAssigner fixed(long datacenterId, long workerId) {
+        return (layout, stripes) -> {
+            if (datacenterId < 0 || datacenterId > layout.getMaxDatacenterId()) {
+                throw new IllegalArgumentException("datacenterId must be between 0 and " + layout.getMaxDatacenterId());
+            }
+            if (workerId < 0 || workerId + stripes - 1 > layout.getMaxWorkerId()) {
+                throw new IllegalArgumentException(String.format("workerId range [%d, %d] exceeds max worker id %d",
+                        workerId, workerId + stripes - 1, layout.getMaxWorkerId()));
+            }
+            createDirectory();
+            String owner = newOwner();
+            WorkerIdLease lease = tryAcquire(datacenterId, workerId, stripes, owner, true);
+            if (lease == null) {
+                throw new IllegalStateException(String.format("Worker id is already in use, datacenterId: %d, "
+                        + "workerId: [%d, %d], lease directory: %s", datacenterId, workerId, workerId + stripes - 1,
+                        directory));
+            }
+            log.info("Registered Worker Id Lease, datacenterId: {}, workerId: {}, owner: {}", datacenterId, workerId,
+                    owner);
+            return lease;
+        };
+    }
+
+    private void createDirectory() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path leaseFile(long datacenter, long worker) {
+        return directory.resolve("worker-" + datacenter + "-" + worker + ".lease").toAbsolutePath().normalize();
+    }
+
+    private static String newOwner() {
+        return ManagementFactory.getRuntimeMXBean().getName() + "#"
+                + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * 对从worker开始的连续stripes个租约文件加锁，全部可用时写入持有者并开始续期
+     *
+     * @param wait 文件暂不可重用时是否等待
+     * @return 任意一个文件被占用或还不可重用时返回null，已加的锁全部释放
+     */
+    private WorkerIdLease tryAcquire(long datacenter, long worker, int stripes, String owner, boolean wait) {
+        List<LeaseFile> files = new ArrayList<>(stripes);
+        boolean acquired = false;
+        try {
+            for (int i = 0; i < stripes; i++) {
+                LeaseFile file = lock(datacenter, worker + i);
+                if (file == null) {
+                    return null;
+                }
+                files.add(file);
+                if (!reusable(file, datacenter, wait)) {
+                    return null;
+                }
+            }
+            long now = System.currentTimeMillis();
+            for (LeaseFile file : files) {
+                write(file, owner, datacenter, now, 0, 0);
+            }
+            WorkerIdLease lease = new FileLease(files, owner, datacenter, worker).start();
+            acquired = true;
+            return lease;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!acquired) {
+                files.forEach(LeaseFile::close);
+            }
+        }
+    }
+
+    /**
+     * @return 已加锁的租约文件，被本进程或其他进程持有时返回null
+     */
+    private LeaseFile lock(long datacenter, long worker) throws IOException {
+        Path file = leaseFile(datacenter, worker);
+        if (!HELD_FILES.add(file)) {
+            return null;
+        }
+        FileChannel channel = null;
+        boolean locked = false;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            locked = lock != null;
+            return locked ? new LeaseFile(file, channel, worker) : null;
+        } finally {
+            if (!locked) {
+                if (channel != null) {
+                    closeQuietly(channel);
+                }
+                HELD_FILES.remove(file);
+            }
+        }
+    }
+
+    /**
+     * 锁空闲的文件：释放后还未到可重用时间，或者持有者崩溃后提前使用的时间戳可能还未过去时不可用
+     *
+     * @param wait 不可用时是否等待，等待期间一直持有文件锁
+     */
+    private boolean reusable(LeaseFile file, long datacenter, boolean wait) throws IOException {
+        Properties previous = read(file.channel);
+        long now = System.currentTimeMillis();
+        long heartbeat = Long.parseLong(previous.getProperty("heartbeat", "0"));
+        String reuseDelay = previous.getProperty("reuseDelay");
+        long availableAt = Long.parseLong(previous.getProperty("reusableAt", "0"));
+        if (heartbeat > 0 && reuseDelay != null && trustFileLock()) {
+            //持有者已退出，之前生成的ID的时间戳最多超前于当前时间重用延迟
+            long reusableAt = now + Long.parseLong(reuseDelay) + 1;
+            if (!wait) {
+                write(file, previous.getProperty("owner", ""), datacenter, 0, reusableAt, 0);
+                log.warn("Worker Id Lease Holder Exited Without Release, skipped, file: {}, owner: {}, reusable in {}ms",
+                        file.path, previous.getProperty("owner"), reusableAt - now);
+                return false;
+            }
+            availableAt = Math.max(availableAt, reusableAt);
+        } else if (heartbeat > 0) {
+            availableAt = Math.max(availableAt, heartbeat + expireMillis);
+        }
+        if (now >= availableAt) {
+            return true;
+        }
+        if (!wait) {
+            log.warn("Worker Id Lease Not Reusable Yet, skipped, file: {}, owner: {}, reusable in {}ms",
+                    file.path, previous.getProperty("owner"), availableAt - now);
+            return false;
+        }
+        log.warn("Worker Id Lease Not Reusable Yet, waiting, file: {}, owner: {}, reusable in {}ms",
+                file.path, previous.getProperty("owner"), availableAt - now);
+        try {
+            TimeUnit.MILLISECONDS.sleep(availableAt - now);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for worker id lease " + file.path, e);
+        }
+        //文件锁不可靠时其他进程可能仍在续期
+        return previous.equals(read(file.channel));
+    }
+
+    /**
+     * 文件锁是否可靠，未配置时按目录所在的文件系统判断
+     */
+    private boolean trustFileLock() throws IOException {
+        Boolean trust = trustFileLock;
+        if (trust == null) {
+            FileStore store = Files.getFileStore(directory);
+            trust = !NETWORK_FILE_STORES.contains(store.type().toLowerCase(Locale.ROOT));
+            trustFileLock = trust;
+        }
+        return trust;
+    }
+
+    private static long startHash() {
+        try {
+            return WorkerIdAssigners.hostHashCode();
+        } catch (IllegalStateException e) {
+            log.warn("Host Hash Unavailable, start from worker id 0", e);
+            return 0;
+        }
+    }
+
+    private static Properties read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            //读到末尾或读满
+        }
+        Properties properties = new Properties();
+        properties.load(new ByteArrayInputStream(buffer.array(), 0, buffer.position()));
+        return properties;
+    }
+
+    /**
+     * 先覆盖写入再截断，其他进程读取时不会读到空文件
+     *
+     * @param reusableAt 释放后可以重用的时间，持有期间为0
+     * @param reuseDelay 持有期间记录的重用延迟(毫秒)，释放后不再记录
+     */
+    private static void write(LeaseFile file, String owner, long datacenter, long heartbeat, long reusableAt,
+                              long reuseDelay) throws IOException {
+        FileChannel channel = file.channel;
+        Properties properties = new Properties();
+        properties.setProperty("owner", owner);
+        properties.setProperty("datacenterId", String.valueOf(datacenter));
+        properties.setProperty("workerId", String.valueOf(file.worker));
+        properties.setProperty("heartbeat", String.valueOf(heartbeat));
+        if (reusableAt > 0) {
+            properties.setProperty("reusableAt", String.valueOf(reusableAt));
+        }
+        if (heartbeat > 0) {
+            properties.setProperty("reuseDelay", String.valueOf(reuseDelay));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store(out, null);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.truncate(buffer.limit());
+        channel.force(false);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Close Worker Id Lease File Error", e);
+        }
+    }
+
+    /**
+     * 本进程已加锁的一个租约文件
+     */
+    private static class LeaseFile {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final long worker;
+
+        LeaseFile(Path path, FileChannel channel, long worker) {
+            this.path = path;
+            this.channel = channel;
+            this.worker = worker;
+        }
+
+        /**
+         * 关闭文件即释放锁
+         */
+        void close() {
+            closeQuietly(channel);
+            HELD_FILES.remove(path);
+        }
+    }
+
+    /**
+     * 持有中的租约，分段模式下包含多个租约文件，心跳与释放在同一把锁下执行
+     */
+    private class FileLease {
+
+        private final List<LeaseFile> files;
+
+        private final String owner;
+
+        private final long datacenter;
+
+        private final long worker;
+
+        private WorkerIdLease lease;
+
+        private ScheduledFuture<?> heartbeat;
+
+        private long lastRenewed = System.currentTimeMillis();
+
+        private boolean released;
+
+        FileLease(List<LeaseFile> files, String owner, long datacenter, long worker) {
+            this.files = files;
+            this.owner = owner;
+            this.datacenter = datacenter;
+            this.worker = worker;
+        }
+
+        synchronized WorkerIdLease start() {
+            //生成器在分配后立即设置重用延迟，随即写入文件，持有者崩溃后其他进程按该延迟判断何时可以重用
+            lease = new WorkerIdLease(datacenter, worker, this::release) {
+                @Override
+                public void setReuseDelay(long duration, TimeUnit unit) {
+                    super.setReuseDelay(duration, unit);
+                    renew();
+                }
+            };
+            heartbeat = HEARTBEAT.scheduleWithFixedDelay(this::renew, heartbeatMillis, heartbeatMillis,
+                    TimeUnit.MILLISECONDS);
+            return lease;
+        }
+
+        synchronized void renew() {
+            if (released || !lease.isValid()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            try {
+                for (LeaseFile file : files) {
+                    String current = read(file.channel).getProperty("owner");
+                    if (!owner.equals(current)) {
+                        lease.invalidate("Lease file " + file.path + " was taken over by " + current);
+                        log.error("Worker Id Lease Taken Over, file: {}, owner: {}", file.path, current);
+                        heartbeat.cancel(false);
+                        return;
+                    }
+                }
+                for (LeaseFile file : files) {
+                    write(file, owner, datacenter, now, 0, lease.getReuseDelay(TimeUnit.MILLISECONDS));
+                }
+                lastRenewed = now;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Renew Worker Id Lease Error, files: {}", files.get(0).path, e);
+                if (now - lastRenewed >= expireMillis) {
+                    lease.invalidate("Lease file " + files.get(0).path + " not renewed for " + (now - lastRenewed) + "ms");
+                    heartbeat.cancel(false);
+                }
+            }
+        }
+
+        /**
+         * 每个文件的心跳时间写为0并写入可重用时间，之后释放全部文件锁；
+         * 释放前生成的ID的时间戳最多超前于时钟提前使用窗口加回退容忍范围(见{@link WorkerIdLease#setReuseDelay(long, TimeUnit)})，
+         * 再加1毫秒避开当前毫秒
+         */
+        synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            heartbeat.cancel(false);
+            long reusableAt = System.currentTimeMillis() + lease.getReuseDelay(TimeUnit.MILLISECONDS) + 1;
+            for (LeaseFile file : files) {
+                try {
+                    if (owner.equals(read(file.channel).getProperty("owner"))) {
+                        write(file, owner, datacenter, 0, reusableAt, 0);
+                    }
+                } catch (IOException e) {
+                    log.warn("Release Worker Id Lease Error, file: {}", file.path, e);
+                }
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * 租约文件分配配置
+     */
+    public static class Builder {
+
+        private final Path directory;
+
+        private Long datacenterId;
+
+        private boolean hostHashStart = true;
+
+        private long heartbeatMillis = TimeUnit.SECONDS.toMillis(10);
+
+        private long expireMillis = TimeUnit.SECONDS.toMillis(60);
+
+        private int maxAttempts = 1024;
+
+        private Boolean trustFileLock;
+
+        private Builder(Path directory) {
+            this.directory = Objects.requireNonNull(directory, "directory");
+        }
+
+        /**
+         * 固定的数据中心id，只分配机器id；默认在数据中心id与机器id的全部组合中分配
+         */
+        public Builder datacenterId(long datacenterId) {
+            this.datacenterId = datacenterId;
+            return this;
+        }
+
+        /**
+         * 是否从本机哈希的位置开始尝试，默认true；false时从0开始
+         */
+        public Builder hostHashStart(boolean hostHashStart) {
+            this.hostHashStart = hostHashStart;
+            return this;
+        }
+
+        /**
+         * 心跳续期间隔，默认10秒
+         */
+        public Builder heartbeatInterval(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("duration must be positive");
+            }
+            this.heartbeatMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * 超过该时间未续期的租约视为过期，默认60秒，需要大于心跳间隔，也应大于生成器提前使用的窗口
+         */
+        public Builder expireAfter(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("duration must be positive");
+            }
+            this.expireMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * 最多尝试的机器id数，默认1024
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * 文件锁是否可靠：可靠时锁空闲即说明持有者已退出，只需等待其记录的重用延迟；不可靠时要等心跳过期
+         * 默认按目录所在的文件系统判断，NFS、CIFS等网络文件系统视为不可靠
+         */
+        public Builder trustFileLock(boolean trustFileLock) {
+            this.trustFileLock = trustFileLock;
+            return this;
+        }
+
+        public FileWorkerIdAssigner build() {
+            return new FileWorkerIdAssigner(this);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.lianekai.util.unique;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 租用的一段连续ID，见{@link SnowflakeGenerator#lease()}，只在租用的线程中使用，非线程安全
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 20:30
+ */
+public class IdBlock {
+
+    /**下一个状态值(时间戳与序列合并)*/
+    private long next;
+
+    private final long end;
+
+    private final long machineBits;
+
+    private final SnowflakeLayout layout;
+
+    IdBlock(SnowflakeLayout layout, long first, int count, long machineBits) {
+        this.layout = layout;
+        this.next = first;
+        this.end = first + count;
+        this.machineBits = machineBits;
+    }
+
+    public boolean hasNext() {
+        return next < end;
+    }
+
+    /**
+     * @throws NoSuchElementException 已经用完
+     */
+    public long next() {
+        if (next >= end) {
+            throw new NoSuchElementException("IdBlock is exhausted");
+        }
+        return layout.composeState(next++, machineBits);
+    }
+
+    public int remaining() {
+        return (int) (end - next);
+    }
+}
@@ -0,0 +1,523 @@
+package com.lianekai.util.unique;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+
+/**
+ * 无锁的Snowflake ID生成器，位布局默认与{@link SnowflakeIdWorker}相同：41位时间戳、5位数据中心、5位机器、12位序列，
+ * 可以通过{@link Builder#layout(SnowflakeLayout)}调整各部分的位数与开始时间，生成的ID用同一个布局{@link SnowflakeLayout#decode(long)}
+ * 时间戳与毫秒内序列合并保存在一个long中，通过CAS一次更新，不加锁；毫秒内序列用完时短暂休眠等待下一毫秒，不空转
+ * <pre>
+ * SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().datacenterId(1).workerId(2).build();
+ * long id = generator.nextId();
+ * </pre>
+ * 分段模式({@link Builder#stripes(int)})为每个分段分配一个连续的机器id，线程按线程id固定使用其中一个分段，
+ * 各分段独立计数，线程很多时减少CAS冲突，每毫秒可生成的ID数随分段数增加；不同分段的ID之间只按毫秒有序
+ * 批量插入使用{@link #nextIds(int)}或{@link #lease()}，一次CAS预留一段连续序列，不必逐个生成；
+ * 每毫秒的序列数(默认4096)是单个机器id的上限，配置{@link Builder#borrowWindow(long, TimeUnit)}后序列用完时可以提前使用之后几毫秒的序列，
+ * 大批量生成不必等待时钟；提前使用的时间戳会超前于系统时钟，进程在窗口内重启并使用相同机器id可能产生重复，窗口应远小于重启耗时
+ * 时钟回退：生成器记录见过的最大时间作为逻辑时钟，回退不超过{@link Builder#clockDriftTolerance(long, TimeUnit)}时继续使用逻辑时钟，
+ * 不抛异常也不等待(逻辑时钟内的序列用完后才需要等待，可以配合提前使用窗口)；回退更多时，如果开启了{@link Builder#clockBackwardsFallback()}，
+ * 切换到代位为1的备用代继续生成(布局保留代位，见{@link SnowflakeLayout.Builder#generationBit()})，备用代的ID都大于之前的ID，
+ * 只能切换一次；否则抛出异常。时间超出布局的时间戳范围后同样抛出异常，不会生成负数或重复的ID
+ * 回退、提前使用、等待与切换的次数见各个getXxx方法，可以接入监控
+ * 机器id可以固定配置，也可以通过{@link Builder#workerIdAssigner(WorkerIdAssigner)}在创建时分配；分配的租约失效后拒绝生成ID，
+ * 关闭生成器时释放租约
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 20:00
+ */
+@Slf4j
+public class SnowflakeGenerator implements Closeable {
+
+    /**逻辑时钟中代的位置，低48位为见过的最大时间*/
+    private static final int CLOCK_GENERATION_SHIFT = 48;
+
+    private static final long CLOCK_MASK = ~(-1L << CLOCK_GENERATION_SHIFT);
+
+    /**每个分段的状态间隔128字节，避免伪共享*/
+    private static final int PADDING = 16;
+
+    /**等待下一毫秒时每次休眠的时间*/
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final SnowflakeLayout layout;
+
+    /**开始时间戳*/
+    private final long epoch;
+
+    private final int sequenceBits;
+
+    private final long sequenceMask;
+
+    private final long datacenterId;
+
+    private final long workerId;
+
+    /**分配的机器id租约，固定配置时为null*/
+    private final WorkerIdLease lease;
+
+    private final int stripes;
+
+    /**最多可以提前使用的毫秒数*/
+    private final long borrowMillis;
+
+    /**可以容忍的时钟回退毫秒数*/
+    private final long driftToleranceMillis;
+
+    /**可用的最大时间戳差值，超出后拒绝生成ID*/
+    private final long maxTimestamp;
+
+    /**最大的代，开启备用代时为1*/
+    private final long maxGeneration;
+
+    /**状态中代的位置，组成ID后正好是时间戳的最高位(保留位)*/
+    private final int generationShift;
+
+    /**状态中表示代的位，未开启备用代时为0*/
+    private final long generationMask;
+
+    private final LongSupplier clock;
+
+    /**代 &lt;&lt; 48 | 见过的最大时间 - 开始时间戳*/
+    private final AtomicLong logicalClock = new AtomicLong();
+
+    private final LongAdder driftCount = new LongAdder();
+
+    private final AtomicLong maxDriftMillis = new AtomicLong();
+
+    private final LongAdder borrowedCount = new LongAdder();
+
+    private final LongAdder waitCount = new LongAdder();
+
+    /**每个分段的 (时间戳 - 开始时间戳) &lt;&lt; 序列位数 | 序列，初始为0*/
+    private final AtomicLongArray states;
+
+    /**每个分段的数据中心与机器位*/
+    private final long[] machineBits;
+
+    private SnowflakeGenerator(Builder builder) {
+        //备用代使用布局保留的代位，解码时才能还原时间戳
+        this.layout = builder.fallback ? builder.layout.withGenerationBit() : builder.layout;
+        this.epoch = layout.getEpoch();
+        this.sequenceBits = layout.getSequenceBits();
+        this.sequenceMask = layout.getMaxSequence();
+        this.stripes = builder.stripes;
+        this.lease = builder.assigner != null ? builder.assigner.acquire(layout, stripes) : null;
+        this.datacenterId = lease != null ? lease.getDatacenterId() : builder.datacenterId;
+        this.workerId = lease != null ? lease.getWorkerId() : builder.workerId;
+        this.borrowMillis = builder.borrowMillis;
+        this.driftToleranceMillis = builder.driftToleranceMillis;
+        this.maxTimestamp = layout.getMaxTimestamp();
+        this.maxGeneration = builder.fallback ? 1 : 0;
+        this.generationShift = layout.getTimestampBits() - 1 + sequenceBits;
+        this.generationMask = builder.fallback ? -1L << generationShift : 0;
+        this.clock = builder.clock;
+        try {
+            validate();
+            if (lease != null) {
+                lease.setReuseDelay(borrowMillis + driftToleranceMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException e) {
+            if (lease != null) {
+                lease.close();
+            }
+            throw e;
+        }
+        this.states = new AtomicLongArray(stripes * PADDING);
+        this.machineBits = new long[stripes];
+        for (int i = 0; i < stripes; i++) {
+            machineBits[i] = layout.machineBits(datacenterId, workerId + i);
+        }
+    }
+
+    private void validate() {
+        if (datacenterId < 0 || datacenterId > layout.getMaxDatacenterId()) {
+            throw new IllegalArgumentException("datacenterId must be between 0 and " + layout.getMaxDatacenterId());
+        }
+        if (workerId < 0 || workerId + stripes - 1 > layout.getMaxWorkerId()) {
+            throw new IllegalArgumentException(String.format("workerId range [%d, %d] exceeds max worker id %d",
+                    workerId, workerId + stripes - 1, layout.getMaxWorkerId()));
+        }
+        long timestamp = clock.getAsLong() - epoch;
+        if (timestamp < 0 || timestamp > maxTimestamp) {
+            throw outOfRange(timestamp);
+        }
+    }
+
+    private IllegalStateException outOfRange(long timestamp) {
+        return new IllegalStateException(String.format("Current time %d is out of the timestamp range of %s",
+                timestamp + epoch, layout));
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 获得下一个ID，线程安全
+     *
+     * @return SnowflakeId
+     * @throws IllegalStateException 系统时钟回退超过容忍范围且无法切换备用代，时间超出了布局的时间戳范围，或者机器id租约已失效
+     */
+    public long nextId() {
+        int stripe = stripe();
+        return layout.composeState(reserve(stripe, 1, null), machineBits[stripe]);
+    }
+
+    /**
+     * 批量获得ID，每次CAS预留一段连续序列，不超过当前毫秒内剩余的序列加上可以提前使用的窗口
+     *
+     * @param count 数量
+     * @return 递增的ID
+     * @throws IllegalStateException 系统时钟回退超过容忍范围且无法切换备用代，时间超出了布局的时间戳范围，或者机器id租约已失效
+     */
+    public long[] nextIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        long[] ids = new long[count];
+        int stripe = stripe();
+        long machine = machineBits[stripe];
+        int[] reserved = new int[1];
+        int filled = 0;
+        while (filled < count) {
+            long first = reserve(stripe, count - filled, reserved);
+            for (int i = 0; i < reserved[0]; i++) {
+                ids[filled++] = layout.composeState(first + i, machine);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 批量获得ID
+     *
+     * @see #nextIds(int)
+     */
+    public LongStream nextIdStream(int count) {
+        return Arrays.stream(nextIds(count));
+    }
+
+    /**
+     * 租用最多一毫秒的序列数(默认4096)个连续序列(通常是当前毫秒内剩余的全部序列)，之后在当前线程中逐个取用，不再有任何同步
+     * 租用期间同一分段的其他线程需要等到下一毫秒，非分段模式下适合单线程的批量导入
+     *
+     * @return 一段连续的ID，用完后重新租用
+     * @throws IllegalStateException 系统时钟回退超过容忍范围且无法切换备用代，时间超出了布局的时间戳范围，或者机器id租约已失效
+     */
+    public IdBlock lease() {
+        int stripe = stripe();
+        int[] reserved = new int[1];
+        long first = reserve(stripe, (int) sequenceMask + 1, reserved);
+        return new IdBlock(layout, first, reserved[0], machineBits[stripe]);
+    }
+
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return 分配的机器id租约，固定配置时为null
+     */
+    public WorkerIdLease getLease() {
+        return lease;
+    }
+
+    /**
+     * 释放分配的机器id租约，之后不能再生成ID；提前使用窗口与时钟回退容忍范围内其他实例不会重用该机器id；固定配置时没有影响
+     */
+    @Override
+    public void close() {
+        if (lease != null) {
+            lease.close();
+        }
+    }
+
+    public long getDatacenterId() {
+        return datacenterId;
+    }
+
+    /**
+     * @return 机器id，分段模式下为第一个分段的机器id
+     */
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public long getBorrowWindow(TimeUnit unit) {
+        return unit.convert(borrowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return 在时钟回退期间使用逻辑时钟生成的次数
+     */
+    public long getDriftCount() {
+        return driftCount.sum();
+    }
+
+    /**
+     * @return 观察到的最大时钟回退
+     */
+    public long getMaxDrift(TimeUnit unit) {
+        return unit.convert(maxDriftMillis.get(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return 时间戳超前于时钟(提前使用)的ID数量
+     */
+    public long getBorrowedCount() {
+        return borrowedCount.sum();
+    }
+
+    /**
+     * @return 序列用完后等待时钟的次数
+     */
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    /**
+     * @return 是否已经切换到备用代
+     */
+    public boolean isFallbackActive() {
+        return logicalClock.get() >>> CLOCK_GENERATION_SHIFT > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeGenerator{datacenterId=%d, workerId=%d, stripes=%d, borrowWindow=%dms, "
+                        + "driftTolerance=%dms, drifts=%d, maxDrift=%dms, borrowed=%d, waits=%d, fallbackActive=%s}",
+                datacenterId, workerId, stripes, borrowMillis, driftToleranceMillis, getDriftCount(),
+                maxDriftMillis.get(), getBorrowedCount(), getWaitCount(), isFallbackActive());
+    }
+
+    /**
+     * 预留最多max个连续的状态值(时间戳与序列合并后连续递增，序列用完时进位到下一毫秒)
+     * 最多可以使用到逻辑时钟之后borrowMillis毫秒，超出时等到时钟追上；提前使用不超过布局的最大时间戳，不会进位到代位或符号位
+     *
+     * @param reserved 不为null时写入实际预留的数量
+     * @return 预留的第一个状态值
+     */
+    private long reserve(int stripe, int max, int[] reserved) {
+        if (lease != null && !lease.isValid()) {
+            throw new IllegalStateException("Worker id lease is no longer valid: " + lease);
+        }
+        int slot = stripe * PADDING;
+        while (true) {
+            long observed = observeClock();
+            long generationBits = (observed >>> CLOCK_GENERATION_SHIFT) << generationShift;
+            long timestamp = observed & CLOCK_MASK;
+            long current = states.get(slot);
+            long currentGeneration = current & generationMask;
+            if (currentGeneration > generationBits) {
+                //读取逻辑时钟之后其他线程切换了代，重新读取，不能把分段退回旧的代
+                continue;
+            }
+            long floor = generationBits | timestamp << sequenceBits;
+            //分段还停留在之前的代时从当前时间重新开始
+            long first = currentGeneration == generationBits ? Math.max(current + 1, floor) : floor;
+            //最大时间戳的序列用完后limit进位到代位之上，用加法避免与代位重叠
+            long limit = generationBits + ((Math.min(timestamp + borrowMillis, maxTimestamp) + 1) << sequenceBits);
+            if (first >= limit && timestamp == maxTimestamp) {
+                throw outOfRange(timestamp + 1);
+            }
+            if (first >= limit) {
+                //窗口内的序列已经用完，等到下一毫秒
+                waitCount.increment();
+                LockSupport.parkNanos(WAIT_NANOS);
+                continue;
+            }
+            int count = (int) Math.min(max, limit - first);
+            if (states.compareAndSet(slot, current, first + count - 1)) {
+                long borrowed = first + count - Math.max(first, floor + sequenceMask + 1);
+                if (borrowed > 0) {
+                    borrowedCount.add(borrowed);
+                }
+                if (reserved != null) {
+                    reserved[0] = count;
+                }
+                return first;
+            }
+        }
+    }
+
+    /**
+     * 读取时钟并更新逻辑时钟
+     *
+     * @return 代 &lt;&lt; 48 | 本次使用的时间(时钟回退在容忍范围内时为见过的最大时间)
+     */
+    private long observeClock() {
+        while (true) {
+            //先读逻辑时钟再读时钟，其他线程在这之间推进逻辑时钟不会被误判为回退
+            long observed = logicalClock.get();
+            long now = clock.getAsLong() - epoch;
+            long generation = observed >>> CLOCK_GENERATION_SHIFT;
+            long maxSeen = observed & CLOCK_MASK;
+            if (now > maxTimestamp) {
+                throw outOfRange(now);
+            }
+            if (now >= maxSeen) {
+                long next = generation << CLOCK_GENERATION_SHIFT | now;
+                if (now == maxSeen || logicalClock.compareAndSet(observed, next)) {
+                    return next;
+                }
+                continue;
+            }
+            long drift = maxSeen - now;
+            if (drift <= driftToleranceMillis) {
+                driftCount.increment();
+                if (drift > maxDriftMillis.get()) {
+                    maxDriftMillis.accumulateAndGet(drift, Math::max);
+                }
+                return observed;
+            }
+            if (generation < maxGeneration) {
+                long next = (generation + 1) << CLOCK_GENERATION_SHIFT | now;
+                if (logicalClock.compareAndSet(observed, next)) {
+                    maxDriftMillis.accumulateAndGet(drift, Math::max);
+                    log.warn("Clock moved backwards {} milliseconds, switched to fallback generation, workerId: {}",
+                            drift, workerId);
+                    return next;
+                }
+                continue;
+            }
+            throw new IllegalStateException(String.format(
+                    "Clock moved backwards.  Refusing to generate id for %d milliseconds", drift));
+        }
+    }
+
+    private int stripe() {
+        return stripes == 1 ? 0 : (int) (Thread.currentThread().getId() % stripes);
+    }
+
+    /**
+     * Snowflake ID生成器配置
+     */
+    public static class Builder {
+
+        private long datacenterId;
+
+        private long workerId;
+
+        private int stripes = 1;
+
+        private long borrowMillis;
+
+        private long driftToleranceMillis;
+
+        private boolean fallback;
+
+        private LongSupplier clock = System::currentTimeMillis;
+
+        private SnowflakeLayout layout = SnowflakeLayout.DEFAULT;
+
+        private WorkerIdAssigner assigner;
+
+        private Builder() {
+        }
+
+        /**
+         * 位布局，默认{@link SnowflakeLayout#DEFAULT}
+         */
+        public Builder layout(SnowflakeLayout layout) {
+            this.layout = Objects.requireNonNull(layout, "layout");
+            return this;
+        }
+
+        /**
+         * 数据中心id，默认布局下为0~31
+         */
+        public Builder datacenterId(long datacenterId) {
+            this.datacenterId = datacenterId;
+            return this;
+        }
+
+        /**
+         * 机器id，默认布局下为0~31；分段模式下占用从该id开始的连续stripes个机器id
+         */
+        public Builder workerId(long workerId) {
+            this.workerId = workerId;
+            return this;
+        }
+
+        /**
+         * 创建时通过分配策略获得数据中心id与机器id，代替datacenterId与workerId
+         */
+        public Builder workerIdAssigner(WorkerIdAssigner assigner) {
+            this.assigner = Objects.requireNonNull(assigner, "assigner");
+            return this;
+        }
+
+        /**
+         * 分段数，默认1；大于1时每个分段占用一个机器id
+         */
+        public Builder stripes(int stripes) {
+            if (stripes <= 0) {
+                throw new IllegalArgumentException("stripes must be positive");
+            }
+            this.stripes = stripes;
+            return this;
+        }
+
+        /**
+         * 序列用完时最多可以提前使用的时间窗口，默认0即等待下一毫秒
+         */
+        public Builder borrowWindow(long duration, TimeUnit unit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("duration must not be negative");
+            }
+            this.borrowMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * 可以容忍的时钟回退，回退期间继续使用见过的最大时间作为逻辑时钟，默认0即回退时抛出异常或切换备用代
+         * 应覆盖NTP可能的调整幅度，如几十毫秒到1秒
+         */
+        public Builder clockDriftTolerance(long duration, TimeUnit unit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("duration must not be negative");
+            }
+            this.driftToleranceMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * 时钟回退超过容忍范围时切换到代位为1的备用代，只能切换一次；
+         * 布局保留时间戳的最高位作为代位({@link SnowflakeLayout#withGenerationBit()})，默认布局下时间戳只剩40位(到2049年)，
+         * 解码时使用{@link #getLayout()}
+         */
+        public Builder clockBackwardsFallback() {
+            this.fallback = true;
+            return this;
+        }
+
+        /**
+         * 毫秒时钟，默认System.currentTimeMillis
+         */
+        public Builder clock(LongSupplier clock) {
+            this.clock = Objects.requireNonNull(clock, "clock");
+            return this;
+        }
+
+        public SnowflakeGenerator build() {
+            return new SnowflakeGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.lianekai.util.unique;
+
+import java.time.Instant;
+
+/**
+ * 拆分后的Snowflake ID，见{@link SnowflakeLayout#decode(long)}
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 21:00
+ */
+public final class SnowflakeId {
+
+    private final long id;
+
+    private final int generation;
+
+    private final long timestamp;
+
+    private final long datacenterId;
+
+    private final long workerId;
+
+    private final long sequence;
+
+    SnowflakeId(long id, int generation, long timestamp, long datacenterId, long workerId, long sequence) {
+        this.id = id;
+        this.generation = generation;
+        this.timestamp = timestamp;
+        this.datacenterId = datacenterId;
+        this.workerId = workerId;
+        this.sequence = sequence;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return 代，时钟大幅回退后切换到备用代的ID为1，见{@link SnowflakeLayout.Builder#generationBit()}
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return 毫秒时间戳
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Instant getInstant() {
+        return Instant.ofEpochMilli(timestamp);
+    }
+
+    public long getDatacenterId() {
+        return datacenterId;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof SnowflakeId && id == ((SnowflakeId) o).id
+                && timestamp == ((SnowflakeId) o).timestamp;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id) * 31 + Long.hashCode(timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeId{id=%d, generation=%d, time=%s, datacenterId=%d, workerId=%d, sequence=%d}",
+                id, generation, getInstant(), datacenterId, workerId, sequence);
+    }
+}
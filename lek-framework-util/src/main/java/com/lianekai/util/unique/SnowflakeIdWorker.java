@@ -1,6 +1,11 @@
 package com.lianekai.util.unique;
 
 import com.lianekai.util.system.SystemUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Twitter_Snowflake
@@ -12,136 +17,78 @@ import com.lianekai.util.system.SystemUtils;
  * 10位的数据机器位，可以部署在1024个节点，包括5位datacenterId和5位workerId
  * 12位序列，毫秒内的计数，12位的计数顺序号支持每个节点每毫秒(同一机器，同一时间戳)产生4096个ID序号
  * 加起来刚好64位，为一个Long型。
+ * 静态方法使用全局的{@link SnowflakeGenerator}，需要多个实例或分段模式时直接创建SnowflakeGenerator
+ * 全局生成器的机器id：配置了环境变量snow_flake_center_id或snow_flake_workder_id时使用配置的值，并在租约目录中登记，
+ * 同一主机上重复配置时启动失败；否则通过{@link FileWorkerIdAssigner}在租约目录(环境变量snow_flake_lease_dir，
+ * 默认为临时目录下的lek-snowflake)中分配，同一主机上的多个进程不会重复；
+ * 租约目录不可写时不登记配置的值，或者按主机哈希分配({@link WorkerIdAssigners#hostHash()})
+ * 全局生成器容忍1秒以内的时钟回退(见{@link SnowflakeGenerator.Builder#clockDriftTolerance(long, TimeUnit)})，
+ * 回退期间沿用已经用到的时间戳继续生成，更大的回退仍然抛出异常
+ * 进程退出时通过关闭钩子释放租约并写入可重用时间，重启后可以立即重新登记；之后再调用{@link #nextId()}会抛出异常
  *
  * @author lianekai
  * @version: 1.0
  * @date 2022/03/20 14:10
  */
+@Slf4j
 public class SnowflakeIdWorker {
     private SnowflakeIdWorker(){}
 
     private static final String WORKER_ID_EVN="snow_flake_workder_id";
     private static final String DATA_CENTER_ID_ENV="snow_flake_center_id";
-    /** 开始时间戳 (2015-01-01) */
-    private static final long TWEPOCH = 1420041600000L;
-
-    /** 机器id所占的位数 */
-    private static final long WORKER_ID_BITS = 5L;
-
-    /** 数据标识id所占的位数 */
-    private static  final long DATACENTER_ID_BITS = 5L;
-
-    /** 支持的最大机器id，结果是31 (这个移位算法可以很快的计算出几位二进制数所能表示的最大十进制数)
-     private static  final long MAX_WORKER_ID = -1L ^ (-1L << WORKER_ID_BITS);*/
-
-    /** 支持的最大数据标识id，结果是31
-     private static  final long MAX_DATACENTER_ID = -1L ^ (-1L << DATACENTER_ID_BITS);*/
-
-    /** 序列在id中占的位数 */
-    private static  final long SEQUENCE_BITS = 12L;
-
-    /** 机器ID向左移12位 */
-    private static  final long WORKER_ID_SHIFT = SEQUENCE_BITS;
-
-    /** 数据标识id向左移17位(12+5) */
-    private static  final long DATACENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
-
-    /** 时间戳向左移22位(5+5+12) */
-    private static  final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATACENTER_ID_BITS;
-
-    /** 生成序列的掩码，这里为4095 (0b111111111111=0xfff=4095) */
-    private static  final long SEQUENCE_MASK = -1L ^ (-1L << SEQUENCE_BITS);
-
-    /** 工作机器ID(0~31) */
-    private static  long workerId;
-
-    /** 数据中心ID(0~31) */
-    private static  long datacenterId;
-
-    /** 毫秒内序列(0~4095) */
-    private  static long sequence = 0L;
-
-    /** 上次生成ID的时间戳 */
-    private  static long lastTimestamp = -1L;
-
+    private static final String LEASE_DIR_ENV="snow_flake_lease_dir";
 
+    /** 全局生成器，数据中心id与机器id来自环境变量或自动分配 */
+    private static final SnowflakeGenerator GENERATOR;
 
     static {
-        String wokerIdEnv= SystemUtils.getEnv(WORKER_ID_EVN,"1");
-        String dataCenterIdEnv= SystemUtils.getEnv(DATA_CENTER_ID_ENV,"1");
-        workerId=Long.parseLong(wokerIdEnv);
-        datacenterId=Long.parseLong(dataCenterIdEnv);
+        String leaseDir = SystemUtils.getEnv(LEASE_DIR_ENV,
+                Paths.get(System.getProperty("java.io.tmpdir"), "lek-snowflake").toString());
+        FileWorkerIdAssigner leaseFile = FileWorkerIdAssigner.newBuilder(Paths.get(leaseDir)).build();
+        WorkerIdAssigner assigner = WorkerIdAssigners.fromEnv(DATA_CENTER_ID_ENV, WORKER_ID_EVN,
+                (datacenterId, workerId) -> orElse(leaseFile.fixed(datacenterId, workerId),
+                        WorkerIdAssigners.fixed(datacenterId, workerId), leaseDir),
+                orElse(leaseFile, WorkerIdAssigners.hostHash(), leaseDir));
+        //NTP的小幅校正不应让nextId()抛出异常，容忍1秒的回退，租约的重用延迟已包含该范围
+        GENERATOR = SnowflakeGenerator.newBuilder().workerIdAssigner(assigner)
+                .clockDriftTolerance(1, TimeUnit.SECONDS).build();
+        Runtime.getRuntime().addShutdownHook(new Thread(GENERATOR::close, "lek-snowflake-release"));
     }
 
-    // ==============================Methods==========================================
     /**
-     * 获得下一个ID (该方法是线程安全的)
-     * @return SnowflakeId
+     * 租约目录不可用时使用unavailable
      */
-    public static synchronized long nextId() {
-        long timestamp = timeGen();
-
-        //如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过这个时候应当抛出异常
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(
-                    String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
-        }
-
-        //如果是同一时间生成的，则进行毫秒内序列
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & SEQUENCE_MASK;
-            //毫秒内序列溢出
-            if (sequence == 0) {
-                //阻塞到下一个毫秒,获得新的时间戳
-                timestamp = tilNextMillis(lastTimestamp);
+    private static WorkerIdAssigner orElse(WorkerIdAssigner assigner, WorkerIdAssigner unavailable, String leaseDir) {
+        return (layout, stripes) -> {
+            try {
+                return assigner.acquire(layout, stripes);
+            } catch (UncheckedIOException e) {
+                log.warn("Worker Id Lease Directory Unavailable, lease not registered, directory: {}", leaseDir, e);
+                return unavailable.acquire(layout, stripes);
             }
-        }
-        //时间戳改变，毫秒内序列重置
-        else {
-            sequence = 0L;
-        }
-
-        //上次生成ID的时间戳
-        lastTimestamp = timestamp;
-
-        //移位并通过或运算拼到一起组成64位的ID
-        return ((timestamp - TWEPOCH) << TIMESTAMP_LEFT_SHIFT) //
-                | (datacenterId << DATACENTER_ID_SHIFT) //
-                | (workerId << WORKER_ID_SHIFT) //
-                | sequence;
+        };
     }
 
+    // ==============================Methods==========================================
     /**
-     * 阻塞到下一个毫秒，直到获得新的时间戳
-     * @param lastTimestamp 上次生成ID的时间戳
-     * @return 当前时间戳
+     * 获得下一个ID (该方法是线程安全的，无锁)
+     * @return SnowflakeId
      */
-    protected  static long tilNextMillis(long lastTimestamp) {
-        long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timeGen();
-        }
-        return timestamp;
+    public static long nextId() {
+        return GENERATOR.nextId();
     }
 
     /**
-     * 返回以毫秒为单位的当前时间
-     * @return 当前时间(毫秒)
+     * 把全局生成器生成的ID拆分为时间戳、数据中心、机器与序列
      */
-    protected  static long timeGen() {
-        return System.currentTimeMillis();
+    public static SnowflakeId decode(long id) {
+        return GENERATOR.getLayout().decode(id);
     }
 
-    /** 测试
-     public static void main(String[] args) {
-     System.out.println("开始："+System.currentTimeMillis());
-     //        SnowflakeIdWorker idWorker = new  static (0, 0);
-     for (int i = 0; i < 50; i++) {
-     long id = SnowflakeIdWorker.nextId();
-     System.out.println(id);
-     //            System.out.println(Long.toBinaryString(id));
-     }
-     System.out.println("结束："+System.currentTimeMillis());
-     }
+    /**
+     * @return 全局生成器
      */
+    public static SnowflakeGenerator getGenerator() {
+        return GENERATOR;
+    }
 }
@@ -0,0 +1,403 @@
+package com.lianekai.util.unique;
+
+/**
+ * Snowflake ID的位布局：符号位之后依次为时间戳、数据中心、机器、序列，创建时校验各部分的位数
+ * 默认与{@link SnowflakeIdWorker}相同：41位时间戳、5位数据中心、5位机器、12位序列，开始时间为2015-01-01
+ * <pre>
+ * //单机写入量大：更多的序列位，更少的数据中心位
+ * SnowflakeLayout layout = SnowflakeLayout.newBuilder().datacenterBits(2).workerBits(6).sequenceBits(14).build();
+ * SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().layout(layout).workerId(9).build();
+ * SnowflakeId decoded = layout.decode(generator.nextId());
+ * </pre>
+ * 时间戳位数默认为剩余的位数，总位数不超过63，ID始终为正数；
+ * 同一布局的ID按时间戳有序，{@link #minId(long)}与{@link #maxId(long)}可以把时间范围转换为ID范围，用于按ID分区的裁剪
+ * 保留代位({@link Builder#generationBit()})时时间戳的最高位表示代，供生成器在时钟大幅回退后切换到备用代，时间戳少用1位；
+ * 备用代的ID都大于之前的ID，同一时间范围在两代中各对应一段ID，见{@link #minId(long, int)}与{@link #maxId(long, int)}
+ * 不同布局的ID不能混用，同一张表更换布局前需要确认新ID都大于已有的ID
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 21:00
+ */
+public final class SnowflakeLayout {
+
+    /** 默认开始时间戳 (2015-01-01) */
+    public static final long DEFAULT_EPOCH = 1420041600000L;
+
+    /**符号位之外可用的位数*/
+    private static final int TOTAL_BITS = 63;
+
+    /**序列最多22位，一次可以预留的序列数不超过int范围*/
+    private static final int MAX_SEQUENCE_BITS = 22;
+
+    /**时间戳至少32位，约49天*/
+    private static final int MIN_TIMESTAMP_BITS = 32;
+
+    /** 41位时间戳、5位数据中心、5位机器、12位序列 */
+    public static final SnowflakeLayout DEFAULT = newBuilder().build();
+
+    private final int timestampBits;
+
+    private final int datacenterBits;
+
+    private final int workerBits;
+
+    private final int sequenceBits;
+
+    private final long epoch;
+
+    /**是否保留时间戳的最高位作为代*/
+    private final boolean generationBit;
+
+    private final int workerIdShift;
+
+    private final int datacenterIdShift;
+
+    private final int timestampShift;
+
+    /**可用的最大时间戳差值，保留代位时不含代位*/
+    private final long maxTimestamp;
+
+    /**ID中代位的位置*/
+    private final int generationShift;
+
+    private final long maxDatacenterId;
+
+    private final long maxWorkerId;
+
+    private final long maxSequence;
+
+    private SnowflakeLayout(Builder builder) {
+        this.datacenterBits = builder.datacenterBits;
+        this.workerBits = builder.workerBits;
+        this.sequenceBits = builder.sequenceBits;
+        this.epoch = builder.epoch;
+        this.generationBit = builder.generationBit;
+        int machineBits = datacenterBits + workerBits + sequenceBits;
+        this.timestampBits = builder.timestampBits > 0 ? builder.timestampBits : TOTAL_BITS - machineBits;
+        if (sequenceBits < 1 || sequenceBits > MAX_SEQUENCE_BITS) {
+            throw new IllegalArgumentException("sequenceBits must be between 1 and " + MAX_SEQUENCE_BITS);
+        }
+        if (timestampBits < MIN_TIMESTAMP_BITS) {
+            throw new IllegalArgumentException(String.format("timestampBits must be at least %d, but was %d",
+                    MIN_TIMESTAMP_BITS, timestampBits));
+        }
+        if (timestampBits + machineBits > TOTAL_BITS) {
+            throw new IllegalArgumentException(String.format(
+                    "Layout needs %d bits (timestamp %d, datacenter %d, worker %d, sequence %d), at most %d",
+                    timestampBits + machineBits, timestampBits, datacenterBits, workerBits, sequenceBits, TOTAL_BITS));
+        }
+        this.workerIdShift = sequenceBits;
+        this.datacenterIdShift = sequenceBits + workerBits;
+        this.timestampShift = machineBits;
+        this.generationShift = timestampShift + timestampBits - 1;
+        this.maxTimestamp = ~(-1L << (generationBit ? timestampBits - 1 : timestampBits));
+        this.maxDatacenterId = ~(-1L << datacenterBits);
+        this.maxWorkerId = ~(-1L << workerBits);
+        this.maxSequence = ~(-1L << sequenceBits);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return 保留代位的相同布局，已经保留时返回自身
+     */
+    public SnowflakeLayout withGenerationBit() {
+        if (generationBit) {
+            return this;
+        }
+        return newBuilder().timestampBits(timestampBits).datacenterBits(datacenterBits).workerBits(workerBits)
+                .sequenceBits(sequenceBits).epoch(epoch).generationBit().build();
+    }
+
+    /**
+     * 按布局组成ID
+     *
+     * @param timestamp 毫秒时间戳(不是与开始时间的差值)
+     * @throws IllegalArgumentException 某一部分超出了布局的范围
+     */
+    public long compose(long timestamp, long datacenterId, long workerId, long sequence) {
+        return compose(0, timestamp, datacenterId, workerId, sequence);
+    }
+
+    /**
+     * 按布局组成指定代的ID
+     *
+     * @param generation 代，保留代位时为0或1，否则只能为0
+     * @param timestamp 毫秒时间戳(不是与开始时间的差值)
+     * @throws IllegalArgumentException 某一部分超出了布局的范围
+     */
+    public long compose(int generation, long timestamp, long datacenterId, long workerId, long sequence) {
+        long delta = timestamp - epoch;
+        check("generation", generation, getMaxGeneration());
+        check("timestamp", delta, maxTimestamp);
+        check("datacenterId", datacenterId, maxDatacenterId);
+        check("workerId", workerId, maxWorkerId);
+        check("sequence", sequence, maxSequence);
+        return generationBits(generation) | delta << timestampShift | machineBits(datacenterId, workerId) | sequence;
+    }
+
+    /**
+     * 把ID拆分为代、时间戳、数据中心、机器与序列
+     */
+    public SnowflakeId decode(long id) {
+        return new SnowflakeId(id, generationOf(id), timestampOf(id), datacenterIdOf(id), workerIdOf(id),
+                sequenceOf(id));
+    }
+
+    /**
+     * @return ID所在的代，未保留代位时为0
+     */
+    public int generationOf(long id) {
+        return generationBit ? (int) (id >>> generationShift & 1) : 0;
+    }
+
+    /**
+     * @return ID中的毫秒时间戳，不含代位
+     */
+    public long timestampOf(long id) {
+        return (id >>> timestampShift & maxTimestamp) + epoch;
+    }
+
+    public long datacenterIdOf(long id) {
+        return id >>> datacenterIdShift & maxDatacenterId;
+    }
+
+    public long workerIdOf(long id) {
+        return id >>> workerIdShift & maxWorkerId;
+    }
+
+    public long sequenceOf(long id) {
+        return id & maxSequence;
+    }
+
+    /**
+     * 该毫秒及之后生成的ID(任意代)都不小于返回值，早于开始时间返回0
+     */
+    public long minId(long timestamp) {
+        return minId(timestamp, 0);
+    }
+
+    /**
+     * 该毫秒及之前生成的ID(任意代)都不大于返回值；保留代位时备用代的ID都更大，返回值为备用代的上界
+     */
+    public long maxId(long timestamp) {
+        return maxId(timestamp, getMaxGeneration());
+    }
+
+    /**
+     * 指定代中该毫秒及之后生成的ID都不小于返回值；早于开始时间时返回该代的第一个ID，超出范围时返回Long.MAX_VALUE
+     * 时间范围在每一代对应[minId(开始, 代), maxId(结束, 代)]，分区裁剪时取各代的并集
+     */
+    public long minId(long timestamp, int generation) {
+        check("generation", generation, getMaxGeneration());
+        long delta = timestamp - epoch;
+        if (delta > maxTimestamp) {
+            return Long.MAX_VALUE;
+        }
+        return generationBits(generation) | Math.max(0, delta) << timestampShift;
+    }
+
+    /**
+     * 指定代中该毫秒及之前生成的ID都不大于返回值；早于开始时间时返回该代第一个ID减1，超出范围时返回该代的最后一个ID
+     */
+    public long maxId(long timestamp, int generation) {
+        check("generation", generation, getMaxGeneration());
+        long delta = Math.min(timestamp - epoch, maxTimestamp);
+        return generationBits(generation) + ((delta + 1) << timestampShift) - 1;
+    }
+
+    public int getTimestampBits() {
+        return timestampBits;
+    }
+
+    public int getDatacenterBits() {
+        return datacenterBits;
+    }
+
+    public int getWorkerBits() {
+        return workerBits;
+    }
+
+    public int getSequenceBits() {
+        return sequenceBits;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public boolean hasGenerationBit() {
+        return generationBit;
+    }
+
+    /**
+     * @return 最大的代，保留代位时为1，否则为0
+     */
+    public int getMaxGeneration() {
+        return generationBit ? 1 : 0;
+    }
+
+    /**
+     * @return 可用的最大时间戳差值(与开始时间的差)，保留代位时不含代位
+     */
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public long getMaxDatacenterId() {
+        return maxDatacenterId;
+    }
+
+    public long getMaxWorkerId() {
+        return maxWorkerId;
+    }
+
+    public long getMaxSequence() {
+        return maxSequence;
+    }
+
+    private long generationBits(int generation) {
+        return (long) generation << generationShift;
+    }
+
+    /**
+     * 数据中心与机器位
+     */
+    long machineBits(long datacenterId, long workerId) {
+        return datacenterId << datacenterIdShift | workerId << workerIdShift;
+    }
+
+    /**
+     * 由生成器的状态((代 &lt;&lt; 时间戳位数 - 1 | 时间戳 - 开始时间戳) &lt;&lt; 序列位数 | 序列)与机器位组成ID，
+     * 时间戳范围由生成器保证
+     */
+    long composeState(long state, long machineBits) {
+        return (state >>> sequenceBits) << timestampShift | machineBits | (state & maxSequence);
+    }
+
+    private static void check(String name, long value, long max) {
+        if (value < 0 || value > max) {
+            throw new IllegalArgumentException(String.format("%s must be between 0 and %d, but was %d", name, max, value));
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SnowflakeLayout)) {
+            return false;
+        }
+        SnowflakeLayout that = (SnowflakeLayout) o;
+        return timestampBits == that.timestampBits && datacenterBits == that.datacenterBits
+                && workerBits == that.workerBits && sequenceBits == that.sequenceBits && epoch == that.epoch
+                && generationBit == that.generationBit;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = timestampBits;
+        result = 31 * result + datacenterBits;
+        result = 31 * result + workerBits;
+        result = 31 * result + sequenceBits;
+        result = 31 * result + Long.hashCode(epoch);
+        return 31 * result + (generationBit ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeLayout{timestampBits=%d, datacenterBits=%d, workerBits=%d, sequenceBits=%d, "
+                        + "epoch=%d, generationBit=%s}",
+                timestampBits, datacenterBits, workerBits, sequenceBits, epoch, generationBit);
+    }
+
+    /**
+     * Snowflake ID位布局配置
+     */
+    public static class Builder {
+
+        private int timestampBits;
+
+        private int datacenterBits = 5;
+
+        private int workerBits = 5;
+
+        private int sequenceBits = 12;
+
+        private long epoch = DEFAULT_EPOCH;
+
+        private boolean generationBit;
+
+        private Builder() {
+        }
+
+        /**
+         * 时间戳位数，默认为63减去其他部分的位数；41位约69年
+         */
+        public Builder timestampBits(int timestampBits) {
+            if (timestampBits <= 0) {
+                throw new IllegalArgumentException("timestampBits must be positive");
+            }
+            this.timestampBits = timestampBits;
+            return this;
+        }
+
+        /**
+         * 数据中心位数，默认5，可以为0
+         */
+        public Builder datacenterBits(int datacenterBits) {
+            if (datacenterBits < 0) {
+                throw new IllegalArgumentException("datacenterBits must not be negative");
+            }
+            this.datacenterBits = datacenterBits;
+            return this;
+        }
+
+        /**
+         * 机器位数，默认5，可以为0
+         */
+        public Builder workerBits(int workerBits) {
+            if (workerBits < 0) {
+                throw new IllegalArgumentException("workerBits must not be negative");
+            }
+            this.workerBits = workerBits;
+            return this;
+        }
+
+        /**
+         * 序列位数，默认12即每毫秒4096个，1~22
+         */
+        public Builder sequenceBits(int sequenceBits) {
+            this.sequenceBits = sequenceBits;
+            return this;
+        }
+
+        /**
+         * 开始时间戳(毫秒)，默认2015-01-01
+         */
+        public Builder epoch(long epoch) {
+            if (epoch < 0) {
+                throw new IllegalArgumentException("epoch must not be negative");
+            }
+            this.epoch = epoch;
+            return this;
+        }
+
+        /**
+         * 保留时间戳的最高位作为代，生成器开启{@link SnowflakeGenerator.Builder#clockBackwardsFallback()}时使用，
+         * 默认布局保留后时间戳只剩40位(到2049年)
+         */
+        public Builder generationBit() {
+            this.generationBit = true;
+            return this;
+        }
+
+        public SnowflakeLayout build() {
+            return new SnowflakeLayout(this);
+        }
+    }
+}
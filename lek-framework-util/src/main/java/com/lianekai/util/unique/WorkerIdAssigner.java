@@ -0,0 +1,25 @@
+package com.lianekai.util.unique;
+
+/**
+ * 机器id分配策略，通过{@link SnowflakeGenerator.Builder#workerIdAssigner(WorkerIdAssigner)}在创建生成器时分配
+ * 内置实现见{@link WorkerIdAssigners}与{@link FileWorkerIdAssigner}；
+ * 接入ZooKeeper、Redis、数据库等外部协调服务时实现该接口：抢占一个未被占用的机器id并定期续期，
+ * 续期失败且无法确认仍然独占时调用{@link WorkerIdLease#invalidate(String)}
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 22:00
+ */
+@FunctionalInterface
+public interface WorkerIdAssigner {
+
+    /**
+     * 分配机器id
+     *
+     * @param layout 位布局，数据中心id与机器id不能超出其范围
+     * @param stripes 需要的连续机器id数，非分段模式为1
+     * @return 租约，生成器关闭时释放
+     * @throws IllegalStateException 没有可用的机器id，或者发现冲突
+     */
+    WorkerIdLease acquire(SnowflakeLayout layout, int stripes);
+}
@@ -0,0 +1,145 @@
+package com.lianekai.util.unique;
+
+import com.lianekai.util.system.SystemUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiFunction;
+
+/**
+ * 内置的机器id分配策略
+ * <ul>
+ *     <li>{@link #fixed(long, long)}：固定的数据中心id与机器id，由部署方保证不重复；
+ *     需要发现同一主机上的重复配置时使用{@link FileWorkerIdAssigner#fixed(long, long)}</li>
+ *     <li>{@link #fromEnv(String, String, WorkerIdAssigner)}：配置了环境变量时使用固定id，否则使用另一个策略</li>
+ *     <li>{@link #hostHash()}：按MAC地址与主机名哈希，不需要任何存储，但无法发现冲突</li>
+ *     <li>{@link FileWorkerIdAssigner}：本机的租约文件，文件锁保证同一主机上的多个进程不重复，心跳续期</li>
+ * </ul>
+ * 分段模式需要stripes个连续的机器id，按stripes对齐分组，分配的是其中一组
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 22:00
+ */
+@Slf4j
+public final class WorkerIdAssigners {
+    private WorkerIdAssigners() {
+    }
+
+    /**
+     * 固定的数据中心id与机器id，范围在创建生成器时校验
+     */
+    public static WorkerIdAssigner fixed(long datacenterId, long workerId) {
+        return (layout, stripes) -> new WorkerIdLease(datacenterId, workerId, null);
+    }
+
+    /**
+     * 任一环境变量(或系统属性)有值时使用固定id，未配置的一项为1；都没有配置时使用fallback
+     * 配置的id不登记，无法发现重复配置，需要发现时使用{@link #fromEnv(String, String, BiFunction, WorkerIdAssigner)}
+     *
+     * @param datacenterEnv 数据中心id的环境变量名
+     * @param workerEnv 机器id的环境变量名
+     * @param fallback 都没有配置时的分配策略
+     */
+    public static WorkerIdAssigner fromEnv(String datacenterEnv, String workerEnv, WorkerIdAssigner fallback) {
+        return fromEnv(datacenterEnv, workerEnv, WorkerIdAssigners::fixed, fallback);
+    }
+
+    /**
+     * 任一环境变量(或系统属性)有值时按配置的id创建分配策略，未配置的一项为1；都没有配置时使用fallback
+     * <pre>
+     * FileWorkerIdAssigner leaseFile = FileWorkerIdAssigner.newBuilder(directory).build();
+     * //配置的id同样加锁登记，同一主机上重复配置时启动失败
+     * WorkerIdAssigner assigner = WorkerIdAssigners.fromEnv("center_id", "worker_id", leaseFile::fixed, leaseFile);
+     * </pre>
+     *
+     * @param configured 由配置的数据中心id与机器id创建分配策略
+     */
+    public static WorkerIdAssigner fromEnv(String datacenterEnv, String workerEnv,
+                                           BiFunction<Long, Long, WorkerIdAssigner> configured,
+                                           WorkerIdAssigner fallback) {
+        return (layout, stripes) -> {
+            String datacenterId = SystemUtils.getEnv(datacenterEnv);
+            String workerId = SystemUtils.getEnv(workerEnv);
+            if (StringUtils.isBlank(datacenterId) && StringUtils.isBlank(workerId)) {
+                return fallback.acquire(layout, stripes);
+            }
+            return configured.apply(parse(datacenterEnv, datacenterId), parse(workerEnv, workerId))
+                    .acquire(layout, stripes);
+        };
+    }
+
+    /**
+     * 按第一个MAC地址与主机名哈希到数据中心id与机器id的全部组合中
+     * 不同主机可能哈希到同一个id且无法发现，主机越多概率越大(约38台主机时在默认的1024个id中有一半概率冲突)；
+     * 同一主机的多个进程一定冲突，这种情况使用{@link FileWorkerIdAssigner}
+     *
+     * @throws IllegalStateException 获取不到MAC地址与主机名
+     */
+    public static WorkerIdAssigner hostHash() {
+        return (layout, stripes) -> {
+            int slots = slotCount(layout, stripes, false);
+            long[] ids = slotIds(layout, stripes, Math.floorMod(hostHashCode(), (long) slots), null);
+            log.info("Assigned Worker Id By Host Hash, datacenterId: {}, workerId: {}", ids[0], ids[1]);
+            return new WorkerIdLease(ids[0], ids[1], null);
+        };
+    }
+
+    /**
+     * 本机MAC地址与主机名的哈希
+     *
+     * @throws IllegalStateException 获取不到MAC地址与主机名
+     */
+    static long hostHashCode() {
+        String mac = SystemUtils.getFirstMacAddress();
+        String host = SystemUtils.getServerName();
+        if (mac == null && host == null) {
+            throw new IllegalStateException("Cannot identify host: no MAC address and no host name");
+        }
+        //FNV-1a，再经过MurmurHash3的混合使低位分布均匀
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (mac + "/" + host).getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * 可分配的组数，每组stripes个连续的机器id
+     *
+     * @param fixedDatacenter 数据中心id固定时只在机器id中分配
+     */
+    static int slotCount(SnowflakeLayout layout, int stripes, boolean fixedDatacenter) {
+        long perDatacenter = (layout.getMaxWorkerId() + 1) / stripes;
+        if (perDatacenter == 0) {
+            throw new IllegalArgumentException(String.format("stripes %d exceeds %d worker ids",
+                    stripes, layout.getMaxWorkerId() + 1));
+        }
+        long count = fixedDatacenter ? perDatacenter : perDatacenter * (layout.getMaxDatacenterId() + 1);
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param datacenterId 固定的数据中心id，为null时由组号决定
+     * @return 组对应的数据中心id与第一个机器id
+     */
+    static long[] slotIds(SnowflakeLayout layout, int stripes, long slot, Long datacenterId) {
+        long perDatacenter = (layout.getMaxWorkerId() + 1) / stripes;
+        long datacenter = datacenterId != null ? datacenterId : slot / perDatacenter;
+        return new long[]{datacenter, slot % perDatacenter * stripes};
+    }
+
+    private static long parse(String name, String value) {
+        if (StringUtils.isBlank(value)) {
+            return 1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.lianekai.util.unique;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分配到的机器id租约，见{@link WorkerIdAssigner}
+ * 分段模式下占用从workerId开始的连续stripes个机器id；续期时发现机器id已被其他实例占用，调用{@link #invalidate(String)}，
+ * 使用该租约的{@link SnowflakeGenerator}之后拒绝生成ID，而不是生成重复的ID
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 22:00
+ */
+public class WorkerIdLease implements Closeable {
+
+    private final long datacenterId;
+
+    private final long workerId;
+
+    private final Runnable release;
+
+    /**释放后暂不可重用的时间*/
+    private volatile long reuseDelayMillis;
+
+    private volatile String invalidReason;
+
+    private volatile boolean closed;
+
+    /**
+     * @param release 释放租约的操作，只执行一次，可以为null
+     */
+    public WorkerIdLease(long datacenterId, long workerId, Runnable release) {
+        this.datacenterId = datacenterId;
+        this.workerId = workerId;
+        this.release = release;
+    }
+
+    public long getDatacenterId() {
+        return datacenterId;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 释放后该机器id暂不可重用的时间，由生成器按提前使用窗口与时钟回退容忍范围设置：
+     * 释放前生成的ID的时间戳可能超前于时钟，其他实例立即使用同一机器id可能生成重复的ID；分配方释放时需要遵守
+     */
+    public void setReuseDelay(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration must not be negative");
+        }
+        this.reuseDelayMillis = unit.toMillis(duration);
+    }
+
+    public long getReuseDelay(TimeUnit unit) {
+        return unit.convert(reuseDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return 未释放且未失效
+     */
+    public boolean isValid() {
+        return invalidReason == null && !closed;
+    }
+
+    /**
+     * 标记租约失效，续期失败或发现冲突时由分配方调用
+     */
+    public void invalidate(String reason) {
+        if (invalidReason == null) {
+            invalidReason = reason;
+        }
+    }
+
+    /**
+     * @return 失效原因，有效或已释放时为null
+     */
+    public String getInvalidReason() {
+        return invalidReason;
+    }
+
+    /**
+     * 释放租约，之后其他实例可以使用这些机器id
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (release != null) {
+            release.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorkerIdLease{datacenterId=%d, workerId=%d, valid=%s%s}", datacenterId, workerId,
+                isValid(), invalidReason == null ? "" : ", reason=" + invalidReason);
+    }
+}
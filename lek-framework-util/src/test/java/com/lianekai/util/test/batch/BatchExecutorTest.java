@@ -1,15 +1,42 @@
 package com.lianekai.util.test.batch;
 
 import com.google.common.collect.Lists;
+import com.lianekai.util.batch.AdaptiveBatchSize;
 import com.lianekai.util.batch.BatchExecutor;
+import com.lianekai.util.batch.BatchJob;
+import com.lianekai.util.batch.BatchResult;
+import com.lianekai.util.batch.BatchingQueue;
+import com.lianekai.util.batch.FileCheckpointStore;
+import com.lianekai.util.batch.JobProgress;
+import com.lianekai.util.batch.ResilientConsumer;
 import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * 批量执行器测试
@@ -82,6 +109,441 @@ public class BatchExecutorTest {
 //        Assertions.assertEquals(expectExecuteTimes,sum(actualExecuteTimes));
     }
 
+    @Test
+    public void testParallelBatchExecutor() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger total = new AtomicInteger();
+        BatchResult result = BatchExecutor.parallel().batchSize(100).parallelism(4).execute(list, batch -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            total.addAndGet(batch.size());
+            running.decrementAndGet();
+        });
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(10, result.getBatchCount());
+        Assert.assertEquals(1000, total.get());
+        Assert.assertEquals(1000, result.getSucceededCount());
+        Assert.assertTrue(maxRunning.get() > 1 && maxRunning.get() <= 4);
+        Assert.assertEquals(900, result.getOutcomes().get(9).getOffset());
+    }
+
+    @Test
+    public void testParallelMaxInFlight() throws Exception {
+        //工作任务全部阻塞时，调用线程最多切出 parallelism(执行中) + maxInFlight(排队) + 1(等待入队) 批
+        AtomicInteger read = new AtomicInteger();
+        Iterator<Integer> source = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return read.get() < 1000;
+            }
+
+            @Override
+            public Integer next() {
+                return read.getAndIncrement();
+            }
+        };
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger total = new AtomicInteger();
+        CompletableFuture<BatchResult> future = CompletableFuture.supplyAsync(() -> BatchExecutor.parallel()
+                .batchSize(10).parallelism(2).maxInFlight(2).execute(source, batch -> {
+                    await(release);
+                    total.addAndGet(batch.size());
+                }));
+        sleep(200);
+        Assert.assertEquals((2 + 2 + 1) * 10, read.get());
+        release.countDown();
+        BatchResult result = future.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(1000, total.get());
+    }
+
+    @Test
+    public void testParallelCallerRunsExecutor() throws Exception {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        //直接在调用方线程执行的Executor立即失败，不会一直等待批次
+        CompletableFuture<BatchResult> inline = CompletableFuture.supplyAsync(() -> BatchExecutor.parallel()
+                .batchSize(100).parallelism(2).executor(Runnable::run).execute(list, batch -> { }));
+        try {
+            inline.get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        //CallerRunsPolicy退回调用方的工作任务按被拒绝处理，用已启动的工作任务执行
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            AtomicInteger total = new AtomicInteger();
+            BatchResult result = CompletableFuture.supplyAsync(() -> BatchExecutor.parallel().batchSize(100)
+                    .parallelism(3).executor(pool).execute(list, batch -> total.addAndGet(batch.size())))
+                    .get(5, TimeUnit.SECONDS);
+            Assert.assertTrue(result.isSuccess());
+            Assert.assertEquals(1000, total.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelBatchFailure() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        BatchResult result = BatchExecutor.parallel().batchSize(100).parallelism(4).execute(list, batch -> {
+            if (batch.contains(350) || batch.contains(750)) {
+                throw new IllegalStateException("batch " + batch.get(0));
+            }
+        });
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertFalse(result.isCancelled());
+        Assert.assertEquals(2, result.getFailedBatches());
+        Assert.assertEquals(800, result.getSucceededCount());
+        Assert.assertEquals("batch 300", result.getFirstException().getMessage());
+
+        AtomicInteger executed = new AtomicInteger();
+        BatchResult failFast = BatchExecutor.parallel().batchSize(10).parallelism(1).failFast().execute(list, batch -> {
+            executed.incrementAndGet();
+            throw new IllegalStateException();
+        });
+        Assert.assertTrue(failFast.isCancelled());
+        Assert.assertTrue(executed.get() < 100);
+    }
+
+    @Test
+    public void testStreamBatchExecutor() {
+        List<Integer> sizes = new ArrayList<>();
+        Set<List<Integer>> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        BatchExecutor.execute(IntStream.range(0, 1050).boxed(), 100, batch -> {
+            sizes.add(batch.size());
+            buffers.add(batch);
+        });
+        Assert.assertEquals(11, sizes.size());
+        Assert.assertEquals(1050, sum(sizes));
+        Assert.assertEquals(50, sizes.get(10).intValue());
+        Assert.assertEquals(1, buffers.size());
+
+        List<Integer> first = new ArrayList<>();
+        BatchExecutor.execute(IntStream.range(0, 10).iterator(), 3, batch -> first.add(batch.get(0)));
+        Assert.assertEquals(4, first.size());
+        Assert.assertEquals(9, first.get(3).intValue());
+    }
+
+    @Test
+    public void testParallelStreamBatchExecutor() {
+        AtomicInteger total = new AtomicInteger();
+        Set<List<Integer>> buffers = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        BatchResult result = BatchExecutor.parallel().batchSize(100).parallelism(4).maxInFlight(4)
+                .execute(IntStream.range(0, 100_000).boxed(), batch -> {
+                    buffers.add(batch);
+                    total.addAndGet(batch.size());
+                });
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(1000, result.getBatchCount());
+        Assert.assertEquals(100_000, total.get());
+        Assert.assertEquals(99_900, result.getOutcomes().get(999).getOffset());
+        //maxInFlight + parallelism + 1
+        Assert.assertTrue(buffers.size() <= 9);
+    }
+
+    @Test
+    public void testBatchingQueue() throws Exception {
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        BatchingQueue<Integer> queue = BatchingQueue.newBuilder().capacity(1024).maxBatchSize(100)
+                .maxLinger(5, TimeUnit.MILLISECONDS).build(batch -> {
+                    Assert.assertTrue(batch.size() <= 100);
+                    total.addAndGet(batch.size());
+                    batches.incrementAndGet();
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    futures.add(queue.offer(i));
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        Assert.assertEquals(40000, total.get());
+        Assert.assertTrue(batches.get() < 40000 / 10);
+
+        //不足一批时等待maxLinger后执行
+        long start = System.nanoTime();
+        queue.offer(1).get(1, TimeUnit.SECONDS);
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(4));
+        queue.close();
+        try {
+            queue.offer(1).get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testBatchingQueueWakeOnFullBatch() throws Exception {
+        //前5条已被消费线程取出在等待maxLinger，后5条凑满一批时立即执行，不等满1分钟
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        BatchingQueue<Integer> queue = BatchingQueue.newBuilder().maxBatchSize(10)
+                .maxLinger(1, TimeUnit.MINUTES).build(batch -> sizes.add(batch.size()));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(queue.offer(i));
+        }
+        sleep(50);
+        for (int i = 5; i < 10; i++) {
+            futures.add(queue.offer(i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(Collections.singletonList(10), sizes);
+        queue.close();
+    }
+
+    @Test
+    public void testBatchingQueueFullPolicy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> callerRuns = new ArrayList<>();
+        BatchingQueue<Integer> drop = BatchingQueue.newBuilder().capacity(4).maxBatchSize(1)
+                .fullPolicy(BatchingQueue.FullPolicy.DROP).build(batch -> await(release));
+        BatchingQueue<Integer> caller = BatchingQueue.newBuilder().capacity(4).maxBatchSize(1)
+                .fullPolicy(BatchingQueue.FullPolicy.CALLER_RUNS).build(batch -> {
+                    if (Thread.currentThread().getName().startsWith("lek-batching-queue")) {
+                        await(release);
+                    } else {
+                        callerRuns.addAll(batch);
+                    }
+                });
+        List<CompletableFuture<Void>> dropped = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            dropped.add(drop.offer(i));
+            caller.offer(i);
+        }
+        try {
+            dropped.get(9).get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        Assert.assertTrue(callerRuns.contains(9));
+        release.countDown();
+        drop.close();
+        caller.close();
+        Assert.assertTrue(dropped.get(0).isDone());
+    }
+
+    @Test
+    public void testAdaptiveBatchSize() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            list.add(i);
+        }
+        //下游每100条耗时1毫秒，目标10毫秒时批次大小应收敛到1000左右
+        AdaptiveBatchSize sizing = new AdaptiveBatchSize(10, 5000, 10, TimeUnit.MILLISECONDS).additiveIncrease(100);
+        AtomicInteger total = new AtomicInteger();
+        BatchExecutor.execute(list, sizing, batch -> {
+            sleep(batch.size() / 100);
+            total.addAndGet(batch.size());
+        });
+        Assert.assertEquals(50000, total.get());
+        Assert.assertTrue(sizing.toString(), sizing.getBatchSize() >= 300 && sizing.getBatchSize() <= 1500);
+        Assert.assertTrue(sizing.getDecreaseCount() > 0);
+
+        //下游变慢后自动减小
+        int before = sizing.getBatchSize();
+        BatchExecutor.execute(list.subList(0, 5000).iterator(), sizing, batch -> sleep(batch.size() / 20));
+        Assert.assertTrue(sizing.toString(), sizing.getBatchSize() < before);
+
+        BatchResult result = BatchExecutor.parallel().parallelism(2).adaptive(sizing)
+                .execute(list, batch -> sleep(batch.size() / 100));
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(50000, result.getSucceededCount());
+    }
+
+    @Test
+    public void testAdaptiveDecreaseOncePerEpoch() {
+        AdaptiveBatchSize sizing = new AdaptiveBatchSize(10, 1000, 10, TimeUnit.MILLISECONDS).initialSize(800);
+        long slow = TimeUnit.MILLISECONDS.toNanos(50);
+        //4个并行在途的批次都在减小之前切分，一起变慢只减小一次
+        long epoch = sizing.epoch();
+        for (int i = 0; i < 4; i++) {
+            sizing.record(800, slow, true, epoch);
+        }
+        Assert.assertEquals(400, sizing.getBatchSize());
+        Assert.assertEquals(1, sizing.getDecreaseCount());
+        Assert.assertEquals(4, sizing.getBatchCount());
+        //减小之后切分的批次仍然变慢时继续减小
+        sizing.record(400, slow, false, sizing.epoch());
+        Assert.assertEquals(200, sizing.getBatchSize());
+        //旧批次的快速结果也不再增加
+        sizing.record(800, 0, true, epoch);
+        Assert.assertEquals(200, sizing.getBatchSize());
+        sizing.record(200, 0, true);
+        Assert.assertEquals(249, sizing.getBatchSize());
+    }
+
+    @Test
+    public void testRetryAndSplit() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        //第一次执行整批超时，之后只有包含坏数据的批次失败
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> deadLetters = new ArrayList<>();
+        ResilientConsumer<Integer> consumer = BatchExecutor.retry().maxAttempts(3).backoff(1, 10, TimeUnit.MILLISECONDS)
+                .wrap(batch -> {
+                    if (calls.incrementAndGet() == 1) {
+                        throw new IllegalStateException("timeout");
+                    }
+                    if (batch.contains(7) || batch.contains(450)) {
+                        throw new IllegalArgumentException("bad row");
+                    }
+                    written.addAll(batch);
+                }, (item, e) -> deadLetters.add(item));
+        BatchExecutor.execute(list, 200, consumer);
+        Assert.assertEquals(Arrays.asList(7, 450), deadLetters);
+        Assert.assertEquals(998, written.size());
+        Assert.assertEquals(998, consumer.getSucceededCount());
+        Assert.assertEquals(2, consumer.getDeadLetterCount());
+        Assert.assertTrue(consumer.getRetryCount() >= 2);
+        Assert.assertTrue(consumer.getSplitCount() > 0);
+
+        //不重试的异常直接拆分
+        List<Integer> noRetry = new ArrayList<>();
+        ResilientConsumer<Integer> direct = BatchExecutor.retry().retryOn(e -> !(e instanceof IllegalArgumentException))
+                .wrap(batch -> {
+                    if (batch.contains(3)) {
+                        throw new IllegalArgumentException("bad row");
+                    }
+                }, (item, e) -> noRetry.add(item));
+        direct.accept(list.subList(0, 10));
+        Assert.assertEquals(Collections.singletonList(3), noRetry);
+        Assert.assertEquals(0, direct.getRetryCount());
+
+        //死信处理抛出异常时不影响后半批的拆分执行
+        List<Integer> accepted = new ArrayList<>();
+        ResilientConsumer<Integer> throwingSink = BatchExecutor.retry().maxAttempts(1)
+                .wrap(batch -> {
+                    if (batch.contains(1) || batch.contains(8)) {
+                        throw new IllegalArgumentException("bad row");
+                    }
+                    accepted.addAll(batch);
+                }, (item, e) -> {
+                    throw new IllegalStateException("sink down");
+                });
+        throwingSink.accept(list.subList(0, 10));
+        Assert.assertEquals(Arrays.asList(0, 2, 3, 4, 5, 6, 7, 9), accepted);
+        Assert.assertEquals(8, throwingSink.getSucceededCount());
+        Assert.assertEquals(0, throwingSink.getDeadLetterCount());
+        Assert.assertEquals(2, throwingSink.getDeadLetterFailureCount());
+    }
+
+    @Test
+    public void testBatchJobResume() throws Exception {
+        Path dir = Files.createTempDirectory("lek-batch-job");
+        FileCheckpointStore store = new FileCheckpointStore(dir);
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        //第350条所在的批次失败，之前提交的3批写入检查点
+        List<Integer> written = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        BatchJob<Integer> job = BatchExecutor.<Integer>job("resume-test", store).batchSize(100).totalRows(1000);
+        try {
+            job.run(list, (batch, key) -> {
+                if (batch.contains(350)) {
+                    throw new IllegalStateException("crash");
+                }
+                written.addAll(batch);
+                keys.add(key);
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("crash", e.getMessage());
+        }
+        Assert.assertEquals(JobProgress.State.FAILED, job.getProgress().getState());
+        Assert.assertEquals(300, store.load("resume-test").getOffset());
+
+        //新的实例从检查点继续
+        List<JobProgress> reported = new ArrayList<>();
+        JobProgress progress = BatchExecutor.<Integer>job("resume-test", store).batchSize(100).totalRows(1000)
+                .progressListener(reported::add)
+                .run(offset -> list.subList((int) offset, list.size()).iterator(), (batch, key) -> {
+                    written.addAll(batch);
+                    keys.add(key);
+                });
+        Assert.assertEquals(list, written);
+        Assert.assertEquals("resume-test:300", keys.get(3));
+        Assert.assertEquals(JobProgress.State.COMPLETED, progress.getState());
+        Assert.assertEquals(300, progress.getResumedOffset());
+        Assert.assertEquals(700, progress.getRowsThisRun());
+        Assert.assertEquals(100.0, progress.getPercent(), 0.001);
+        Assert.assertEquals(0, progress.getEta(TimeUnit.SECONDS));
+        Assert.assertEquals(8, reported.size());
+        Assert.assertTrue(store.load("resume-test").isCompleted());
+
+        //已完成的任务不再执行，重置后从头执行
+        BatchJob<Integer> again = BatchExecutor.job("resume-test", store);
+        Assert.assertEquals(JobProgress.State.COMPLETED, again.run(list, (batch, key) -> Assert.fail()).getState());
+        again.reset();
+        Assert.assertNull(store.load("resume-test"));
+
+        //按key恢复，stop后下次从最后提交的key继续
+        List<Integer> byKey = new ArrayList<>();
+        BatchJob<Integer> keyed = BatchExecutor.<Integer>job("key-test", store).batchSize(100);
+        Function<String, Iterator<Integer>> source = lastKey -> list.stream()
+                .filter(i -> lastKey == null || i > Integer.parseInt(lastKey)).iterator();
+        JobProgress stopped = keyed.runByKey(source, String::valueOf, (batch, key) -> {
+            byKey.addAll(batch);
+            if (byKey.size() == 500) {
+                keyed.stop();
+            }
+        });
+        Assert.assertEquals(JobProgress.State.STOPPED, stopped.getState());
+        Assert.assertEquals("499", store.load("key-test").getLastKey());
+        List<String> resumedKeys = new ArrayList<>();
+        keyed.runByKey(source, String::valueOf, (batch, key) -> {
+            byKey.addAll(batch);
+            resumedKeys.add(key);
+        });
+        Assert.assertEquals(list, byKey);
+        Assert.assertEquals("key-test:499", resumedKeys.get(0));
+        log.info("{}", keyed.getProgress());
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     //List<Integer>中所有元素相加求和
     private int sum(List<Integer> list){
         return list.stream().mapToInt(Integer::intValue).sum();
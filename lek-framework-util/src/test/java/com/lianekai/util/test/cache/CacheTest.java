@@ -0,0 +1,794 @@
+package com.lianekai.util.test.cache;
+
+import com.lianekai.util.cache.Cache;
+import com.lianekai.util.cache.CacheBuilder;
+import com.lianekai.util.cache.CacheCodecs;
+import com.lianekai.util.cache.CacheRegistry;
+import com.lianekai.util.cache.CacheSnapshot;
+import com.lianekai.util.cache.CacheStats;
+import com.lianekai.util.cache.EvictionPolicy;
+import com.lianekai.util.cache.Expirable;
+import com.lianekai.util.cache.HitRatioSimulator;
+import com.lianekai.util.cache.InvalidationMessage;
+import com.lianekai.util.cache.LocalInvalidationBus;
+import com.lianekai.util.cache.LRUMap;
+import com.lianekai.util.cache.LongKeyCache;
+import com.lianekai.util.cache.NearCache;
+import com.lianekai.util.cache.OffHeapStore;
+import com.lianekai.util.cache.RemovalCause;
+import com.lianekai.util.cache.SnapshotOrder;
+import com.lianekai.util.cache.UdpInvalidationBus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地缓存测试
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 10:40
+ */
+public class CacheTest {
+
+    @Test
+    public void testGet() {
+        Cache<String, String> cache = new Cache<>(32);
+        AtomicInteger loadTimes = new AtomicInteger();
+        Assert.assertEquals("v", cache.get("k", () -> {
+            loadTimes.incrementAndGet();
+            return "v";
+        }));
+        //第二次命中缓存，不再调用loader
+        Assert.assertEquals("v", cache.get("k", () -> {
+            loadTimes.incrementAndGet();
+            return "other";
+        }));
+        Assert.assertEquals(1, loadTimes.get());
+    }
+
+    @Test
+    public void testLoaderErrorNotCached() {
+        Cache<String, String> cache = new Cache<>(32);
+        Assert.assertNull(cache.get("k", () -> {
+            throw new IllegalStateException("load error");
+        }));
+        Assert.assertNull(cache.getIfPresent("k"));
+        Assert.assertEquals("v", cache.get("k", () -> "v"));
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() throws Exception {
+        Cache<String, String> cache = new Cache<>(32);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> value = executor.submit(() -> cache.get("k", () -> {
+                loading.countDown();
+                invalidated.await();
+                return "stale";
+            }));
+            loading.await();
+            cache.invalidate("k");
+            invalidated.countDown();
+            //加载期间被失效，调用方拿到加载结果，但不写回缓存
+            Assert.assertEquals("stale", value.get(5, TimeUnit.SECONDS));
+            Assert.assertNull(cache.getIfPresent("k"));
+            Assert.assertEquals("fresh", cache.get("k", () -> "fresh"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testCustomMap() {
+        //自定义Map中保存的是值本身，已有数据直接命中，缓存写入的值也可以直接读取
+        Map<String, String> map = new LRUMap<>(2);
+        map.put("a", "1");
+        Cache<String, String> cache = new Cache<>(map);
+        Assert.assertEquals("1", cache.get("a", () -> "other"));
+        Assert.assertEquals("2", cache.get("b", () -> "2"));
+        Assert.assertEquals("2", map.get("b"));
+        cache.put("c", "3");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.getIfPresent("a"));
+        cache.invalidate("c");
+        Assert.assertFalse(map.containsKey("c"));
+    }
+
+    @Test
+    public void testMaximumSize() {
+        Cache<Integer, Integer> cache = new Cache<>(64);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        Assert.assertTrue(cache.size() <= 64);
+
+        Cache<Integer, Integer> unbounded = CacheBuilder.newBuilder().unbounded().recordStats().build();
+        for (int i = 0; i < 1000; i++) {
+            unbounded.put(i, i);
+        }
+        Assert.assertEquals(1000, unbounded.size());
+        Assert.assertEquals(0, unbounded.stats().getEvictionCount());
+    }
+
+    @Test
+    public void testConcurrentLoadCoalesced() throws Exception {
+        Cache<String, String> cache = new Cache<>(32);
+        AtomicInteger loadTimes = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future[threads];
+            for (int i = 0; i < threads; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    return cache.get("k", () -> {
+                        loadTimes.incrementAndGet();
+                        Thread.sleep(100);
+                        return "v";
+                    });
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                Assert.assertEquals("v", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loadTimes.get());
+    }
+
+    @Test
+    public void testSlowLoaderNotBlockOtherKey() throws Exception {
+        Cache<String, String> cache = new Cache<>(32);
+        cache.put("hot", "v");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> cache.get("slow", () -> {
+                loading.countDown();
+                release.await();
+                return "slow";
+            }));
+            loading.await();
+            //慢加载进行中，其他key的读写不受影响
+            Assert.assertEquals("v", cache.getIfPresent("hot"));
+            cache.put("other", "o");
+            Assert.assertEquals("o", cache.getIfPresent("other"));
+            release.countDown();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals("slow", cache.getIfPresent("slow"));
+    }
+
+    @Test
+    public void testExpireAfterWrite() throws Exception {
+        Cache<String, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(32)
+                .expireAfterWrite(50, TimeUnit.MILLISECONDS)
+                .build();
+        cache.put("k", "v");
+        Assert.assertEquals("v", cache.getIfPresent("k"));
+        Thread.sleep(80);
+        Assert.assertNull(cache.getIfPresent("k"));
+        //过期后重新加载
+        Assert.assertEquals("v2", cache.get("k", () -> "v2"));
+    }
+
+    @Test
+    public void testExpireAfterAccess() throws Exception {
+        Cache<String, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(32)
+                .expireAfterAccess(100, TimeUnit.MILLISECONDS)
+                .build();
+        cache.put("k", "v");
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(40);
+            Assert.assertEquals("v", cache.getIfPresent("k"));
+        }
+        Thread.sleep(150);
+        Assert.assertNull(cache.getIfPresent("k"));
+    }
+
+    @Test
+    public void testPerEntryExpireAndCleanUp() throws Exception {
+        Cache<String, String> cache = new Cache<>(32);
+        cache.put("short", "v", 30, TimeUnit.MILLISECONDS);
+        cache.put("long", "v");
+        Thread.sleep(60);
+        Assert.assertEquals(1, cache.cleanUp());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals("v", cache.getIfPresent("long"));
+    }
+
+    @Test
+    public void testCleanupInterval() throws Exception {
+        Cache<Integer, Integer> cache = CacheBuilder.newBuilder()
+                .maximumSize(128)
+                .expireAfterWrite(20, TimeUnit.MILLISECONDS)
+                .cleanupInterval(20, TimeUnit.MILLISECONDS)
+                .build();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        Thread.sleep(200);
+        //后台线程已清理，不依赖访问
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLRUMapRemoveExpired() {
+        LRUMap<String, Expiring> map = new LRUMap<>(16);
+        map.put("b", new Expiring(false));
+        map.put("a", new Expiring(true));
+        map.put("c", new Expiring(true));
+        Assert.assertEquals(2, map.removeExpired(System.nanoTime(), 0));
+        Assert.assertTrue(map.containsKey("b"));
+        //最老的条目已过期时，写入会顺带淘汰它
+        map.put("d", new Expiring(true));
+        map.put("e", new Expiring(false));
+        map.get("b");
+        map.put("f", new Expiring(false));
+        Assert.assertFalse(map.containsKey("d"));
+    }
+
+    private static class Expiring implements Expirable {
+        private final boolean expired;
+
+        Expiring(boolean expired) {
+            this.expired = expired;
+        }
+
+        @Override
+        public boolean isExpired(long now) {
+            return expired;
+        }
+    }
+
+    @Test
+    public void testTinyLfuScanResistant() {
+        List<String> trace = scanTrace();
+        Map<EvictionPolicy, HitRatioSimulator.Result> results = HitRatioSimulator.compare(200, trace.iterator());
+        HitRatioSimulator.Result lru = results.get(EvictionPolicy.LRU);
+        HitRatioSimulator.Result tinyLfu = results.get(EvictionPolicy.TINY_LFU);
+        //批量扫描会冲掉LRU中的热点数据，TinyLFU不会
+        Assert.assertTrue(lru + " vs " + tinyLfu, tinyLfu.getHitRatio() > lru.getHitRatio() + 0.05);
+    }
+
+    @Test
+    public void testTinyLfuCache() {
+        Cache<Integer, Integer> cache = CacheBuilder.newBuilder()
+                .maximumSize(64)
+                .evictionPolicy(EvictionPolicy.TINY_LFU)
+                .build();
+        for (int i = 0; i < 1000; i++) {
+            int key = i;
+            Assert.assertEquals(Integer.valueOf(key), cache.get(key, () -> key));
+        }
+        Assert.assertTrue(cache.size() <= 64);
+    }
+
+    @Test
+    public void testSimulatorReplayFile() throws Exception {
+        Path file = Files.createTempFile("cache-trace", ".log");
+        try {
+            Files.write(file, scanTrace(), StandardCharsets.UTF_8);
+            Map<EvictionPolicy, HitRatioSimulator.Result> results = HitRatioSimulator.compare(200, file);
+            Assert.assertEquals(scanTrace().size(), results.get(EvictionPolicy.LRU).getRequests());
+            Assert.assertEquals(scanTrace().size(), results.get(EvictionPolicy.TINY_LFU).getRequests());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testGetAsyncShareFuture() throws Exception {
+        Cache<String, String> cache = new Cache<>(32);
+        AtomicInteger loadTimes = new AtomicInteger();
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = cache.getAsync("k", key -> {
+            loadTimes.incrementAndGet();
+            return source;
+        });
+        CompletableFuture<String> second = cache.getAsync("k", key -> {
+            loadTimes.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        //未命中不阻塞，加载完成前两个调用共享同一个future
+        Assert.assertFalse(first.isDone());
+        Assert.assertSame(first, second);
+        source.complete("v");
+        Assert.assertEquals("v", second.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals("v", cache.getIfPresent("k"));
+        Assert.assertEquals(1, loadTimes.get());
+    }
+
+    @Test
+    public void testGetAsyncFailureNotCached() throws Exception {
+        Cache<String, String> cache = new Cache<>(32);
+        CompletableFuture<String> failed = cache.getAsync("k", key -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("load error"));
+            return future;
+        });
+        Assert.assertTrue(failed.isCompletedExceptionally());
+        Assert.assertNull(cache.getIfPresent("k"));
+        Assert.assertEquals("v", cache.getAsync("k", key -> CompletableFuture.completedFuture("v")).get());
+    }
+
+    @Test
+    public void testInvalidateDuringAsyncLoad() throws Exception {
+        Cache<String, String> cache = new Cache<>(32);
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> value = cache.getAsync("k", key -> source);
+        cache.invalidate("k");
+        source.complete("stale");
+        Assert.assertEquals("stale", value.get());
+        Assert.assertNull(cache.getIfPresent("k"));
+
+        //刷新期间被失效，刷新结果同样不写回
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Cache<String, String> refreshing = CacheBuilder.newBuilder().maximumSize(32)
+                    .refreshAfterWrite(10, TimeUnit.MILLISECONDS).executor(executor).build();
+            refreshing.put("k", "v1");
+            Thread.sleep(20);
+            CompletableFuture<String> reload = new CompletableFuture<>();
+            Assert.assertEquals("v1", refreshing.getAsync("k", key -> reload).get());
+            refreshing.invalidateAll();
+            reload.complete("v2");
+            Assert.assertNull(refreshing.getIfPresent("k"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRefreshAfterWrite() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Cache<String, String> cache = CacheBuilder.newBuilder()
+                    .maximumSize(32)
+                    .refreshAfterWrite(30, TimeUnit.MILLISECONDS)
+                    .executor(executor)
+                    .build();
+            cache.put("k", "v1");
+            Thread.sleep(50);
+            CountDownLatch release = new CountDownLatch(1);
+            //到期后先返回旧值，刷新在后台进行
+            Assert.assertEquals("v1", cache.get("k", () -> {
+                release.await();
+                return "v2";
+            }));
+            Assert.assertEquals("v1", cache.getAsync("k", key -> CompletableFuture.completedFuture("v3")).get());
+            release.countDown();
+            executor.submit(() -> null).get(1, TimeUnit.SECONDS);
+            Assert.assertEquals("v2", cache.getIfPresent("k"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetAll() {
+        Cache<Integer, String> cache = new Cache<>(256);
+        cache.put(1, "cached-1");
+        List<Integer> loadTimes = new ArrayList<>();
+        Map<Integer, String> result = cache.getAll(Arrays.asList(3, 1, 2, 4), keys -> {
+            loadTimes.add(keys.size());
+            Map<Integer, String> loaded = new HashMap<>();
+            for (Integer key : keys) {
+                //4在数据源中不存在
+                if (key != 4) {
+                    loaded.put(key, "loaded-" + key);
+                }
+            }
+            return loaded;
+        });
+        //只有未命中的key调用一次批量加载
+        Assert.assertEquals(Arrays.asList(3), loadTimes);
+        Assert.assertEquals(Arrays.asList(3, 1, 2), new ArrayList<>(result.keySet()));
+        Assert.assertEquals("cached-1", result.get(1));
+        Assert.assertEquals("loaded-2", cache.getIfPresent(2));
+    }
+
+    @Test
+    public void testGetAllBatch() {
+        Cache<Integer, Integer> cache = new Cache<>(1024);
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 450; i++) {
+            keys.add(i);
+        }
+        List<Integer> batchSizes = new ArrayList<>();
+        Map<Integer, Integer> result = cache.getAll(keys, 200, misses -> {
+            batchSizes.add(misses.size());
+            Map<Integer, Integer> loaded = new HashMap<>();
+            misses.forEach(key -> loaded.put(key, key));
+            return loaded;
+        });
+        Assert.assertEquals(Arrays.asList(200, 200, 50), batchSizes);
+        Assert.assertEquals(450, result.size());
+        Assert.assertEquals(450, cache.size());
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        Cache<Integer, Integer> cache = CacheBuilder.newBuilder()
+                .maximumSize(16)
+                .recordStats()
+                .name("cacheTest")
+                .build();
+        Assert.assertSame(cache, CacheRegistry.get("cacheTest"));
+        for (int i = 0; i < 20; i++) {
+            int key = i;
+            cache.get(key, () -> key);
+        }
+        cache.get(19, () -> 0);
+        cache.get(100, () -> {
+            throw new IllegalStateException("load error");
+        });
+        cache.put(200, 200, 10, TimeUnit.MILLISECONDS);
+        cache.invalidate(19);
+        Thread.sleep(20);
+        Assert.assertNull(cache.getIfPresent(200));
+
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(22, stats.getMissCount());
+        Assert.assertEquals(20, stats.getLoadSuccessCount());
+        Assert.assertEquals(1, stats.getLoadFailureCount());
+        Assert.assertTrue(stats.getTotalLoadTime() > 0);
+        Assert.assertEquals(5, stats.getEvictionCount(RemovalCause.SIZE));
+        Assert.assertEquals(1, stats.getEvictionCount(RemovalCause.EXPLICIT));
+        Assert.assertEquals(1, stats.getEvictionCount(RemovalCause.EXPIRED));
+    }
+
+    @Test
+    public void testStatsDisabled() {
+        Cache<Integer, Integer> cache = new Cache<>(16);
+        cache.get(1, () -> 1);
+        cache.get(1, () -> 1);
+        Assert.assertEquals(0, cache.stats().getRequestCount());
+    }
+
+    @Test
+    public void testOffHeapStore() throws Exception {
+        try (OffHeapStore<Long, String> store = OffHeapStore.direct(4 << 20, CacheCodecs.LONG, CacheCodecs.STRING)) {
+            for (long i = 0; i < 1000; i++) {
+                store.put(i, "value-" + i);
+            }
+            Assert.assertEquals(1000, store.size());
+            Assert.assertEquals("value-10", store.get(10L));
+            store.put(10L, "updated");
+            Assert.assertEquals("updated", store.get(10L));
+            store.remove(10L);
+            Assert.assertNull(store.get(10L));
+            Assert.assertEquals(999, store.size());
+            store.clear();
+            Assert.assertEquals(0, store.size());
+
+            //关闭后不能再使用，重复关闭忽略
+            store.put(1L, "value-1");
+            store.remove(1L);
+            store.close();
+            Assert.assertEquals(0, store.allocatedBytes());
+            try {
+                store.put(2L, "value-2");
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("OffHeapStore is closed", e.getMessage());
+            }
+            try {
+                store.get(1L);
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("OffHeapStore is closed", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapStoreRecover() throws Exception {
+        Path file = Files.createTempFile("lek-cache", ".dat");
+        try {
+            try (OffHeapStore<Long, String> store = OffHeapStore.mapped(file, 4 << 20, CacheCodecs.LONG, CacheCodecs.STRING)) {
+                for (long i = 0; i < 100; i++) {
+                    store.put(i, "value-" + i);
+                }
+                store.remove(1L);
+            }
+            try (OffHeapStore<Long, String> store = OffHeapStore.mapped(file, 4 << 20, CacheCodecs.LONG, CacheCodecs.STRING)) {
+                Assert.assertEquals(99, store.size());
+                Assert.assertEquals("value-50", store.get(50L));
+                Assert.assertNull(store.get(1L));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSecondLevel() throws Exception {
+        try (OffHeapStore<Long, String> store = OffHeapStore.direct(4 << 20, CacheCodecs.LONG, CacheCodecs.STRING)) {
+            Cache<Long, String> cache = CacheBuilder.newBuilder().maximumSize(2).concurrencyLevel(1).build(store);
+            AtomicInteger loads = new AtomicInteger();
+            for (long i = 0; i < 10; i++) {
+                long key = i;
+                cache.get(key, () -> {
+                    loads.incrementAndGet();
+                    return "value-" + key;
+                });
+            }
+            Assert.assertEquals(10, loads.get());
+            Assert.assertEquals(10, store.size());
+            //一级缓存已淘汰，从二级缓存取回，不再调用loader
+            Assert.assertEquals("value-0", cache.get(0L, () -> {
+                loads.incrementAndGet();
+                return "reloaded";
+            }));
+            Assert.assertEquals(10, loads.get());
+            cache.invalidate(0L);
+            Assert.assertNull(store.get(0L));
+        }
+    }
+
+    @Test
+    public void testSecondLevelExpiry() throws Exception {
+        try (OffHeapStore<Long, String> store = OffHeapStore.direct(4 << 20, CacheCodecs.LONG, CacheCodecs.STRING)) {
+            Cache<Long, String> cache = CacheBuilder.newBuilder().maximumSize(16).concurrencyLevel(1)
+                    .expireAfterWrite(200, TimeUnit.MILLISECONDS).recordStats().build(store);
+            AtomicInteger loads = new AtomicInteger();
+            Callable<String> loader = () -> "value-" + loads.incrementAndGet();
+            Assert.assertEquals("value-1", cache.get(1L, loader));
+            //一级缓存淘汰后从二级缓存取回，按最初的写入时间过期
+            Thread.sleep(100);
+            for (long key = 100; key < 140; key++) {
+                cache.put(key, "filler");
+            }
+            Assert.assertEquals("value-1", cache.get(1L, loader));
+            CacheStats stats = cache.stats();
+            Assert.assertEquals(1, stats.getSecondLevelHitCount());
+            Assert.assertEquals(1, stats.getLoadSuccessCount());
+            //两级都过期后重新调用loader
+            Thread.sleep(150);
+            Assert.assertNull(store.get(1L));
+            Assert.assertEquals("value-2", cache.get(1L, loader));
+            Assert.assertEquals(2, cache.stats().getLoadSuccessCount());
+            Assert.assertEquals(1, cache.stats().getSecondLevelHitCount());
+        }
+    }
+
+    @Test
+    public void testLongKeyCache() {
+        LongKeyCache<String> cache = new LongKeyCache<>(64, 1);
+        AtomicInteger loads = new AtomicInteger();
+        Assert.assertEquals("1", cache.get(1L, key -> {
+            loads.incrementAndGet();
+            return String.valueOf(key);
+        }));
+        Assert.assertEquals("1", cache.get(1L, key -> "other"));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertNull(cache.get(2L, key -> null));
+        Assert.assertNull(cache.getIfPresent(2L));
+
+        //写满后反复访问热点key，CLOCK淘汰的应该是只访问过一次的key
+        for (long i = 0; i < 64; i++) {
+            cache.put(i, "v" + i);
+        }
+        for (long i = 0; i < 8; i++) {
+            cache.getIfPresent(i);
+        }
+        for (long i = 1000; i < 1032; i++) {
+            cache.put(i, "v" + i);
+        }
+        Assert.assertEquals(64, cache.size());
+        for (long i = 0; i < 8; i++) {
+            Assert.assertEquals("v" + i, cache.getIfPresent(i));
+        }
+
+        //删除后探测链上的其他key仍然可以找到
+        for (long i = 0; i < 8; i++) {
+            Assert.assertEquals("v" + i, cache.invalidate(i));
+        }
+        Assert.assertEquals(56, cache.size());
+        int found = 0;
+        for (long i = 8; i < 1032; i++) {
+            String value = cache.getIfPresent(i);
+            if (value != null) {
+                Assert.assertEquals("v" + i, value);
+                found++;
+            }
+        }
+        Assert.assertEquals(56, found);
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.getIfPresent(1000L));
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        Path file = Files.createTempFile("lek-cache", ".snapshot");
+        try {
+            Cache<Long, String> cache = CacheBuilder.newBuilder().maximumSize(1000).build();
+            for (long i = 0; i < 100; i++) {
+                cache.put(i, "value-" + i);
+            }
+            cache.put(100L, "short", 1, TimeUnit.MILLISECONDS);
+            for (long i = 90; i < 100; i++) {
+                cache.getIfPresent(i);
+            }
+            Thread.sleep(5);
+            CacheSnapshot<Long, String> snapshot = new CacheSnapshot<>(cache, file, CacheCodecs.LONG, CacheCodecs.STRING)
+                    .maxEntries(10);
+            Assert.assertEquals(10, snapshot.save());
+
+            //只保留了最近访问的10个条目
+            Cache<Long, String> restored = CacheBuilder.newBuilder().maximumSize(1000).build();
+            restored.put(95L, "fresh");
+            Assert.assertEquals(9, new CacheSnapshot<>(restored, file, CacheCodecs.LONG, CacheCodecs.STRING).restore());
+            Assert.assertEquals(10, restored.size());
+            Assert.assertEquals("value-90", restored.getIfPresent(90L));
+            Assert.assertEquals("fresh", restored.getIfPresent(95L));
+            Assert.assertNull(restored.getIfPresent(0L));
+
+            Assert.assertEquals(101, snapshot.maxEntries(0).order(SnapshotOrder.FREQUENCY).save() + 1);
+            Cache<Long, String> async = CacheBuilder.newBuilder().maximumSize(1000).build();
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                int count = new CacheSnapshot<>(async, file, CacheCodecs.LONG, CacheCodecs.STRING)
+                        .restoreAsync(executor).get(5, TimeUnit.SECONDS);
+                Assert.assertEquals(100, count);
+                Assert.assertEquals("value-0", async.getIfPresent(0L));
+            } finally {
+                executor.shutdown();
+            }
+
+            //文件被截断时恢复已读出的条目
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+            Cache<Long, String> truncated = CacheBuilder.newBuilder().maximumSize(1000).build();
+            Assert.assertEquals(99, new CacheSnapshot<>(truncated, file, CacheCodecs.LONG, CacheCodecs.STRING).restore());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSnapshotRestoreIntoSmallerCache() throws Exception {
+        Path file = Files.createTempFile("lek-cache", ".snapshot");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Cache<Long, String> cache = CacheBuilder.newBuilder().maximumSize(5000).concurrencyLevel(1).build();
+            for (long i = 0; i < 3000; i++) {
+                cache.put(i, "value-" + i);
+            }
+            for (long i = 0; i < 50; i++) {
+                cache.getIfPresent(i);
+            }
+            new CacheSnapshot<>(cache, file, CacheCodecs.LONG, CacheCodecs.STRING).save();
+
+            //最热的条目最后写入，恢复到更小的缓存时保留下来
+            Cache<Long, String> restored = CacheBuilder.newBuilder().maximumSize(100).concurrencyLevel(1).build();
+            new CacheSnapshot<>(restored, file, CacheCodecs.LONG, CacheCodecs.STRING).restore();
+            Cache<Long, String> async = CacheBuilder.newBuilder().maximumSize(100).concurrencyLevel(1).build();
+            new CacheSnapshot<>(async, file, CacheCodecs.LONG, CacheCodecs.STRING).restoreAsync(executor)
+                    .get(5, TimeUnit.SECONDS);
+            for (long i = 0; i < 50; i++) {
+                Assert.assertEquals("value-" + i, restored.getIfPresent(i));
+                Assert.assertEquals("value-" + i, async.getIfPresent(i));
+            }
+            Assert.assertNull(restored.getIfPresent(50L));
+        } finally {
+            executor.shutdown();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testNearCache() {
+        LocalInvalidationBus bus = new LocalInvalidationBus();
+        AtomicInteger messages = new AtomicInteger();
+        bus.subscribe(message -> messages.incrementAndGet());
+        NearCache<Long, String> first = new NearCache<Long, String>(new Cache<>(64), "user", bus, CacheCodecs.LONG)
+                .coalesce(1, TimeUnit.MINUTES);
+        NearCache<Long, String> second = new NearCache<>(new Cache<>(64), "user", bus, CacheCodecs.LONG);
+        NearCache<Long, String> other = new NearCache<>(new Cache<>(64), "order", bus, CacheCodecs.LONG);
+        for (long i = 0; i < 10; i++) {
+            second.get(i, () -> "old");
+            other.get(i, () -> "order");
+        }
+
+        //合并窗口内的多次写入只发送一条消息
+        for (int round = 0; round < 5; round++) {
+            for (long i = 0; i < 5; i++) {
+                first.put(i, "new");
+            }
+        }
+        Assert.assertEquals(0, messages.get());
+        Assert.assertEquals("old", second.getIfPresent(0L));
+        first.flush();
+        Assert.assertEquals(1, messages.get());
+        Assert.assertNull(second.getIfPresent(0L));
+        Assert.assertEquals("old", second.getIfPresent(5L));
+        Assert.assertEquals("order", other.getIfPresent(0L));
+        Assert.assertEquals("new", first.getIfPresent(0L));
+
+        first.invalidateAll();
+        first.flush();
+        Assert.assertEquals(0, second.getCache().size());
+        Assert.assertEquals(10, other.getCache().size());
+
+        //时钟落后的实例发出的版本号更小，仍然生效
+        second.get(1L, () -> "old");
+        bus.publish(InvalidationMessage.keys("lagging", "user", new byte[][]{CacheCodecs.LONG.encode(1L)},
+                new long[]{1}));
+        Assert.assertNull(second.getIfPresent(1L));
+        second.get(2L, () -> "old");
+        bus.publish(InvalidationMessage.all("lagging", "user", 1));
+        Assert.assertNull(second.getIfPresent(2L));
+    }
+
+    @Test
+    public void testUdpInvalidationBus() throws Exception {
+        InetSocketAddress loopback = new InetSocketAddress("127.0.0.1", 0);
+        try (UdpInvalidationBus firstBus = UdpInvalidationBus.unicast(loopback, Collections.emptyList());
+             UdpInvalidationBus secondBus = UdpInvalidationBus.unicast(loopback, Collections.emptyList())) {
+            firstBus.addPeer(new InetSocketAddress("127.0.0.1", secondBus.getLocalPort()));
+            NearCache<Long, String> first = new NearCache<Long, String>(new Cache<>(64), "user", firstBus, CacheCodecs.LONG)
+                    .coalesce(0, TimeUnit.MILLISECONDS);
+            NearCache<Long, String> second = new NearCache<>(new Cache<>(64), "user", secondBus, CacheCodecs.LONG);
+            second.get(1L, () -> "old");
+            first.put(1L, "new");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (second.getIfPresent(1L) != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertNull(second.getIfPresent(1L));
+        }
+    }
+
+    /**
+     * 热点数据访问与一次性的批量扫描交替出现
+     */
+    private List<String> scanTrace() {
+        Random random = new Random(7);
+        List<String> trace = new ArrayList<>();
+        int scanKey = 0;
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 500; i++) {
+                trace.add("hot-" + random.nextInt(100));
+            }
+            for (int i = 0; i < 500; i++) {
+                trace.add("scan-" + scanKey++);
+            }
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,93 @@
+package com.lianekai.util.test.cache;
+
+import com.lianekai.util.cache.Cache;
+import com.lianekai.util.cache.LongKeyCache;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * LongKeyCache与基于LRUMap的Cache对比，相同容量、相同的Snowflake风格key序列
+ * 不属于单元测试，直接运行main方法，参数依次为容量、线程数、每个线程的访问次数
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/17 21:00
+ */
+public class LongKeyCacheBenchmark {
+
+    /**Snowflake ID的时间戳部分从第22位开始*/
+    private static final long ID_BASE = 1L << 40 << 22;
+
+    public static void main(String[] args) throws Exception {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000;
+        //key的范围是容量的2倍，热点集中在前面，命中率约80%
+        long[] keys = keys(capacity * 2, operations);
+
+        for (int round = 0; round < 3; round++) {
+            LongKeyCache<Object> longKeyCache = new LongKeyCache<>(capacity);
+            Cache<Long, Object> cache = new Cache<>(capacity);
+            Object value = new Object();
+            long longKeyNanos = run(threads, keys, key -> {
+                longKeyCache.get(key, k -> value);
+                return key;
+            });
+            long cacheNanos = run(threads, keys, key -> {
+                cache.get(key, () -> value);
+                return key;
+            });
+            System.out.printf("round %d, capacity %d, threads %d: LongKeyCache %.1f Mops/s, Cache %.1f Mops/s%n",
+                    round, capacity, threads, mops(threads, keys.length, longKeyNanos), mops(threads, keys.length, cacheNanos));
+        }
+    }
+
+    private static long[] keys(int range, int count) {
+        Random random = new Random(42);
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            //平方让分布偏向小的下标，模拟热点
+            double r = random.nextDouble();
+            int index = (int) (r * r * range);
+            keys[i] = ID_BASE + ((long) index << 12);
+        }
+        return keys;
+    }
+
+    private static long run(int threads, long[] keys, LongUnaryOperator operation) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7919;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < keys.length; i++) {
+                        operation.applyAsLong(keys[(i + offset) % keys.length]);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        return elapsed;
+    }
+
+    private static double mops(int threads, int operations, long nanos) {
+        return (double) threads * operations * 1000 / nanos;
+    }
+}
@@ -0,0 +1,55 @@
+package com.lianekai.util.test.tree;
+
+import com.lianekai.util.tree.TreeNode;
+import com.lianekai.util.tree.TreeNodeChild;
+import com.lianekai.util.tree.TreeNodeCode;
+import com.lianekai.util.tree.TreeNodeParentCode;
+
+import java.util.List;
+
+/**
+ * 树结构测试节点
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 18:10
+ */
+@TreeNode
+public class Dept {
+
+    @TreeNodeCode
+    private Long id;
+
+    @TreeNodeParentCode
+    private Long parentId;
+
+    private String name;
+
+    @TreeNodeChild
+    private List<Dept> children;
+
+    public Dept() {
+    }
+
+    public Dept(Long id, Long parentId, String name) {
+        this.id = id;
+        this.parentId = parentId;
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Dept> getChildren() {
+        return children;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lianekai.util.test.tree;
+
+import com.lianekai.util.tree.TreeNodeWrapper;
+import com.lianekai.util.tree.TreeUtils;
+
+import java.lang.reflect.Field;
+
+import java.util.List;
+
+/**
+ * TreeUtils.buildTree串行与并行对比，节点数依次为1万、10万、100万；以及TreeNodeWrapper读取编码与直接调用getter的对比
+ * 不属于单元测试，直接运行main方法，参数为每个规模的轮数
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 18:20
+ */
+public class TreeUtilsBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        for (int size : SIZES) {
+            List<Dept> depts = TreeUtilsTest.randomTree(size);
+            long serial = Long.MAX_VALUE;
+            long parallel = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                TreeUtils.buildTree(depts, false);
+                serial = Math.min(serial, System.nanoTime() - start);
+                start = System.nanoTime();
+                TreeUtils.buildTree(depts, true);
+                parallel = Math.min(parallel, System.nanoTime() - start);
+            }
+            System.out.printf("nodes %,d: serial %.1f ms, parallel %.1f ms (best of %d)%n", size,
+                    serial / 1e6, parallel / 1e6, rounds);
+        }
+        accessors(TreeUtilsTest.randomTree(1_000_000), rounds);
+    }
+
+    private static void accessors(List<Dept> depts, int rounds) throws ReflectiveOperationException {
+        TreeNodeWrapper wrapper = new TreeNodeWrapper(Dept.class);
+        Field field = Dept.class.getDeclaredField("parentId");
+        field.setAccessible(true);
+        long direct = Long.MAX_VALUE;
+        long generated = Long.MAX_VALUE;
+        long reflective = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < rounds * 4; round++) {
+            long start = System.nanoTime();
+            for (Dept dept : depts) {
+                sink += dept.getParentId() == null ? 0 : 1;
+            }
+            direct = Math.min(direct, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (Dept dept : depts) {
+                sink += wrapper.getParentNodeCode(dept) == null ? 0 : 1;
+            }
+            generated = Math.min(generated, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (Dept dept : depts) {
+                Object value = field.get(dept);
+                sink += value == null ? 0 : value.toString().isEmpty() ? 0 : 1;
+            }
+            reflective = Math.min(reflective, System.nanoTime() - start);
+        }
+        System.out.printf("parent code of %,d nodes: getter %.1f ms, wrapper %.1f ms, Field.get + toString %.1f ms (%d)%n",
+                depts.size(), direct / 1e6, generated / 1e6, reflective / 1e6, sink);
+    }
+}
@@ -0,0 +1,249 @@
+package com.lianekai.util.test.tree;
+
+import com.lianekai.util.tree.MutableTree;
+import com.lianekai.util.tree.TreeNode;
+import com.lianekai.util.tree.TreeNodeChild;
+import com.lianekai.util.tree.TreeNodeCode;
+import com.lianekai.util.tree.TreeNodeParentCode;
+import com.lianekai.util.tree.TreeNodeWrapper;
+import com.lianekai.util.tree.TreeIndex;
+import com.lianekai.util.tree.TreeResult;
+import com.lianekai.util.tree.TreeUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 树结构工具测试
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 18:10
+ */
+public class TreeUtilsTest {
+
+    @Test
+    public void testBuildTree() {
+        List<Dept> depts = Arrays.asList(
+                new Dept(11L, 1L, "研发一部"),
+                new Dept(1L, null, "研发中心"),
+                new Dept(2L, null, "销售中心"),
+                new Dept(12L, 1L, "研发二部"),
+                new Dept(111L, 11L, "后端组"),
+                new Dept(31L, 3L, "不在列表中的父节点"));
+        TreeResult<Dept> result = TreeUtils.build(depts, false);
+        Assert.assertEquals(Arrays.asList(1L, 2L, 31L), ids(result.getRoots()));
+        Assert.assertEquals(Collections.singletonList(31L), ids(result.getOrphans()));
+        Assert.assertFalse(result.hasCycle());
+        Dept root = result.getRoots().get(0);
+        Assert.assertEquals(Arrays.asList(11L, 12L), ids(root.getChildren()));
+        Assert.assertEquals(Collections.singletonList(111L), ids(root.getChildren().get(0).getChildren()));
+        Assert.assertTrue(root.getChildren().get(1).getChildren().isEmpty());
+    }
+
+    @Test
+    public void testBuildTreeCycle() {
+        List<Dept> depts = Arrays.asList(
+                new Dept(1L, null, "root"),
+                new Dept(2L, 3L, "a"),
+                new Dept(3L, 2L, "b"),
+                new Dept(4L, 3L, "c"),
+                new Dept(5L, 1L, "d"));
+        TreeResult<Dept> result = TreeUtils.build(depts, false);
+        Assert.assertEquals(Collections.singletonList(1L), ids(result.getRoots()));
+        Assert.assertEquals(Arrays.asList(2L, 3L, 4L), ids(result.getCycleNodes()));
+        Assert.assertEquals(Collections.singletonList(5L), ids(result.getRoots().get(0).getChildren()));
+        try {
+            TreeUtils.buildTree(depts);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("cycle"));
+        }
+        try {
+            TreeUtils.buildTree(Arrays.asList(new Dept(1L, null, "a"), new Dept(1L, null, "b")));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("Duplicate"));
+        }
+    }
+
+    @Test
+    public void testParallelBuildTree() {
+        int size = 50_000;
+        List<Dept> serial = randomTree(size);
+        List<Dept> parallel = randomTree(size);
+        List<Dept> serialRoots = TreeUtils.buildTree(serial);
+        List<Dept> parallelRoots = TreeUtils.buildTree(parallel, true);
+        Assert.assertEquals(ids(serialRoots), ids(parallelRoots));
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(ids(serial.get(i).getChildren()), ids(parallel.get(i).getChildren()));
+        }
+    }
+
+    @Test
+    public void testTreeNodeWrapper() {
+        //有public getter/setter
+        TreeNodeWrapper wrapper = new TreeNodeWrapper(Dept.class);
+        Dept dept = new Dept(1L, 0L, "a");
+        Assert.assertEquals(1L, wrapper.getNodeCode(dept));
+        Assert.assertEquals(0L, wrapper.getParentNodeCode(dept));
+        wrapper.setChildNodes(dept, new ArrayList<>(Collections.singletonList(new Dept(2L, 1L, "b"))));
+        Assert.assertEquals(1, wrapper.getNodeChild(dept).size());
+
+        //只有私有字段，编码与父编码类型不一致时按字符串匹配，子节点为Set
+        List<Category> categories = Arrays.asList(new Category(1, null), new Category(2, "1"), new Category(3, "1"));
+        List<Category> roots = TreeUtils.buildTree(categories);
+        Assert.assertEquals(1, roots.size());
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList(categories.get(1), categories.get(2))), roots.get(0).children);
+        TreeNodeWrapper categoryWrapper = new TreeNodeWrapper(Category.class);
+        Assert.assertEquals("2", categoryWrapper.getNodeCode(categories.get(1)));
+        categoryWrapper.setParentNodeCode(categories.get(1), "3");
+        Assert.assertEquals("3", categories.get(1).parent);
+    }
+
+    @Test
+    public void testMutableTree() {
+        MutableTree<Dept> tree = MutableTree.of(Dept.class, new ArrayList<>(Arrays.asList(
+                new Dept(1L, null, "研发中心"),
+                new Dept(11L, 1L, "研发一部"),
+                new Dept(12L, 1L, "研发二部"),
+                new Dept(2L, null, "销售中心"))));
+        List<String> events = new ArrayList<>();
+        tree.onInsert((parent, node) -> events.add("insert " + node.getId() + " -> " + (parent == null ? null : parent.getId())))
+                .onMove((parent, node) -> events.add("move " + node.getId() + " -> " + (parent == null ? null : parent.getId())))
+                .onRemove((parent, node) -> events.add("remove " + node.getId()));
+
+        tree.insert(new Dept(111L, 11L, "后端组"));
+        tree.insert(new Dept(3L, null, "财务中心"));
+        Assert.assertEquals(6, tree.size());
+        Assert.assertEquals(Collections.singletonList(111L), ids(tree.get(11L).getChildren()));
+
+        //子树随节点移动，父编码同步修改
+        tree.move(11L, 2L);
+        Assert.assertEquals(Long.valueOf(2L), tree.get(11L).getParentId());
+        Assert.assertEquals(Collections.singletonList(12L), ids(tree.get(1L).getChildren()));
+        Assert.assertEquals(Collections.singletonList(11L), ids(tree.get(2L).getChildren()));
+        Assert.assertSame(tree.get(11L), tree.getParent(111L));
+        try {
+            tree.move(2L, 111L);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("subtree"));
+        }
+        tree.move(12L, null);
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 12L), ids(new ArrayList<>(tree.getRoots())));
+
+        //摘出的子树成为新树，原树中不再包含
+        MutableTree<Dept> detached = tree.detach(11L);
+        Assert.assertEquals(2, detached.size());
+        Assert.assertFalse(tree.contains(111L));
+        Assert.assertTrue(tree.get(2L).getChildren().isEmpty());
+        Assert.assertNotNull(tree.delete(1L));
+        Assert.assertNull(tree.delete(1L));
+        Assert.assertEquals(Arrays.asList(2L, 3L, 12L), ids(tree.toList()));
+        try {
+            tree.insert(new Dept(4L, 1L, "父节点已删除"));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("not found"));
+        }
+        Assert.assertEquals(Arrays.asList("insert 111 -> 11", "insert 3 -> null", "move 11 -> 2", "move 12 -> null",
+                "remove 11", "remove 1"), events);
+    }
+
+    @Test
+    public void testTraversalAndIndex() {
+        List<Dept> depts = Arrays.asList(
+                new Dept(1L, null, "a"),
+                new Dept(11L, 1L, "a1"),
+                new Dept(111L, 11L, "a11"),
+                new Dept(12L, 1L, "a2"),
+                new Dept(2L, null, "b"),
+                new Dept(21L, 2L, "b1"));
+        List<Dept> roots = TreeUtils.buildTree(depts);
+        Assert.assertEquals(Arrays.asList(1L, 11L, 111L, 12L, 2L, 21L), ids(TreeUtils.depthFirst(roots).collect(Collectors.toList())));
+        Assert.assertEquals(Arrays.asList(1L, 2L, 11L, 12L, 21L, 111L), ids(TreeUtils.breadthFirst(roots).collect(Collectors.toList())));
+        Assert.assertEquals(Arrays.asList(1L, 11L, 12L, 2L, 21L), ids(TreeUtils.depthFirst(roots, 1).collect(Collectors.toList())));
+
+        //只展开节点1，节点2的子节点不会被访问
+        List<String> visited = new ArrayList<>();
+        TreeUtils.walk(roots, 5, dept -> dept.getId() == 1L,
+                (parent, dept) -> visited.add((parent == null ? null : parent.getId()) + "/" + dept.getId()));
+        Assert.assertEquals(Arrays.asList("null/1", "1/11", "1/12", "null/2"), visited);
+
+        TreeIndex<Dept> index = TreeUtils.index(roots);
+        Assert.assertTrue(index.isDescendant(111L, 1L));
+        Assert.assertFalse(index.isDescendant(111L, 12L));
+        Assert.assertFalse(index.isDescendant(1L, 1L));
+        Assert.assertEquals(Arrays.asList(11L, 111L, 12L), ids(index.descendants(1L)));
+        Assert.assertEquals(Arrays.asList(11L, 1L), ids(index.ancestors(111L)));
+        Assert.assertEquals(Arrays.asList(1L, 11L, 111L), ids(index.path(111L)));
+        Assert.assertEquals(2, index.depth(111L));
+        Assert.assertEquals(4, index.subtreeSize(1L));
+        Assert.assertNull(index.parent(2L));
+
+        //并行遍历与串行结果一致，先序保持顺序
+        List<Dept> big = TreeUtils.buildTree(randomTree(20_000));
+        List<Long> serial = ids(TreeUtils.depthFirst(big).collect(Collectors.toList()));
+        Assert.assertEquals(20_000, serial.size());
+        Assert.assertEquals(serial, ids(TreeUtils.depthFirst(big).parallel().collect(Collectors.toList())));
+        Assert.assertEquals(20_000, TreeUtils.breadthFirst(big).parallel().count());
+
+        //很深的树不会栈溢出
+        List<Dept> chain = new ArrayList<>();
+        for (long i = 0; i < 200_000; i++) {
+            chain.add(new Dept(i, i == 0 ? null : i - 1, null));
+        }
+        List<Dept> chainRoots = TreeUtils.buildTree(chain);
+        Assert.assertEquals(200_000, TreeUtils.depthFirst(chainRoots).count());
+        Assert.assertTrue(TreeUtils.index(chainRoots).isDescendant(199_999L, 0L));
+    }
+
+    /**
+     * 每个节点的父节点是它之前的随机一个节点，约1%的节点为顶层节点
+     */
+    static List<Dept> randomTree(int size) {
+        Random random = new Random(7);
+        List<Dept> depts = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            Long parentId = i == 0 || random.nextInt(100) == 0 ? null : (long) random.nextInt((int) i);
+            depts.add(new Dept(i, parentId, "dept-" + i));
+        }
+        Collections.shuffle(depts, random);
+        return depts;
+    }
+
+    private static List<Long> ids(List<Dept> depts) {
+        List<Long> ids = new ArrayList<>(depts.size());
+        for (Dept dept : depts) {
+            ids.add(dept.getId());
+        }
+        return ids;
+    }
+
+    @TreeNode
+    static class Category {
+
+        @TreeNodeCode
+        private Integer id;
+
+        @TreeNodeParentCode
+        private String parent;
+
+        @TreeNodeChild
+        private Set<Category> children;
+
+        Category(Integer id, String parent) {
+            this.id = id;
+            this.parent = parent;
+        }
+    }
+}
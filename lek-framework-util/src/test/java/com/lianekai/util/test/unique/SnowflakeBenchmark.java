@@ -0,0 +1,160 @@
+package com.lianekai.util.test.unique;
+
+import com.lianekai.util.unique.IdBlock;
+import com.lianekai.util.unique.SnowflakeGenerator;
+import com.lianekai.util.unique.UuidV7Generator;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake ID生成吞吐对比：原来的static synchronized实现、CAS实现、分段CAS实现，线程数依次为1、8、64
+ * 不属于单元测试，直接运行main方法，参数为每个线程生成的ID数
+ * 单个机器id每毫秒最多4096个，即约400万/秒，非分段实现的上限受此限制
+ * 另外对比批量导入100万个ID时逐个调用nextId与nextIds、lease的耗时，以及允许提前使用1秒时nextIds的耗时；
+ * 100万个UUIDv7的字符串编码：UUID.toString与UuidV7Generator的标准格式、紧凑格式、写入已有缓冲区
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 20:10
+ */
+public class SnowflakeBenchmark {
+
+    private static final int[] THREADS = {1, 8, 64};
+
+    public static void main(String[] args) throws InterruptedException {
+        int perThread = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        SnowflakeGenerator cas = SnowflakeGenerator.newBuilder().workerId(0).build();
+        SnowflakeGenerator striped = SnowflakeGenerator.newBuilder().workerId(0).stripes(16).build();
+        for (int round = 0; round < 2; round++) {
+            for (int threads : THREADS) {
+                double legacy = run(threads, perThread, LegacySnowflake::nextId);
+                double lockFree = run(threads, perThread, cas::nextId);
+                double stripedRate = run(threads, perThread, striped::nextId);
+                System.out.printf("round %d, threads %d: synchronized %.2f M/s, CAS %.2f M/s, striped(16) %.2f M/s%n",
+                        round, threads, legacy, lockFree, stripedRate);
+            }
+            bulk(round, 1_000_000);
+            uuid(round, 1_000_000);
+        }
+    }
+
+    private static void bulk(int round, int count) {
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerId(1).build();
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink ^= generator.nextId();
+        }
+        long single = System.nanoTime() - start;
+        start = System.nanoTime();
+        sink ^= generator.nextIds(count)[count - 1];
+        long batch = System.nanoTime() - start;
+        start = System.nanoTime();
+        int leased = 0;
+        while (leased < count) {
+            IdBlock block = generator.lease();
+            while (block.hasNext() && leased < count) {
+                sink ^= block.next();
+                leased++;
+            }
+        }
+        long lease = System.nanoTime() - start;
+        SnowflakeGenerator borrowing = SnowflakeGenerator.newBuilder().workerId(2)
+                .borrowWindow(1, TimeUnit.SECONDS).build();
+        start = System.nanoTime();
+        sink ^= borrowing.nextIds(count)[count - 1];
+        long borrowed = System.nanoTime() - start;
+        System.out.printf("round %d, %,d ids: nextId %.1f ms, nextIds %.1f ms, lease %.1f ms, nextIds with borrowing %.1f ms (%d)%n",
+                round, count, single / 1e6, batch / 1e6, lease / 1e6, borrowed / 1e6, sink & 1);
+    }
+
+    private static void uuid(int round, int count) {
+        UuidV7Generator generator = new UuidV7Generator();
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += generator.nextUuid().toString().length();
+        }
+        long jdk = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += generator.nextString().length();
+        }
+        long string = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += generator.nextCompactString().length();
+        }
+        long compact = System.nanoTime() - start;
+        char[] buffer = new char[UuidV7Generator.STRING_LENGTH];
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            generator.nextChars(buffer, 0);
+            sink += buffer[35];
+        }
+        long chars = System.nanoTime() - start;
+        UUID uuid = generator.nextUuid();
+        System.out.printf("round %d, %,d uuids: UUID.toString %.1f ms, nextString %.1f ms, nextCompactString %.1f ms, "
+                        + "nextChars %.1f ms (%d)%n", round, count, jdk / 1e6, string / 1e6, compact / 1e6, chars / 1e6,
+                (sink + uuid.hashCode()) & 1);
+    }
+
+    private static double run(int threads, int perThread, LongSupplier supplier) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long sink = 0;
+                for (int i = 0; i < perThread; i++) {
+                    sink ^= supplier.getAsLong();
+                }
+                if (sink == 42) {
+                    System.out.print("");
+                }
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return (double) threads * perThread / (System.nanoTime() - begin) * 1000;
+    }
+
+    /**
+     * 原来的SnowflakeIdWorker实现：static synchronized，序列溢出时空转等待下一毫秒
+     */
+    private static class LegacySnowflake {
+
+        private static long sequence;
+
+        private static long lastTimestamp = -1L;
+
+        static synchronized long nextId() {
+            long timestamp = System.currentTimeMillis();
+            if (timestamp < lastTimestamp) {
+                throw new RuntimeException("Clock moved backwards");
+            }
+            if (lastTimestamp == timestamp) {
+                sequence = (sequence + 1) & 4095;
+                if (sequence == 0) {
+                    while (timestamp <= lastTimestamp) {
+                        timestamp = System.currentTimeMillis();
+                    }
+                }
+            } else {
+                sequence = 0L;
+            }
+            lastTimestamp = timestamp;
+            return ((timestamp - 1420041600000L) << 22) | (1L << 17) | (1L << 12) | sequence;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.lianekai.util.test.unique;
+
+import com.lianekai.util.unique.IdBlock;
+import com.lianekai.util.unique.SnowflakeGenerator;
+import com.lianekai.util.unique.SnowflakeId;
+import com.lianekai.util.unique.SnowflakeIdWorker;
+import com.lianekai.util.unique.SnowflakeLayout;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake ID生成器测试
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 20:10
+ */
+public class SnowflakeGeneratorTest {
+
+    @Test
+    public void testNextId() {
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().datacenterId(3).workerId(7).build();
+        long last = 0;
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            Assert.assertTrue(id > last);
+            last = id;
+            ids.add(id);
+        }
+        Assert.assertEquals(100_000, ids.size());
+        Assert.assertEquals(3, (last >>> 17) & 31);
+        Assert.assertEquals(7, (last >>> 12) & 31);
+        long millis = (last >>> 22) + 1420041600000L;
+        Assert.assertTrue(Math.abs(System.currentTimeMillis() - millis) < 5000);
+        Assert.assertTrue(SnowflakeIdWorker.nextId() < SnowflakeIdWorker.nextId());
+
+        try {
+            SnowflakeGenerator.newBuilder().workerId(30).stripes(4).build();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("worker id"));
+        }
+    }
+
+    @Test
+    public void testNextIdsAndLease() {
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerId(1).build();
+        long before = generator.nextId();
+        long[] ids = generator.nextIds(10_000);
+        Assert.assertEquals(10_000, ids.length);
+        Assert.assertTrue(ids[0] > before);
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(ids[i] > ids[i - 1]);
+        }
+        Assert.assertTrue(generator.nextId() > ids[ids.length - 1]);
+        Assert.assertEquals(0, generator.nextIds(0).length);
+        Assert.assertEquals(100, generator.nextIdStream(100).distinct().count());
+
+        //租用当前毫秒剩余的序列，同一毫秒内的后续ID都大于租用的
+        IdBlock block = generator.lease();
+        Assert.assertTrue(block.remaining() > 0 && block.remaining() <= 4096);
+        long last = 0;
+        int count = 0;
+        while (block.hasNext()) {
+            long id = block.next();
+            Assert.assertTrue(id > last);
+            last = id;
+            count++;
+        }
+        Assert.assertTrue(count > 0);
+        Assert.assertEquals(0, block.remaining());
+        Assert.assertTrue(generator.nextId() > last);
+
+        //提前使用之后的毫秒，100万个ID不必等待时钟，时间戳不超过窗口
+        SnowflakeGenerator borrowing = SnowflakeGenerator.newBuilder().workerId(2)
+                .borrowWindow(1, TimeUnit.SECONDS).build();
+        long start = System.currentTimeMillis();
+        long[] many = borrowing.nextIds(1_000_000);
+        for (int i = 1; i < many.length; i++) {
+            Assert.assertTrue(many[i] > many[i - 1]);
+        }
+        long lastMillis = (many[many.length - 1] >>> 22) + 1420041600000L;
+        Assert.assertTrue(lastMillis - start >= 200 && lastMillis - System.currentTimeMillis() <= 1000);
+        Assert.assertTrue(borrowing.nextId() > many[many.length - 1]);
+        try {
+            block.next();
+            Assert.fail();
+        } catch (NoSuchElementException e) {
+            Assert.assertEquals("IdBlock is exhausted", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConcurrentNextId() throws InterruptedException {
+        for (int stripes : new int[]{1, 4}) {
+            SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerId(8).stripes(stripes).build();
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            int threads = 8;
+            int perThread = 50_000;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                new Thread(() -> {
+                    long last = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        long id = generator.nextId();
+                        //同一线程内严格递增
+                        if (id <= last) {
+                            throw new IllegalStateException("not increasing");
+                        }
+                        last = id;
+                        ids.add(id);
+                    }
+                    done.countDown();
+                }).start();
+            }
+            done.await();
+            Assert.assertEquals(threads * perThread, ids.size());
+        }
+    }
+
+    @Test
+    public void testClockDrift() {
+        AtomicLong offset = new AtomicLong();
+        LongSupplier clock = () -> System.currentTimeMillis() + offset.get();
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerId(5)
+                .clockDriftTolerance(100, TimeUnit.MILLISECONDS).clockBackwardsFallback().clock(clock).build();
+        long last = generator.nextId();
+        //回退50毫秒，继续使用逻辑时钟，序列用完后等待时钟追上
+        offset.addAndGet(-50);
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            Assert.assertTrue(id > last);
+            last = id;
+        }
+        Assert.assertTrue(generator.getDriftCount() > 0);
+        long maxDrift = generator.getMaxDrift(TimeUnit.MILLISECONDS);
+        Assert.assertTrue(maxDrift > 0 && maxDrift <= 50);
+        Assert.assertFalse(generator.isFallbackActive());
+
+        //回退超过容忍范围，切换到备用代，ID仍然递增
+        offset.addAndGet(-10_000);
+        long fallback = generator.nextId();
+        Assert.assertTrue(fallback > last);
+        Assert.assertTrue(generator.isFallbackActive());
+        Assert.assertEquals(1, fallback >>> 62);
+        Assert.assertTrue(generator.nextIds(5_000)[4_999] > fallback);
+        //生成器的布局保留代位，解码时去掉代位还原时间戳
+        SnowflakeLayout layout = generator.getLayout();
+        Assert.assertTrue(layout.hasGenerationBit());
+        SnowflakeId decoded = layout.decode(fallback);
+        Assert.assertEquals(1, decoded.getGeneration());
+        Assert.assertEquals(clock.getAsLong(), decoded.getTimestamp(), 1_000);
+        Assert.assertEquals(0, layout.decode(last).getGeneration());
+        Assert.assertTrue(layout.minId(decoded.getTimestamp(), 1) <= fallback);
+        Assert.assertTrue(fallback <= layout.maxId(decoded.getTimestamp(), 1));
+        Assert.assertTrue(layout.maxId(decoded.getTimestamp(), 0) < fallback);
+
+        //只能切换一次
+        offset.addAndGet(-10_000);
+        try {
+            generator.nextId();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Clock moved backwards"));
+        }
+
+        SnowflakeGenerator strict = SnowflakeGenerator.newBuilder().clock(clock).build();
+        strict.nextId();
+        offset.addAndGet(-1_000);
+        try {
+            strict.nextId();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Clock moved backwards"));
+        }
+    }
+
+    @Test
+    public void testConcurrentFallback() throws InterruptedException {
+        long base = System.currentTimeMillis();
+        AtomicBoolean regressed = new AtomicBoolean();
+        AtomicReference<Thread> blocked = new AtomicReference<>();
+        CountDownLatch inClock = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerId(6).clockBackwardsFallback()
+                .clock(() -> {
+                    if (blocked.compareAndSet(Thread.currentThread(), null)) {
+                        //已经读到切换前的逻辑时钟，停在读取时钟的位置，返回回退前的时间
+                        inClock.countDown();
+                        try {
+                            resume.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return base;
+                    }
+                    return regressed.get() ? base - 10_000 : base;
+                }).build();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ids.add(generator.nextId());
+        AtomicLong result = new AtomicLong();
+        Thread worker = new Thread(() -> result.set(generator.nextId()));
+        blocked.set(worker);
+        worker.start();
+        inClock.await();
+        //另一个线程在此期间切换到备用代
+        regressed.set(true);
+        Assert.assertTrue(ids.add(generator.nextId()));
+        Assert.assertTrue(generator.isFallbackActive());
+        resume.countDown();
+        worker.join();
+        Assert.assertTrue(ids.add(result.get()));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(ids.add(generator.nextId()));
+        }
+    }
+
+    @Test
+    public void testLayoutAndDecode() {
+        SnowflakeLayout layout = SnowflakeLayout.newBuilder().datacenterBits(2).workerBits(6).sequenceBits(14).build();
+        Assert.assertEquals(41, layout.getTimestampBits());
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().layout(layout).datacenterId(3).workerId(60)
+                .build();
+        long before = System.currentTimeMillis();
+        long[] ids = generator.nextIds(20_000);
+        long after = System.currentTimeMillis();
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(ids[i] > ids[i - 1]);
+        }
+        SnowflakeId decoded = layout.decode(ids[0]);
+        Assert.assertEquals(3, decoded.getDatacenterId());
+        Assert.assertEquals(60, decoded.getWorkerId());
+        Assert.assertTrue(decoded.getTimestamp() >= before && decoded.getTimestamp() <= after);
+        Assert.assertEquals(ids[0], layout.compose(decoded.getTimestamp(), 3, 60, decoded.getSequence()));
+        //14位序列，同一毫秒内最多16384个
+        Assert.assertTrue(layout.decode(ids[ids.length - 1]).getSequence() <= 16383);
+
+        //时间范围转换为ID范围
+        Assert.assertTrue(layout.minId(before) <= ids[0] && ids[ids.length - 1] <= layout.maxId(after));
+        Assert.assertTrue(layout.maxId(before - 1) < ids[0]);
+
+        long id = SnowflakeIdWorker.nextId();
+        Assert.assertEquals(SnowflakeIdWorker.getGenerator().getWorkerId(), SnowflakeIdWorker.decode(id).getWorkerId());
+        Assert.assertEquals(SnowflakeLayout.DEFAULT, SnowflakeIdWorker.getGenerator().getLayout());
+
+        try {
+            SnowflakeLayout.newBuilder().workerBits(10).sequenceBits(20).build();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("timestampBits must be at least"));
+        }
+        try {
+            SnowflakeLayout.newBuilder().timestampBits(42).build();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Layout needs 64 bits"));
+        }
+        try {
+            SnowflakeGenerator.newBuilder().layout(layout).datacenterId(4).build();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("datacenterId must be between 0 and 3", e.getMessage());
+        }
+        try {
+            SnowflakeGenerator.newBuilder().layout(SnowflakeLayout.newBuilder().epoch(System.currentTimeMillis() + 60_000)
+                    .build()).build();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("is out of the timestamp range"));
+        }
+    }
+
+    @Test
+    public void testTimestampRange() {
+        //32位时间戳，时钟停在最后一毫秒
+        long epoch = System.currentTimeMillis() - (1L << 32);
+        SnowflakeLayout layout = SnowflakeLayout.newBuilder().timestampBits(32).epoch(epoch).build();
+        AtomicLong time = new AtomicLong(epoch + layout.getMaxTimestamp());
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().layout(layout).workerId(1)
+                .borrowWindow(1, TimeUnit.MINUTES).clock(time::get).build();
+        //提前使用不会超过最大时间戳
+        long[] ids = generator.nextIds(4096);
+        Assert.assertEquals(time.get(), layout.timestampOf(ids[ids.length - 1]));
+        Assert.assertEquals(4095, layout.sequenceOf(ids[ids.length - 1]));
+        try {
+            generator.nextId();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("is out of the timestamp range"));
+        }
+        time.incrementAndGet();
+        try {
+            generator.nextId();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("is out of the timestamp range"));
+        }
+
+        //开启备用代时时间戳少1位
+        time.set(epoch + layout.getMaxTimestamp() / 2 + 1);
+        try {
+            SnowflakeGenerator.newBuilder().layout(layout).clockBackwardsFallback().clock(time::get).build();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("is out of the timestamp range"));
+        }
+    }
+}
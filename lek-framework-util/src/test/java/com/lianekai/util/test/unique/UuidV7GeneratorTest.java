@@ -0,0 +1,79 @@
+package com.lianekai.util.test.unique;
+
+import com.lianekai.util.unique.UuidV7Generator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.UUID;
+
+/**
+ * UUIDv7生成器测试
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 21:30
+ */
+public class UuidV7GeneratorTest {
+
+    @Test
+    public void testNextUuid() {
+        UuidV7Generator generator = new UuidV7Generator();
+        long before = System.currentTimeMillis();
+        UUID previous = generator.nextUuid();
+        String previousString = UuidV7Generator.toString(previous);
+        String previousCompact = UuidV7Generator.toCompactString(previous);
+        for (int i = 0; i < 100_000; i++) {
+            UUID uuid = generator.nextUuid();
+            Assert.assertEquals(7, uuid.version());
+            Assert.assertEquals(2, uuid.variant());
+            String string = UuidV7Generator.toString(uuid);
+            String compact = UuidV7Generator.toCompactString(uuid);
+            Assert.assertEquals(uuid.toString(), string);
+            Assert.assertEquals(uuid, UuidV7Generator.fromCompactString(compact));
+            //字典序与生成顺序一致
+            Assert.assertTrue(string.compareTo(previousString) > 0);
+            Assert.assertTrue(compact.compareTo(previousCompact) > 0);
+            previousString = string;
+            previousCompact = compact;
+        }
+        long timestamp = UuidV7Generator.timestampOf(UUID.fromString(previousString));
+        Assert.assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis() + 100);
+
+        Assert.assertEquals(UuidV7Generator.STRING_LENGTH, generator.nextString().length());
+        Assert.assertEquals(UuidV7Generator.COMPACT_STRING_LENGTH, generator.nextCompactString().length());
+        char[] buffer = new char[40];
+        generator.nextChars(buffer, 2);
+        Assert.assertEquals(7, UUID.fromString(new String(buffer, 2, 36)).version());
+        UUID max = new UUID(-1L, -1L);
+        Assert.assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", UuidV7Generator.toCompactString(max));
+        Assert.assertEquals(max, UuidV7Generator.fromCompactString("7zzzzzzzzzzzzzzzzzzzzzzzzz"));
+        try {
+            UuidV7Generator.fromCompactString("8ZZZZZZZZZZZZZZZZZZZZZZZZZ");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Invalid compact UUID"));
+        }
+        try {
+            UuidV7Generator.timestampOf(UUID.randomUUID());
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Not a version 7 UUID"));
+        }
+    }
+
+    @Test
+    public void testClockBackwards() {
+        long[] now = {System.currentTimeMillis()};
+        UuidV7Generator generator = new UuidV7Generator(() -> now[0]);
+        UUID first = generator.nextUuid();
+        now[0] -= 10_000;
+        //时钟回退与计数用完时都继续递增
+        UUID last = first;
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = generator.nextUuid();
+            Assert.assertTrue(Long.compareUnsigned(uuid.getMostSignificantBits(), last.getMostSignificantBits()) > 0);
+            last = uuid;
+        }
+        Assert.assertTrue(UuidV7Generator.timestampOf(last) > UuidV7Generator.timestampOf(first));
+    }
+}
@@ -0,0 +1,238 @@
+package com.lianekai.util.test.unique;
+
+import com.lianekai.util.unique.FileWorkerIdAssigner;
+import com.lianekai.util.unique.SnowflakeGenerator;
+import com.lianekai.util.unique.SnowflakeLayout;
+import com.lianekai.util.unique.WorkerIdAssigner;
+import com.lianekai.util.unique.WorkerIdAssigners;
+import com.lianekai.util.unique.WorkerIdLease;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 机器id分配测试
+ *
+ * @author lianekai
+ * @version: 1.0
+ * @date 2026/10/18 22:10
+ */
+public class WorkerIdAssignerTest {
+
+    @Test
+    public void testFileLease() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("worker-id");
+        WorkerIdAssigner assigner = FileWorkerIdAssigner.newBuilder(directory).datacenterId(2).hostHashStart(false)
+                .heartbeatInterval(50, TimeUnit.MILLISECONDS).expireAfter(2, TimeUnit.SECONDS).build();
+
+        //同一目录下分配的机器id互不相同
+        Set<Long> workerIds = new HashSet<>();
+        SnowflakeGenerator first = SnowflakeGenerator.newBuilder().workerIdAssigner(assigner)
+                .borrowWindow(300, TimeUnit.MILLISECONDS).build();
+        SnowflakeGenerator second = SnowflakeGenerator.newBuilder().workerIdAssigner(assigner).stripes(4).build();
+        workerIds.add(first.getWorkerId());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(workerIds.add(second.getWorkerId() + i));
+        }
+        Assert.assertEquals(2, first.getDatacenterId());
+        Assert.assertEquals(0, first.getWorkerId());
+        Assert.assertEquals(4, second.getWorkerId());
+        Assert.assertTrue(first.nextId() > 0);
+
+        //释放后在提前使用窗口内不会被重新分配
+        first.close();
+        SnowflakeGenerator third = SnowflakeGenerator.newBuilder().workerIdAssigner(assigner).build();
+        Assert.assertEquals(1, third.getWorkerId());
+        try {
+            first.nextId();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Worker id lease is no longer valid"));
+        }
+        Thread.sleep(400);
+        WorkerIdLease reused = assigner.acquire(SnowflakeLayout.DEFAULT, 1);
+        Assert.assertEquals(0, reused.getWorkerId());
+
+        //锁空闲但心跳未过期的租约不会被使用
+        Path stale = directory.resolve("worker-2-2.lease");
+        Files.write(stale, ("owner=1@other\nheartbeat=" + System.currentTimeMillis() + "\n").getBytes(StandardCharsets.UTF_8));
+        WorkerIdLease lease = assigner.acquire(SnowflakeLayout.DEFAULT, 1);
+        Assert.assertEquals(3, lease.getWorkerId());
+        lease.close();
+        reused.close();
+
+        //续期时发现租约被其他实例写入，生成器拒绝生成ID
+        Path held = directory.resolve("worker-2-1.lease");
+        Files.write(held, "owner=1@other\nheartbeat=1\n".getBytes(StandardCharsets.UTF_8));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (third.getLease().isValid() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assert.assertFalse(third.getLease().isValid());
+        Assert.assertTrue(third.getLease().getInvalidReason().contains("1@other"));
+        try {
+            third.nextId();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Worker id lease is no longer valid"));
+        }
+        second.close();
+        third.close();
+
+        //分配失败时不创建生成器
+        WorkerIdAssigner full = FileWorkerIdAssigner.newBuilder(directory).datacenterId(3).maxAttempts(1)
+                .hostHashStart(false).build();
+        SnowflakeGenerator occupied = SnowflakeGenerator.newBuilder().workerIdAssigner(full).build();
+        try {
+            SnowflakeGenerator.newBuilder().workerIdAssigner(full).build();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith("No free worker id"));
+        }
+        occupied.close();
+    }
+
+    @Test
+    public void testFixedRegistration() throws IOException {
+        Path directory = Files.createTempDirectory("worker-id");
+        FileWorkerIdAssigner leaseFile = FileWorkerIdAssigner.newBuilder(directory).build();
+        WorkerIdAssigner configured = WorkerIdAssigners.fromEnv("lek.test.center", "lek.test.worker", leaseFile::fixed,
+                leaseFile);
+        System.setProperty("lek.test.center", "3");
+        System.setProperty("lek.test.worker", "7");
+        try {
+            SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerIdAssigner(configured).build();
+            Assert.assertEquals(3, generator.getDatacenterId());
+            Assert.assertEquals(7, generator.getWorkerId());
+            Assert.assertTrue(Files.exists(directory.resolve("worker-3-7.lease")));
+
+            //同一id重复配置时启动失败
+            try {
+                SnowflakeGenerator.newBuilder().workerIdAssigner(configured).build();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertTrue(e.getMessage().startsWith("Worker id is already in use"));
+            }
+            //自动分配跳过已登记的id
+            WorkerIdAssigner sameDatacenter = FileWorkerIdAssigner.newBuilder(directory).datacenterId(3).hostHashStart(false)
+                    .maxAttempts(8).build();
+            List<WorkerIdLease> leases = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                leases.add(sameDatacenter.acquire(SnowflakeLayout.DEFAULT, 1));
+                Assert.assertNotEquals(7, leases.get(i).getWorkerId());
+            }
+            leases.forEach(WorkerIdLease::close);
+            generator.close();
+        } finally {
+            System.clearProperty("lek.test.center");
+            System.clearProperty("lek.test.worker");
+        }
+    }
+
+    @Test
+    public void testStripedLease() throws IOException {
+        Path directory = Files.createTempDirectory("worker-id");
+        FileWorkerIdAssigner leaseFile = FileWorkerIdAssigner.newBuilder(directory).datacenterId(2).hostHashStart(false)
+                .build();
+        //id 0被占用，分段租约跳过第一组，占用4~7
+        WorkerIdLease first = leaseFile.fixed(2, 0).acquire(SnowflakeLayout.DEFAULT, 1);
+        WorkerIdLease striped = leaseFile.acquire(SnowflakeLayout.DEFAULT, 4);
+        Assert.assertEquals(4, striped.getWorkerId());
+        //分段租约占用的每个机器id都加锁，其他实例不能单独登记其中的任意一个
+        try {
+            leaseFile.fixed(2, 5).acquire(SnowflakeLayout.DEFAULT, 1);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Worker id is already in use"));
+        }
+        //与已有租约部分重叠时失败，且不留下已加的锁
+        try {
+            leaseFile.fixed(2, 2).acquire(SnowflakeLayout.DEFAULT, 4);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Worker id is already in use"));
+        }
+        WorkerIdLease overlapped = leaseFile.fixed(2, 2).acquire(SnowflakeLayout.DEFAULT, 2);
+        Assert.assertEquals(2, overlapped.getWorkerId());
+        overlapped.close();
+        striped.close();
+        first.close();
+    }
+
+    @Test
+    public void testExitedHolder() throws IOException {
+        Path directory = Files.createTempDirectory("worker-id");
+        FileWorkerIdAssigner leaseFile = FileWorkerIdAssigner.newBuilder(directory).datacenterId(2).hostHashStart(false)
+                .trustFileLock(true).build();
+        //分配时即写入重用延迟
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerIdAssigner(leaseFile)
+                .borrowWindow(150, TimeUnit.MILLISECONDS).build();
+        Assert.assertTrue(new String(Files.readAllBytes(directory.resolve("worker-2-0.lease")), StandardCharsets.UTF_8)
+                .contains("reuseDelay=150"));
+        generator.close();
+
+        //持有者未释放就退出：固定id只等待记录的重用延迟，不等心跳过期
+        String exited = "owner=1@other\nheartbeat=" + System.currentTimeMillis() + "\nreuseDelay=200\n";
+        Files.write(directory.resolve("worker-2-3.lease"), exited.getBytes(StandardCharsets.UTF_8));
+        long start = System.nanoTime();
+        WorkerIdLease fixed = leaseFile.fixed(2, 3).acquire(SnowflakeLayout.DEFAULT, 1);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue(String.valueOf(waited), waited >= 200 && waited < 10_000);
+        fixed.close();
+
+        //自动分配跳过并改写为可重用时间，之后可以再分配
+        Files.write(directory.resolve("worker-2-1.lease"), exited.getBytes(StandardCharsets.UTF_8));
+        FileWorkerIdAssigner auto = FileWorkerIdAssigner.newBuilder(directory).datacenterId(2).hostHashStart(false)
+                .trustFileLock(true).build();
+        WorkerIdLease first = auto.acquire(SnowflakeLayout.DEFAULT, 1);
+        Assert.assertEquals(0, first.getWorkerId());
+        WorkerIdLease skipped = auto.acquire(SnowflakeLayout.DEFAULT, 1);
+        Assert.assertEquals(2, skipped.getWorkerId());
+        Assert.assertTrue(new String(Files.readAllBytes(directory.resolve("worker-2-1.lease")), StandardCharsets.UTF_8)
+                .contains("reusableAt="));
+        sleep(300);
+        WorkerIdLease reused = auto.acquire(SnowflakeLayout.DEFAULT, 1);
+        Assert.assertEquals(1, reused.getWorkerId());
+        first.close();
+        skipped.close();
+        reused.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testHostHash() {
+        SnowflakeGenerator generator = SnowflakeGenerator.newBuilder().workerIdAssigner(WorkerIdAssigners.hostHash())
+                .build();
+        SnowflakeGenerator again = SnowflakeGenerator.newBuilder().workerIdAssigner(WorkerIdAssigners.hostHash())
+                .build();
+        Assert.assertEquals(generator.getDatacenterId(), again.getDatacenterId());
+        Assert.assertEquals(generator.getWorkerId(), again.getWorkerId());
+
+        WorkerIdAssigner fixed = WorkerIdAssigners.fromEnv("lek.test.center", "lek.test.worker", WorkerIdAssigners.fixed(5, 6));
+        Assert.assertEquals(6, SnowflakeGenerator.newBuilder().workerIdAssigner(fixed).build().getWorkerId());
+        System.setProperty("lek.test.worker", "9");
+        try {
+            SnowflakeGenerator configured = SnowflakeGenerator.newBuilder().workerIdAssigner(fixed).build();
+            Assert.assertEquals(1, configured.getDatacenterId());
+            Assert.assertEquals(9, configured.getWorkerId());
+        } finally {
+            System.clearProperty("lek.test.worker");
+        }
+    }
+}